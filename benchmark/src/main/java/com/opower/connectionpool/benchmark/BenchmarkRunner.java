@@ -0,0 +1,42 @@
+package com.opower.connectionpool.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the connection pool benchmarks once for each number of threads, since JMH only accepts a
+ * single thread count per run.  Any arguments are passed to JMH, so for example
+ * <code>-p timeout=0</code> restricts the runs to a single timeout.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Defines the numbers of threads the benchmarks are run with.
+	 */
+	public static final int[] THREADS = { 1, 4, 16, 64, 256 };
+
+	/**
+	 * Runs the benchmarks.
+	 * @param args The command line options of JMH.
+	 * @throws CommandLineOptionException Thrown if the command line options are invalid.
+	 * @throws RunnerException Thrown if a benchmark fails.
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		for (int threads : BenchmarkRunner.THREADS) {
+			Options options = new OptionsBuilder()
+				.parent(commandLineOptions)
+				.include(ConnectionPoolBenchmark.class.getName())
+				.threads(threads)
+				.build();
+			new Runner(options).run();
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.opower.connectionpool.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import com.opower.connectionpool.ConnectionPoolImpl;
+import com.opower.connectionpool.FakeDataSource;
+
+/**
+ * Measures the cost of borrowing a connection from and releasing it to a 
+ * {@link ConnectionPoolImpl} backed by a zero latency {@link FakeDataSource}.
+ * <p>
+ * The throughput mode reports operations per second and the sample time mode reports the 
+ * distribution of the time taken by a single borrow and release, including the p50, p99 and p999
+ * percentiles.  The size of the connection pool is a multiple of the number of benchmark threads,
+ * so a factor below one measures consumers waiting for each other and a factor above one measures
+ * the uncontended path.  The number of threads is set by {@link BenchmarkRunner} or by the 
+ * <code>-t</code> option of JMH.
+ *
+ * @author Joshua Mark Rutherford
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+	/**
+	 * Defines the number of connections in the connection pool per benchmark thread.
+	 */
+	@Param({ "0.5", "2" })
+	public double poolSizeFactor;
+
+	/**
+	 * Defines the number of milliseconds before a borrowed connection is released automatically. A
+	 * value of zero disables the timeout, any other value schedules a timeout on every borrow.
+	 */
+	@Param({ "0", "60000" })
+	public long timeout;
+
+	/**
+	 * Creates a connection pool that already holds all of its connections.
+	 * @param params The parameters of the benchmark, including the number of threads.
+	 * @throws SQLException
+	 */
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkParams params) throws SQLException {
+		int size = Math.max(1, (int)Math.round(params.getThreads() * this.poolSizeFactor));
+		this.connectionPool = new ConnectionPoolImpl(new FakeDataSource(), size, size, this.timeout);
+	}
+
+	/**
+	 * Borrows a connection, waiting for one to be released if necessary, and releases it again.
+	 * @return The released connection.
+	 * @throws SQLException
+	 */
+	@Benchmark
+	public Connection borrowAndRelease() throws SQLException {
+		Connection connection = this.connectionPool.getConnection(ConnectionPoolBenchmark.WAIT, TimeUnit.SECONDS);
+		this.connectionPool.releaseConnection(connection);
+		return connection;
+	}
+
+	private static final long WAIT = 30;
+
+	private ConnectionPoolImpl connectionPool;
+
+}
@@ -0,0 +1,329 @@
+package com.opower.connectionpool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Ref;
+import java.util.Arrays;
+
+/**
+ * Remembers the values bound to the parameters of a prepared statement so that they can be
+ * summarized when the statement is logged.
+ * <p>
+ * Objects are kept by reference and primitives are kept unboxed in a parallel array of longs
+ * along with their type, so binding a value costs a few array stores and allocates nothing.  Values
+ * are only boxed by {@link #toArray()} and described when the summary is written, which happens
+ * only for the few statements that are logged.  Streams, large objects and byte arrays are described by their type
+ * or length rather than their content, and long strings are truncated.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class BindParameters {
+
+	/**
+	 * Defines the value of a parameter that has been set to SQL <code>NULL</code>.
+	 */
+	public static final Object NULL = new Object() {
+		public String toString() {
+			return "NULL";
+		}
+	};
+
+	/**
+	 * Initializes a new instance of the BindParameters class.
+	 */
+	public BindParameters() {
+		this.values = new Object[BindParameters.INITIAL_CAPACITY];
+		this.primitives = new long[BindParameters.INITIAL_CAPACITY];
+		this.types = new byte[BindParameters.INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Remembers the value bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value or {@link #NULL}.
+	 */
+	public void set(int index, Object value) {
+		if (this.bind(index, BindParameters.OBJECT)) {
+			this.values[index - 1] = (value == null ? BindParameters.NULL : value);
+		}
+	}
+
+	/**
+	 * Remembers the boolean bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, boolean value) {
+		this.set(index, BindParameters.BOOLEAN, (value ? 1 : 0));
+	}
+
+	/**
+	 * Remembers the byte bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, byte value) {
+		this.set(index, BindParameters.BYTE, value);
+	}
+
+	/**
+	 * Remembers the short bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, short value) {
+		this.set(index, BindParameters.SHORT, value);
+	}
+
+	/**
+	 * Remembers the int bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, int value) {
+		this.set(index, BindParameters.INT, value);
+	}
+
+	/**
+	 * Remembers the long bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, long value) {
+		this.set(index, BindParameters.LONG, value);
+	}
+
+	/**
+	 * Remembers the float bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, float value) {
+		this.set(index, BindParameters.FLOAT, Float.floatToRawIntBits(value));
+	}
+
+	/**
+	 * Remembers the double bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param value The value.
+	 */
+	public void set(int index, double value) {
+		this.set(index, BindParameters.DOUBLE, Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Forgets every value.
+	 */
+	public void clear() {
+		Arrays.fill(this.values, 0, this.count, null);
+		Arrays.fill(this.types, 0, this.count, BindParameters.UNBOUND);
+		this.count = 0;
+	}
+
+	/**
+	 * Copies the values that are currently bound, boxing the primitives.
+	 * @return A copy of the values, indexed from zero.
+	 */
+	public Object[] toArray() {
+		Object[] values = new Object[this.count];
+		for (int i = 0; i < values.length; i++) {
+			long primitive = this.primitives[i];
+			switch (this.types[i]) {
+			case BindParameters.OBJECT:
+				values[i] = this.values[i];
+				break;
+			case BindParameters.BOOLEAN:
+				values[i] = Boolean.valueOf(primitive != 0);
+				break;
+			case BindParameters.BYTE:
+				values[i] = Byte.valueOf((byte)primitive);
+				break;
+			case BindParameters.SHORT:
+				values[i] = Short.valueOf((short)primitive);
+				break;
+			case BindParameters.INT:
+				values[i] = Integer.valueOf((int)primitive);
+				break;
+			case BindParameters.LONG:
+				values[i] = Long.valueOf(primitive);
+				break;
+			case BindParameters.FLOAT:
+				values[i] = Float.valueOf(Float.intBitsToFloat((int)primitive));
+				break;
+			case BindParameters.DOUBLE:
+				values[i] = Double.valueOf(Double.longBitsToDouble(primitive));
+				break;
+			default:
+				break;
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Writes a summary of bound values, for example <code>1='abc', 2=42, 3=NULL</code>.
+	 * @param values The values, indexed from zero, of which unbound values are null.
+	 * @return The summary.
+	 */
+	public static String summarize(Object[] values) {
+		StringBuilder summary = new StringBuilder();
+		int count = Math.min(values.length, BindParameters.MAXIMUM_SUMMARIZED);
+		for (int i = 0; i < count; i++) {
+			if (values[i] == null) {
+				continue;
+			}
+			if (summary.length() > 0) {
+				summary.append(", ");
+			}
+			summary.append(i + 1).append('=');
+			BindParameters.describe(summary, values[i]);
+		}
+		if (values.length > count) {
+			summary.append(", ... (").append(values.length - count).append(" more)");
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Defines the number of parameters for which space is initially reserved.
+	 */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * Defines the maximum number of parameters that are summarized.
+	 */
+	private static final int MAXIMUM_SUMMARIZED = 32;
+
+	/**
+	 * Defines the maximum number of characters of a string that are summarized.
+	 */
+	private static final int MAXIMUM_STRING_LENGTH = 64;
+
+	/**
+	 * Defines the type of a parameter to which no value has been bound.
+	 */
+	private static final byte UNBOUND = 0;
+
+	/**
+	 * Defines the type of a value that is kept by reference.
+	 */
+	private static final byte OBJECT = 1;
+
+	/**
+	 * Defines the type of a boolean.
+	 */
+	private static final byte BOOLEAN = 2;
+
+	/**
+	 * Defines the type of a byte.
+	 */
+	private static final byte BYTE = 3;
+
+	/**
+	 * Defines the type of a short.
+	 */
+	private static final byte SHORT = 4;
+
+	/**
+	 * Defines the type of an int.
+	 */
+	private static final byte INT = 5;
+
+	/**
+	 * Defines the type of a long.
+	 */
+	private static final byte LONG = 6;
+
+	/**
+	 * Defines the type of a float, which is kept as its bits.
+	 */
+	private static final byte FLOAT = 7;
+
+	/**
+	 * Defines the type of a double, which is kept as its bits.
+	 */
+	private static final byte DOUBLE = 8;
+
+	private Object[] values;
+	private long[] primitives;
+	private byte[] types;
+	private int count;
+
+	/**
+	 * Remembers the primitive bound to a parameter.
+	 * @param index The index of the parameter, starting at one.
+	 * @param type The type of the value.
+	 * @param value The bits of the value.
+	 */
+	private void set(int index, byte type, long value) {
+		if (this.bind(index, type)) {
+			this.values[index - 1] = null;
+			this.primitives[index - 1] = value;
+		}
+	}
+
+	/**
+	 * Records the type of the value bound to a parameter, growing the arrays if necessary.
+	 * @param index The index of the parameter, starting at one.
+	 * @param type The type of the value.
+	 * @return True if the index is valid; otherwise, false.
+	 */
+	private boolean bind(int index, byte type) {
+		if (index < 1) {
+			return false;
+		}
+		if (index > this.values.length) {
+			int length = Math.max(index, this.values.length * 2);
+			Object[] values = new Object[length];
+			System.arraycopy(this.values, 0, values, 0, this.values.length);
+			long[] primitives = new long[length];
+			System.arraycopy(this.primitives, 0, primitives, 0, this.primitives.length);
+			byte[] types = new byte[length];
+			System.arraycopy(this.types, 0, types, 0, this.types.length);
+			this.values = values;
+			this.primitives = primitives;
+			this.types = types;
+		}
+		this.types[index - 1] = type;
+		if (index > this.count) {
+			this.count = index;
+		}
+		return true;
+	}
+
+	/**
+	 * Describes a single value.
+	 * @param summary The summary to which the description is appended.
+	 * @param value The value.
+	 */
+	private static void describe(StringBuilder summary, Object value) {
+		if (value instanceof String) {
+			String string = (String)value;
+			summary.append('\'');
+			if (string.length() > BindParameters.MAXIMUM_STRING_LENGTH) {
+				summary.append(string, 0, BindParameters.MAXIMUM_STRING_LENGTH).append("...");
+			} else {
+				summary.append(string);
+			}
+			summary.append('\'');
+		} else if (value instanceof byte[]) {
+			summary.append("<").append(((byte[])value).length).append(" bytes>");
+		} else if (value instanceof InputStream || value instanceof Reader) {
+			summary.append("<stream>");
+		} else if (value instanceof Blob) {
+			summary.append("<blob>");
+		} else if (value instanceof Clob) {
+			summary.append("<clob>");
+		} else if (value instanceof Array) {
+			summary.append("<array>");
+		} else if (value instanceof Ref) {
+			summary.append("<ref>");
+		} else {
+			summary.append(value);
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+package com.opower.connectionpool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects a database from connection attempts while it appears to be unavailable.
+ * <p>
+ * The breaker starts out closed and lets every attempt through.  Once a number of consecutive
+ * attempts have failed it opens and rejects every attempt with a 
+ * {@link CircuitBreakerOpenException} until a backoff has elapsed.  It then becomes half open and
+ * lets a single trial attempt through: if the trial succeeds the breaker closes again, otherwise 
+ * it opens again with twice the previous backoff, up to a maximum.
+ * <p>
+ * Callers must pair every successful call to {@link #acquire()} with a call to either
+ * {@link #success()} or {@link #failure()}.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class CircuitBreaker {
+
+	/**
+	 * Enumerates the states of a circuit breaker.
+	 */
+	public enum State {
+
+		/**
+		 * Every attempt is let through.
+		 */
+		CLOSED,
+
+		/**
+		 * Every attempt is rejected until the backoff has elapsed.
+		 */
+		OPEN,
+
+		/**
+		 * A single trial attempt is let through.
+		 */
+		HALF_OPEN
+
+	}
+
+	/**
+	 * Initializes a new instance of the CircuitBreaker class.
+	 * @param failureThreshold The number of consecutive failures that open the breaker. This value must be greater than zero.
+	 * @param initialBackoff The time the breaker stays open after it first opens. This value must be greater than zero.
+	 * @param maximumBackoff The longest time the breaker stays open. This value must be greater than or equal to initialBackoff.
+	 * @param unit The time unit of the backoffs.
+	 */
+	public CircuitBreaker(int failureThreshold, long initialBackoff, long maximumBackoff, TimeUnit unit) {
+		if (failureThreshold < 1) {
+			throw new IllegalArgumentException("Failure threshold cannot be less than one.");
+		}
+		if (initialBackoff <= 0) {
+			throw new IllegalArgumentException("Initial backoff must be greater than zero.");
+		}
+		if (maximumBackoff < initialBackoff) {
+			throw new IllegalArgumentException("Maximum backoff cannot be less than initial backoff.");
+		}
+		this.failureThreshold = failureThreshold;
+		this.initialBackoff = unit.toNanos(initialBackoff);
+		this.maximumBackoff = unit.toNanos(maximumBackoff);
+		this.backoff = this.initialBackoff;
+		this.state = State.CLOSED;
+	}
+
+	/**
+	 * Asks the breaker to let an attempt through.
+	 * @throws CircuitBreakerOpenException Thrown if the breaker is open or a trial attempt is already in progress.
+	 */
+	public synchronized void acquire() throws CircuitBreakerOpenException {
+		if (this.state == State.CLOSED) {
+			return;
+		}
+		if (this.state == State.OPEN) {
+			long remaining = this.retryAt - System.nanoTime();
+			if (remaining > 0) {
+				throw this.newOpenException(remaining);
+			}
+			this.state = State.HALF_OPEN;
+			this.trial = false;
+		}
+		if (this.trial) {
+			throw this.newOpenException(0);
+		}
+		this.trial = true;
+	}
+
+	/**
+	 * Throws an exception if the breaker would reject an attempt, without starting a trial attempt.
+	 * @throws CircuitBreakerOpenException Thrown if the breaker is open and the backoff has not yet elapsed.
+	 */
+	public synchronized void check() throws CircuitBreakerOpenException {
+		if (this.state == State.OPEN) {
+			long remaining = this.retryAt - System.nanoTime();
+			if (remaining > 0) {
+				throw this.newOpenException(remaining);
+			}
+		}
+	}
+
+	/**
+	 * Records that an attempt succeeded, which closes the breaker.
+	 */
+	public synchronized void success() {
+		this.state = State.CLOSED;
+		this.failures = 0;
+		this.trial = false;
+		this.backoff = this.initialBackoff;
+	}
+
+	/**
+	 * Records that an attempt failed.  The breaker opens if the attempt was a trial attempt or if 
+	 * the failure threshold has been reached.
+	 */
+	public synchronized void failure() {
+		this.failures++;
+		if (this.state == State.HALF_OPEN) {
+			this.backoff = Math.min(this.backoff * 2, this.maximumBackoff);
+			this.open();
+		} else if (this.state == State.CLOSED && this.failures >= this.failureThreshold) {
+			this.backoff = this.initialBackoff;
+			this.open();
+		}
+	}
+
+	/**
+	 * Gets the state of the breaker.  An open breaker whose backoff has elapsed is reported as 
+	 * half open.
+	 * @return The state of the breaker.
+	 */
+	public synchronized State getState() {
+		if (this.state == State.OPEN && this.retryAt - System.nanoTime() <= 0) {
+			return State.HALF_OPEN;
+		}
+		return this.state;
+	}
+
+	/**
+	 * Gets the number of consecutive failed attempts.
+	 * @return The number of consecutive failed attempts.
+	 */
+	public synchronized int getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * Gets the number of consecutive failures that open the breaker.
+	 * @return The failure threshold.
+	 */
+	public int getFailureThreshold() {
+		return this.failureThreshold;
+	}
+
+	private int failureThreshold;
+	private long initialBackoff;
+	private long maximumBackoff;
+	private State state;
+	private int failures;
+	private long backoff;
+	private long retryAt;
+	private boolean trial;
+
+	/**
+	 * Opens the breaker for the current backoff.
+	 */
+	private void open() {
+		this.state = State.OPEN;
+		this.trial = false;
+		this.retryAt = System.nanoTime() + this.backoff;
+	}
+
+	/**
+	 * Creates the exception that rejects an attempt.
+	 * @param remaining The number of nanoseconds until the next attempt is allowed.
+	 * @return The exception.
+	 */
+	private CircuitBreakerOpenException newOpenException(long remaining) {
+		return new CircuitBreakerOpenException("Connection attempts are suspended because recent attempts have failed.", TimeUnit.NANOSECONDS.toMillis(remaining));
+	}
+
+}
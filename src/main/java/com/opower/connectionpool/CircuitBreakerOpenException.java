@@ -0,0 +1,42 @@
+package com.opower.connectionpool;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a connection cannot be created because the {@link CircuitBreaker} of the connection
+ * pool is open, that is, because recent attempts to connect to the database have failed and the
+ * next attempt is not yet due.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class CircuitBreakerOpenException extends SQLException {
+
+	/**
+	 * Defines the SQL state of the exception, which indicates that the client is unable to
+	 * establish a connection.
+	 */
+	public static final String SQL_STATE = "08001";
+
+	/**
+	 * Initializes a new instance of the CircuitBreakerOpenException class.
+	 * @param reason The description of the exception.
+	 * @param retryDelay The number of milliseconds until the next attempt to connect is allowed.
+	 */
+	public CircuitBreakerOpenException(String reason, long retryDelay) {
+		super(reason, CircuitBreakerOpenException.SQL_STATE);
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Gets the number of milliseconds until the next attempt to connect is allowed.
+	 * @return The retry delay in milliseconds.
+	 */
+	public long getRetryDelay() {
+		return this.retryDelay;
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	private long retryDelay;
+
+}
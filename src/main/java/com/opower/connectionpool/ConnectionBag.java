@@ -0,0 +1,367 @@
+package com.opower.connectionpool;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Provides a lock free store for the idle connections of a connection pool.
+ * <p>
+ * Every entry in the bag carries its own state and is claimed by atomically changing that state
+ * from {@link Entry#STATE_NOT_IN_USE} to {@link Entry#STATE_IN_USE}, so entries are never moved
+ * between collections when they are borrowed or returned. A borrowing thread looks for an idle
+ * entry in the following order:
+ *
+ * <ul>
+ * <li>The entries most recently returned by the same thread, which are kept in a thread local
+ * list. A thread that repeatedly borrows and returns an entry will find it here without touching
+ * any memory shared with other threads. The list only holds weak references, so that it does 
+ * not keep entries that have been removed from the bag reachable from idle threads.
+ * <li>The shared list of all entries, which is only copied when entries are added or removed.
+ * <li>A first in, first out queue of waiting threads to which returned and newly added entries
+ * are handed directly.
+ * </ul>
+ *
+ * @param <T> The type of the entries in the bag.
+ * @author Joshua Mark Rutherford
+ */
+public class ConnectionBag<T extends ConnectionBag.Entry> {
+
+	/**
+	 * Initializes a new instance of the ConnectionBag class.
+	 */
+	public ConnectionBag() {
+		this.entries = new CopyOnWriteArrayList<T>();
+		this.waiters = new ConcurrentLinkedQueue<Waiter<T>>();
+		this.local = new ThreadLocal<List<WeakReference<T>>>() {
+			protected List<WeakReference<T>> initialValue() {
+				return new ArrayList<WeakReference<T>>(ConnectionBag.LOCAL_CAPACITY);
+			}
+		};
+	}
+
+	/**
+	 * Adds an entry to the bag. If the entry is not in use it is handed to the longest waiting
+	 * thread, if any.
+	 * @param entry The entry to add.
+	 */
+	public void add(T entry) {
+		this.entries.add(entry);
+		if (entry.getState() == Entry.STATE_NOT_IN_USE) {
+			this.handoff(entry);
+		}
+	}
+
+	/**
+	 * Removes an entry from the bag. The entry is marked as removed so that it can no longer be
+	 * borrowed from a thread local list.
+	 * @param entry The entry to remove.
+	 * @return True if the entry was in the bag; otherwise, false.
+	 */
+	public boolean remove(T entry) {
+		entry.setState(Entry.STATE_REMOVED);
+		return this.entries.remove(entry);
+	}
+
+	/**
+	 * Borrows an idle entry from the bag without waiting.
+	 * @return An entry whose state is {@link Entry#STATE_IN_USE} or null if no entry is idle.
+	 */
+	public T poll() {
+		List<WeakReference<T>> local = this.local.get();
+		for (int i = local.size() - 1; i >= 0; i--) {
+			T entry = local.remove(i).get();
+			if (entry != null && entry.compareAndSetState(Entry.STATE_NOT_IN_USE, Entry.STATE_IN_USE)) {
+				return entry;
+			}
+		}
+		for (T entry : this.entries) {
+			if (entry.compareAndSetState(Entry.STATE_NOT_IN_USE, Entry.STATE_IN_USE)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Borrows an idle entry from the bag, waiting up to the specified time for an entry to be
+	 * returned or added if no entry is idle. Waiting threads are served in the order in which they
+	 * started waiting.
+	 * @param timeout The maximum time to wait.
+	 * @param unit The time unit of the timeout.
+	 * @return An entry whose state is {@link Entry#STATE_IN_USE} or null if the wait time elapsed.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting.
+	 */
+	public T borrow(long timeout, TimeUnit unit) throws InterruptedException {
+		return this.borrow(timeout, unit, null);
+	}
+
+	/**
+	 * Borrows an idle entry from the bag, waiting up to the specified time for an entry to be
+	 * returned or added if no entry is idle. If the current thread has to wait, a callback is run
+	 * once the thread has been queued but before it checks the bag again, so that anything the 
+	 * callback adds to the bag is either found or handed to a waiting thread.
+	 * @param timeout The maximum time to wait.
+	 * @param unit The time unit of the timeout.
+	 * @param waiting The callback that is run once the current thread has been queued or null.
+	 * @return An entry whose state is {@link Entry#STATE_IN_USE} or null if the wait time elapsed.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting.
+	 */
+	public T borrow(long timeout, TimeUnit unit, Runnable waiting) throws InterruptedException {
+		T entry = this.poll();
+		if (entry != null || timeout <= 0) {
+			return entry;
+		}
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		Waiter<T> waiter = new Waiter<T>();
+		this.waiters.offer(waiter);
+		if (waiting != null) {
+			waiting.run();
+		}
+		entry = this.poll();
+		if (entry != null) {
+			if (waiter.cancel()) {
+				this.waiters.remove(waiter);
+				return entry;
+			}
+			this.requite(entry);
+			return waiter.getEntry();
+		}
+		for (;;) {
+			entry = waiter.getEntry();
+			if (entry != null) {
+				return entry;
+			}
+			long remaining = deadline - System.nanoTime();
+			boolean interrupted = Thread.interrupted();
+			if (remaining <= 0 || interrupted) {
+				if (waiter.cancel()) {
+					this.waiters.remove(waiter);
+					if (interrupted) {
+						throw new InterruptedException();
+					}
+					return null;
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				return waiter.getEntry();
+			}
+			LockSupport.parkNanos(remaining);
+		}
+	}
+
+	/**
+	 * Returns a borrowed entry to the bag. The entry is handed to the longest waiting thread, if
+	 * any, or else remembered by the current thread so that it is the first entry the thread finds
+	 * the next time it borrows from the bag.  An entry that has been removed from the bag in the 
+	 * meantime is not returned.
+	 * @param entry The entry to return.
+	 */
+	public void requite(T entry) {
+		if (!entry.compareAndSetState(Entry.STATE_IN_USE, Entry.STATE_NOT_IN_USE)) {
+			return;
+		}
+		if (!this.handoff(entry)) {
+			List<WeakReference<T>> local = this.local.get();
+			for (int i = local.size() - 1; i >= 0; i--) {
+				T remembered = local.get(i).get();
+				if (remembered == null || remembered.getState() == Entry.STATE_REMOVED) {
+					local.remove(i);
+				}
+			}
+			if (local.size() >= ConnectionBag.LOCAL_CAPACITY) {
+				local.remove(0);
+			}
+			local.add(new WeakReference<T>(entry));
+		}
+	}
+
+	/**
+	 * Indicates whether any threads are waiting for an entry.
+	 * @return True if any threads are waiting; otherwise, false.
+	 */
+	public boolean hasWaiters() {
+		return !this.waiters.isEmpty();
+	}
+
+	/**
+	 * Gets the number of threads that are waiting for an entry.  The count is computed by walking
+	 * the queue of waiting threads and is intended for monitoring.
+	 * @return The number of waiting threads.
+	 */
+	public int getWaitingCount() {
+		return this.waiters.size();
+	}
+	
+	/**
+	 * Gets the entries in the bag, regardless of their state.
+	 * @return A snapshot of the entries in the bag.
+	 */
+	public List<T> values() {
+		return new ArrayList<T>(this.entries);
+	}
+
+	/**
+	 * Gets the number of entries in the bag.
+	 * @return The number of entries in the bag.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Gets the number of entries in the bag that are not in use.
+	 * @return The number of entries in the bag that are not in use.
+	 */
+	public int getIdleCount() {
+		int count = 0;
+		for (T entry : this.entries) {
+			if (entry.getState() == Entry.STATE_NOT_IN_USE) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static final int LOCAL_CAPACITY = 16;
+
+	private List<T> entries;
+	private Queue<Waiter<T>> waiters;
+	private ThreadLocal<List<WeakReference<T>>> local;
+
+	/**
+	 * Hands an idle entry to the longest waiting thread.
+	 * @param entry The idle entry.
+	 * @return True if the entry was handed to a waiting thread or claimed by another thread in the
+	 * meantime or false if the entry is still idle and no threads are waiting.
+	 */
+	private boolean handoff(T entry) {
+		while (!this.waiters.isEmpty()) {
+			if (!entry.compareAndSetState(Entry.STATE_NOT_IN_USE, Entry.STATE_IN_USE)) {
+				return true;
+			}
+			Waiter<T> waiter;
+			while ((waiter = this.waiters.poll()) != null) {
+				if (waiter.offer(entry)) {
+					return true;
+				}
+			}
+			entry.setState(Entry.STATE_NOT_IN_USE);
+		}
+		return false;
+	}
+
+	/**
+	 * Provides the base class for entries stored in a {@link ConnectionBag}.
+	 */
+	public abstract static class Entry {
+
+		/**
+		 * Defines the state of an entry that is idle and may be borrowed.
+		 */
+		public static final int STATE_NOT_IN_USE = 0;
+
+		/**
+		 * Defines the state of an entry that has been borrowed.
+		 */
+		public static final int STATE_IN_USE = 1;
+
+		/**
+		 * Defines the state of an entry that has been removed from the bag.
+		 */
+		public static final int STATE_REMOVED = -1;
+
+		/**
+		 * Gets the state of the entry.
+		 * @return The state of the entry.
+		 */
+		public int getState() {
+			return this.state;
+		}
+
+		/**
+		 * Sets the state of the entry.
+		 * @param state The state of the entry.
+		 */
+		public void setState(int state) {
+			this.state = state;
+		}
+
+		/**
+		 * Atomically sets the state of the entry if it has the expected value.
+		 * @param expect The expected state.
+		 * @param update The new state.
+		 * @return True if the state was set; otherwise, false.
+		 */
+		public boolean compareAndSetState(int expect, int update) {
+			return Entry.STATE.compareAndSet(this, expect, update);
+		}
+
+		private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+		private volatile int state;
+
+	}
+
+	/**
+	 * Represents a thread that is waiting for an entry to be handed to it.
+	 *
+	 * @param <T> The type of the entries in the bag.
+	 */
+	private static final class Waiter<T> {
+
+		/**
+		 * Initializes a new instance of the Waiter class for the current thread.
+		 */
+		public Waiter() {
+			this.thread = Thread.currentThread();
+			this.state = new AtomicReference<Object>();
+		}
+
+		/**
+		 * Hands an entry to the waiting thread and unparks it.
+		 * @param entry The entry.
+		 * @return True if the entry was accepted or false if the waiter has been cancelled.
+		 */
+		public boolean offer(T entry) {
+			if (this.state.compareAndSet(null, entry)) {
+				LockSupport.unpark(this.thread);
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Cancels the waiter so that no entry can be handed to it.
+		 * @return True if the waiter was cancelled or false if an entry has already been handed to it.
+		 */
+		public boolean cancel() {
+			return this.state.compareAndSet(null, Waiter.CANCELLED);
+		}
+
+		/**
+		 * Gets the entry that was handed to the waiting thread.
+		 * @return The entry or null if no entry has been handed to the waiting thread.
+		 */
+		@SuppressWarnings("unchecked")
+		public T getEntry() {
+			Object state = this.state.get();
+			return (state == null || state == Waiter.CANCELLED ? null : (T)state);
+		}
+
+		private static final Object CANCELLED = new Object();
+
+		private Thread thread;
+		private AtomicReference<Object> state;
+
+	}
+
+}
@@ -1,23 +1,37 @@
 package com.opower.connectionpool;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
 import java.sql.CallableStatement;
+import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.Ref;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
-import java.util.EventListener;
-import java.util.Queue;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.sql.DataSource;
-import javax.swing.event.EventListenerList;
 
 /**
  * Provides an implementation of the ConnectionPool interface.
@@ -26,13 +40,101 @@ import javax.swing.event.EventListenerList;
  * connections maintained by the connection pool.  While the maximum bounds will not be exceeded,
  * is is possible for the minimum bounds to be under run if the underlying data source fails to
  * return a connection in response to a call to {@link javax.sql.DataSource#getConnection()}.
+ * Both bounds can be changed while the connection pool is in use (see 
+ * {@link #setMinimumConnections(int)} and {@link #setMaximumConnections(int)}); the connection 
+ * pool grows right away and shrinks as connections become unused.  A {@link PoolSizeController}
+ * can adjust the maximum bounds automatically from the observed wait and execution times (see 
+ * {@link #setSizeController(PoolSizeController)}).
  * <p>
  * Additionally, the connection pool can attempt to recover connections that have been idle for 
  * some duration.  A connection is considered idle if no method calls have been made against the 
  * public interface for a defined period of time.  A recovered connection is no longer available 
  * for use and any call to the public interface (except {@link java.sql.Connection#isClosed()})
  * will throw an exception. Also, an attempt will be made to close any CallableStatement, 
- * PreparedStatement and Statement instances that have been retrieved using the connection.
+ * PreparedStatement and Statement instances that have been retrieved using the connection. The
+ * timeouts of all borrowed connections are tracked by a single {@link HashedWheelTimer} that is 
+ * shared by the connection pool, so borrowing a connection never starts a thread.
+ * <p>
+ * Unused connections are kept in a {@link ConnectionBag}, so a thread that repeatedly gets and 
+ * releases a connection is usually handed back the connection it released last without contending
+ * with other threads.  Consumers that would rather wait for a connection than fail when the 
+ * maximum bounds have been reached can use {@link #getConnection(long, TimeUnit)}.  Waiting 
+ * consumers are parked and served in the order in which they arrived; a released connection is 
+ * handed directly to the longest waiting consumer rather than being returned to the pool.
+ * <p>
+ * Each connection can optionally cache its prepared statements (see 
+ * {@link #setStatementCacheSize(int)}) and, separately, its callable statements (see 
+ * {@link #setCallableStatementCacheSize(int)}).  Closing a cached statement clears its parameters
+ * and returns it to the cache of its connection instead of closing it, and preparing the same SQL
+ * with the same arguments on the same connection later reuses it.
+ * <p>
+ * The minimum number of connections are opened when the connection pool is constructed.  By 
+ * default they are opened one after another on the constructing thread, but a {@link WarmUp} can
+ * open them in parallel and let the constructor return once some or none of them are ready.
+ * <p>
+ * By default a consumer that finds no unused connection creates a new connection on its own 
+ * thread.  Connections can instead be created by an executor (see 
+ * {@link #setCreationExecutor(Executor)}) that never creates more than a fixed number of 
+ * connections at the same time (see {@link #setMaximumPendingConnections(int)}).  Consumers then
+ * wait for whichever connection becomes available first, so that a burst of consumers against an
+ * empty connection pool does not open a burst of connections against the database.
+ * <p>
+ * The creation of connections can be guarded by a {@link CircuitBreaker} (see 
+ * {@link #setCircuitBreaker(CircuitBreaker)}), so that consumers fail fast with a 
+ * {@link CircuitBreakerOpenException} rather than waiting for the driver to time out while the 
+ * database is unavailable.
+ * <p>
+ * An unused connection is validated with a {@link ConnectionValidator} before it is handed to a 
+ * consumer and is replaced if the validator rejects it.  By default a connection is only checked 
+ * with {@link java.sql.Connection#isClosed()}; see {@link #setValidator(ConnectionValidator)}.  
+ * Connections that have been used more recently than the validation interval are handed out 
+ * without being validated again (see {@link #setValidationInterval(long)}).
+ * <p>
+ * A maintenance task can optionally walk the unused connections at a regular interval (see 
+ * {@link #setMaintenanceInterval(long)}).  It evicts connections that have been unused for longer
+ * than the idle timeout (see {@link #setIdleTimeout(long)}) as long as the minimum bounds are not
+ * under run, sends a keepalive to the remaining connections that have not been used since its 
+ * previous run using the validator of the connection pool and replaces those that fail it, and 
+ * creates connections until the minimum bounds are met again.  The task is scheduled by the timer
+ * that tracks borrowed connections but runs on a separate maintenance thread, so that a slow or 
+ * unavailable database never delays the timeouts of borrowed connections.
+ * <p>
+ * Connections can also be retired once they reach a maximum lifetime (see 
+ * {@link #setMaxLifetime(long)}), so that database failovers and credential rotations take effect
+ * without restarting the consumer.  The lifetime of each connection is shortened by a small random
+ * amount so that connections created together are not all replaced at once.  An expired 
+ * connection is retired when it is released, when it would otherwise be borrowed and by the 
+ * maintenance task while it is unused.
+ * <p>
+ * The connection pool keeps counts of borrows, timeouts, creations, destructions and validation 
+ * failures in {@link StripedCounter}s, so that counting does not make threads contend with each 
+ * other.  The counts, together with the number of active, idle and waiting connections, can be 
+ * published to the platform MBean server as a {@link ConnectionPoolMXBean} (see 
+ * {@link #setObjectName(ObjectName)}).  The time consumers wait for a connection and the time they 
+ * hold it before releasing it are recorded in {@link LatencyHistogram}s (see 
+ * {@link #getWaitTimes()} and {@link #getHoldTimes()}), so that percentiles rather than averages 
+ * can be monitored.
+ * <p>
+ * Executions of statements can optionally be timed and counted for each shape of SQL by a 
+ * {@link SqlStatistics} (see {@link #setSqlStatistics(SqlStatistics)}), which also counts the rows
+ * updated by each statement and read from its result sets.  Statements that take longer than a 
+ * threshold can also be written, along with their bind parameters, to a {@link SlowQueryLog} (see
+ * {@link #setSlowQueryLog(SlowQueryLog)}) without delaying the thread that executed them.  An 
+ * average of the execution times can also be kept (see {@link #getExecutionLatency(TimeUnit)}) to
+ * tell how fast the database responds.
+ * <p>
+ * Connections that are held for longer than a threshold can be reported as suspected leaks by a 
+ * {@link LeakDetector} (see {@link #setLeakDetector(LeakDetector)}), along with the stack trace of
+ * a sample of the borrows, without releasing them as the timeout does.
+ * <p>
+ * The auto-commit mode, transaction isolation, read-only mode and catalog of each connection are
+ * cached by the connection pool once they have been read or set, so that setting a value that is
+ * unchanged does not reach the driver.  The connection pool also tracks whether a connection is 
+ * dirty, which it is once a statement has been executed or a savepoint set since the last commit
+ * or rollback.  When a connection is released, a dirty connection that is not in auto-commit mode
+ * is rolled back and only the properties that the consumer changed are restored to the values the
+ * physical connection started with, so a clean connection with unchanged properties is returned to
+ * the connection pool without any call to the driver.
  * <p>
  * Lastly, the pool will attempt to close any open CallableStatements, PreparedStatements and 
  * Statements for recovered or release connections. However, it is recommended that all resources
@@ -40,7 +142,7 @@ import javax.swing.event.EventListenerList;
  * 
  * @author Joshua Mark Rutherford
  */
-public class ConnectionPoolImpl implements ConnectionPool {
+public class ConnectionPoolImpl implements ConnectionPool, ConnectionPoolMXBean {
 	
 	/**
 	 * Defines the default minimum number of connections within a connection pool.
@@ -57,6 +159,88 @@ public class ConnectionPoolImpl implements ConnectionPool {
 	 */
 	public static final long DEFAULT_TIMEOUT = 0;
 	
+	/**
+	 * Defines the default maximum number of prepared statements cached by each connection.  A value of zero disables the cache.
+	 */
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 0;
+	
+	/**
+	 * Defines the default maximum number of callable statements cached by each connection.  A value of zero disables the cache.
+	 */
+	public static final int DEFAULT_CALLABLE_STATEMENT_CACHE_SIZE = 0;
+	
+	/**
+	 * Defines the default number of milliseconds since a connection was last used within which it is not validated again when borrowed.
+	 */
+	public static final long DEFAULT_VALIDATION_INTERVAL = 0;
+	
+	/**
+	 * Defines the default number of seconds a validator waits for the database.
+	 */
+	public static final int DEFAULT_VALIDATION_TIMEOUT = 0;
+	
+	/**
+	 * Defines the default number of milliseconds an unused connection may remain idle before it is evicted.  A value of zero disables eviction.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 0;
+	
+	/**
+	 * Defines the default number of milliseconds between runs of the maintenance task.  A value of zero disables the maintenance task.
+	 */
+	public static final long DEFAULT_MAINTENANCE_INTERVAL = 0;
+	
+	/**
+	 * Defines the default number of milliseconds after which a connection is retired.  A value of zero disables retirement.
+	 */
+	public static final long DEFAULT_MAX_LIFETIME = 0;
+	
+	/**
+	 * Defines the largest fraction of the maximum lifetime by which the lifetime of a connection is randomly shortened.
+	 */
+	private static final double MAX_LIFETIME_JITTER = 0.025;
+	
+	/**
+	 * Defines the default maximum number of connections that are created at the same time by the creation executor.
+	 */
+	public static final int DEFAULT_MAXIMUM_PENDING_CONNECTIONS = 2;
+	
+	/**
+	 * Defines the default number of milliseconds a consumer waits for a connection that is being created by the creation executor.
+	 */
+	public static final long DEFAULT_CREATION_TIMEOUT = 30000;
+	
+	/**
+	 * Defines the start time of an execution that is not monitored.
+	 */
+	private static final long UNMONITORED = Long.MIN_VALUE;
+	
+	/**
+	 * Defines the SQL text under which batches of a plain statement are recorded, since a batch 
+	 * may mix any number of different SQL statements.
+	 */
+	private static final String BATCH = "<batch>";
+	
+	/**
+	 * Defines the number of milliseconds between ticks of the timer that tracks idle connections.
+	 */
+	private static final long TIMER_TICK_DURATION = 10;
+	
+	/**
+	 * Defines the number of buckets in the wheel of the timer that tracks idle connections.
+	 */
+	private static final int TIMER_TICKS_PER_WHEEL = 512;
+	
+	/**
+	 * Defines the divisor of the difference to a new execution time by which the execution latency
+	 * moves towards it.
+	 */
+	private static final int EXECUTION_LATENCY_WEIGHT = 8;
+	
+	/**
+	 * Defines the name of the thread that runs the maintenance task.
+	 */
+	private static final String MAINTENANCE_THREAD_NAME = "ConnectionPoolImpl-maintenance";
+	
 	/**
 	 * Initializes a new instance of the ConnectionPoolImpl class.
 	 * @param dataSource The data source for the connection pool.
@@ -96,6 +280,19 @@ public class ConnectionPoolImpl implements ConnectionPool {
 	 * @throws SQLException
 	 */
 	public ConnectionPoolImpl(DataSource dataSource, int minimumConnections, int maximumConnections, long timeout) throws SQLException {
+		this(dataSource, minimumConnections, maximumConnections, timeout, WarmUp.SEQUENTIAL);
+	}
+	
+	/**
+	 * Initializes a new instance of the ConnectionPoolImpl class with a minimum and maximum number of connections, a timeout and a warm-up.
+	 * @param dataSource The data source for the connection pool.
+	 * @param minimumConnections The minimum number of connections for the connection pool. This value must be greater than or equal to zero and less than or equal to maximumConnections.
+	 * @param maximumConnections The maximum number of connections for the connection pool. This value must be greater than than zero and greater than or equal to minimumConnections.
+	 * @param timeout The number of milliseconds before and idle connection is automatically released to the connection pool. This value must be greater than or equal to zero.  A value of zero will disable automatic timeouts. 
+	 * @param warmUp The warm-up that describes how the minimum number of connections are opened.
+	 * @throws SQLException Thrown if the required number of connections of the warm-up could not be opened.
+	 */
+	public ConnectionPoolImpl(DataSource dataSource, int minimumConnections, int maximumConnections, long timeout, WarmUp warmUp) throws SQLException {
 		if (dataSource == null) {
 			throw new IllegalArgumentException("Data source cannot be null.");
 		}
@@ -111,18 +308,38 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		if (timeout < 0) {
 			throw new IllegalArgumentException("Timeout cannot be less than zero.");
 		}
+		if (warmUp == null) {
+			throw new IllegalArgumentException("Warm-up cannot be null.");
+		}
 		this.dataSource = dataSource;
 		this.currentConnections = new AtomicInteger(0);
 		this.maximumConnections = maximumConnections;
 		this.minimumConnections = minimumConnections;
-		this.queue = new ConcurrentLinkedQueue<Connection>();
+		this.bag = new ConnectionBag<PoolEntry>();
 		this.timeout = timeout;
-		for (int i = 0; i < this.minimumConnections; i++) {
-			this.currentConnections.incrementAndGet();
-			if (!this.queue.offer(this.dataSource.getConnection())) {
-				this.currentConnections.decrementAndGet();
-			}
-		}
+		this.validator = ConnectionValidator.IS_CLOSED;
+		this.validationInterval = ConnectionPoolImpl.DEFAULT_VALIDATION_INTERVAL;
+		this.validationTimeout = ConnectionPoolImpl.DEFAULT_VALIDATION_TIMEOUT;
+		this.idleTimeout = ConnectionPoolImpl.DEFAULT_IDLE_TIMEOUT;
+		this.maxLifetime = ConnectionPoolImpl.DEFAULT_MAX_LIFETIME;
+		this.maintenanceTask = new MaintenanceTask();
+		this.maintenanceHandoff = new Handoff(this.maintenanceTask);
+		this.sizingTask = new SizingTask();
+		this.pendingConnections = new AtomicInteger(0);
+		this.maximumPendingConnections = ConnectionPoolImpl.DEFAULT_MAXIMUM_PENDING_CONNECTIONS;
+		this.creationTimeout = ConnectionPoolImpl.DEFAULT_CREATION_TIMEOUT;
+		this.creationRequest = new CreationRequest();
+		this.creationTask = new CreationTask();
+		this.borrows = new StripedCounter();
+		this.timeouts = new StripedCounter();
+		this.creations = new StripedCounter();
+		this.destructions = new StripedCounter();
+		this.validationFailures = new StripedCounter();
+		this.waitTimes = new LatencyHistogram();
+		this.holdTimes = new LatencyHistogram();
+		this.timer = new HashedWheelTimer("ConnectionPoolImpl-timer", ConnectionPoolImpl.TIMER_TICK_DURATION, TimeUnit.MILLISECONDS, ConnectionPoolImpl.TIMER_TICKS_PER_WHEEL);
+		this.maintenanceExecutor = Executors.newSingleThreadExecutor(new MaintenanceThreadFactory());
+		this.warmUp(warmUp);
 	}
 	
 	/**
@@ -141,6 +358,49 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		return this.maximumConnections;
 	}
 	
+	/**
+	 * Sets the maximum number of connections in the connection pool while it is in use.  Raising 
+	 * the maximum creates connections for the consumers that are waiting for one, using the 
+	 * creation executor if there is one and the current thread otherwise.  Lowering the maximum 
+	 * closes unused connections above the new maximum right away and closes the remaining excess
+	 * connections as they are released rather than returning them to the connection pool.
+	 * @param maximumConnections The maximum number of connections. This value must be greater than zero and greater than or equal to the minimum number of connections.
+	 * @throws SQLException Thrown if a connection for a waiting consumer could not be created.  The new maximum is kept.
+	 */
+	public void setMaximumConnections(int maximumConnections) throws SQLException {
+		int previous;
+		synchronized (this) {
+			if (maximumConnections < 1) {
+				throw new IllegalArgumentException("Maximum number of connections cannot be less than one.");
+			}
+			if (maximumConnections < this.minimumConnections) {
+				throw new IllegalArgumentException("Maximum number of connections cannot be less than minimum number of connections.");
+			}
+			previous = this.maximumConnections;
+			this.maximumConnections = maximumConnections;
+		}
+		if (maximumConnections > previous) {
+			if (this.creationExecutor != null) {
+				this.requestCreation();
+			} else {
+				while (this.bag.hasWaiters()) {
+					if (this.create(false) == null) {
+						break;
+					}
+				}
+			}
+		} else if (maximumConnections < previous) {
+			for (PoolEntry entry : this.bag.values()) {
+				if (this.currentConnections.get() <= this.maximumConnections) {
+					break;
+				}
+				if (entry.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE) && !this.retire(entry)) {
+					this.bag.requite(entry);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Gets the minimum number of connections in the connection pool.
 	 * @return The minimum number of connections in the connection pool.
@@ -149,6 +409,36 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		return this.minimumConnections;
 	}
 	
+	/**
+	 * Sets the minimum number of connections in the connection pool while it is in use.  Raising
+	 * the minimum opens connections until it is met, using the creation executor if one is set or 
+	 * the current thread otherwise.  Lowering the minimum closes nothing by itself; unused 
+	 * connections above the new minimum are evicted by the maintenance task once they have been 
+	 * idle for longer than the idle timeout.
+	 * @param minimumConnections The minimum number of connections. This value must be greater than or equal to zero and less than or equal to the maximum number of connections.
+	 * @throws SQLException Thrown if a connection could not be opened on the current thread.  The new minimum is kept and is met again by the maintenance task, if it runs.
+	 */
+	public void setMinimumConnections(int minimumConnections) throws SQLException {
+		synchronized (this) {
+			if (minimumConnections < 0) {
+				throw new IllegalArgumentException("Minimum number of connections cannot be less than zero.");
+			}
+			if (minimumConnections > this.maximumConnections) {
+				throw new IllegalArgumentException("Minimum number of connections cannot be greater than maximum number of connections.");
+			}
+			this.minimumConnections = minimumConnections;
+		}
+		if (this.creationExecutor != null) {
+			this.requestCreation();
+		} else {
+			while (this.currentConnections.get() < this.minimumConnections) {
+				if (this.create(false) == null) {
+					break;
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Gets the number of milliseconds before and idle connection is automatically released to the connection pool.
 	 * @return The number of milliseconds before and idle connection is automatically released to the connection pool.
@@ -157,168 +447,3103 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		return this.timeout;
 	}
 	
-	/** 
-	 * Gets a connection from this connection pool. This method will throw an exception if any of
-	 * the following are true:
-	 * 
-	 * <ul>
-	 * <li>The connection pool does not have any unused connections and creating a new connection
-	 * would exceed the {@link #getMaximumConnections} property.
-	 * <li>The connection pool does not have any unused connections and creating a new connection
-	 * would not exceed the {@link #getMaximumConnections} property and the data source throws an 
-	 * exception when trying to create a new connection.
-	 * <li>
-	 * </ul>
-	 * @see com.opower.connectionpool.ConnectionPool#getConnection()
+	/**
+	 * Gets the number of connections that are borrowed by consumers.
+	 * @return The number of active connections.
 	 */
-	public Connection getConnection() throws SQLException {
-		Connection connection = this.queue.poll();
-		if (connection == null) {
-			int currentConnections = this.currentConnections.incrementAndGet();
-			if (currentConnections > this.maximumConnections) {
-				this.currentConnections.decrementAndGet();
-				throw new SQLException("Maximum number of pooled connections has been reached.");
-			} else {
-				try {
-					connection = this.dataSource.getConnection();
-				} catch (SQLException e) {
-					this.currentConnections.decrementAndGet();
-					throw e;
-				}
-			}
-		} else {
-			if (connection.isClosed()) {
-				connection = this.getConnection();
-			}
-		}
-		return new PooledConnection(connection, this.timeout);
+	public int getActiveConnections() {
+		return Math.max(0, this.bag.size() - this.bag.getIdleCount());
 	}
 	
 	/**
-	 * Releases a connection back to this connection pool.  This method will throw an exception if
-	 * any of the following are true:
-	 * 
-	 * <ul>
-	 * <li>The connection is null.
-	 * <li>The connection did not originate from the connection pool.
-	 * </ul>
-	 * 
-	 * @see com.opower.connectionpool.ConnectionPool#releaseConnection(java.sql.Connection)
+	 * Gets the number of connections that are in the connection pool and not in use.
+	 * @return The number of idle connections.
 	 */
-	public void releaseConnection(Connection connection) throws SQLException {
-		if (connection == null) {
-			throw new SQLException("Null connection cannot be released.");
+	public int getIdleConnections() {
+		return this.bag.getIdleCount();
+	}
+	
+	/**
+	 * Gets the number of threads that are waiting for a connection.
+	 * @return The number of waiting threads.
+	 */
+	public int getWaitingThreads() {
+		return this.bag.getWaitingCount();
+	}
+	
+	/**
+	 * Gets the number of connections that have been handed to consumers.
+	 * @return The number of borrows.
+	 */
+	public long getBorrowCount() {
+		return this.borrows.get();
+	}
+	
+	/**
+	 * Gets the number of requests for a connection that failed because no connection became 
+	 * available in time.
+	 * @return The number of timeouts.
+	 */
+	public long getTimeoutCount() {
+		return this.timeouts.get();
+	}
+	
+	/**
+	 * Gets the number of physical connections that have been opened.
+	 * @return The number of creations.
+	 */
+	public long getCreationCount() {
+		return this.creations.get();
+	}
+	
+	/**
+	 * Gets the number of physical connections that have been removed from the connection pool and closed.
+	 * @return The number of destructions.
+	 */
+	public long getDestructionCount() {
+		return this.destructions.get();
+	}
+	
+	/**
+	 * Gets the number of times a connection was rejected by the validator.
+	 * @return The number of validation failures.
+	 */
+	public long getValidationFailureCount() {
+		return this.validationFailures.get();
+	}
+	
+	/**
+	 * Gets the histogram of the time consumers waited for a connection, from the call to 
+	 * {@link #getConnection(long, TimeUnit)} until a connection was handed to them.  Requests that
+	 * failed are not recorded.
+	 * @return The wait time histogram.
+	 */
+	public LatencyHistogram getWaitTimes() {
+		return this.waitTimes;
+	}
+	
+	/**
+	 * Gets the histogram of the time consumers held a connection, from the moment it was handed to
+	 * them until it was released, either by the consumer or by the timeout.
+	 * @return The hold time histogram.
+	 */
+	public LatencyHistogram getHoldTimes() {
+		return this.holdTimes;
+	}
+	
+	/**
+	 * Gets the statistics that are collected for the statements executed through the connection pool.
+	 * @return The SQL statistics or null if they are not collected.
+	 */
+	public SqlStatistics getSqlStatistics() {
+		return this.sqlStatistics;
+	}
+	
+	/**
+	 * Sets the statistics that are collected for the statements executed through the connection 
+	 * pool.  The execution time is measured around each call to <code>execute</code>, 
+	 * <code>executeQuery</code>, <code>executeUpdate</code> and, for prepared and callable 
+	 * statements, <code>executeBatch</code>.  Executions that throw an exception are not recorded.
+	 * @param sqlStatistics The SQL statistics or null to stop collecting them.
+	 */
+	public void setSqlStatistics(SqlStatistics sqlStatistics) {
+		this.sqlStatistics = sqlStatistics;
+	}
+	
+	/**
+	 * Indicates whether an average of the execution time of statements is kept.
+	 * @return True if the execution latency is tracked; otherwise, false.
+	 */
+	public boolean isExecutionLatencyTracked() {
+		return this.executionLatencyTracked;
+	}
+	
+	/**
+	 * Sets whether an exponentially weighted average of the execution time of the statements 
+	 * executed through the connection pool is kept (see {@link #getExecutionLatency(TimeUnit)}).
+	 * The execution time is measured as it is for the SQL statistics.
+	 * @param executionLatencyTracked True to track the execution latency; otherwise, false, which keeps the last average.
+	 */
+	public void setExecutionLatencyTracked(boolean executionLatencyTracked) {
+		this.executionLatencyTracked = executionLatencyTracked;
+	}
+	
+	/**
+	 * Gets the exponentially weighted average of the execution time of statements, which tells how
+	 * fast the database responds independently of how long consumers hold their connections.  The
+	 * average is updated without synchronization, so concurrent updates may be lost, which only 
+	 * delays the average.
+	 * @param unit The time unit of the result.
+	 * @return The execution latency or zero if no statement has been executed while it is tracked.
+	 */
+	public long getExecutionLatency(TimeUnit unit) {
+		return unit.convert(this.executionLatency, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Gets the log to which statements that take longer than its threshold are written.
+	 * @return The slow query log or null if slow statements are not logged.
+	 */
+	public SlowQueryLog getSlowQueryLog() {
+		return this.slowQueryLog;
+	}
+	
+	/**
+	 * Sets the log to which statements that take longer than its threshold are written.  The 
+	 * values bound to the parameters of prepared and callable statements by index are remembered
+	 * for statements that are prepared while a log is set, so that they can be summarized.
+	 * @param slowQueryLog The slow query log or null to stop logging slow statements.
+	 */
+	public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+		this.slowQueryLog = slowQueryLog;
+	}
+	
+	/**
+	 * Gets the detector that reports connections that are held for too long.
+	 * @return The leak detector or null if leaks are not detected.
+	 */
+	public LeakDetector getLeakDetector() {
+		return this.leakDetector;
+	}
+	
+	/**
+	 * Sets the detector that reports connections that are held for too long.  Each borrow is 
+	 * checked by the timer of the connection pool once the threshold of the leak detector has 
+	 * elapsed, unless the connection has been released by then.  The leak detector only applies to
+	 * connections that are borrowed while it is set.
+	 * @param leakDetector The leak detector or null to stop detecting leaks.
+	 */
+	public void setLeakDetector(LeakDetector leakDetector) {
+		this.leakDetector = leakDetector;
+	}
+	
+	/**
+	 * Gets the name under which the connection pool is registered with the platform MBean server.
+	 * @return The object name or null if the connection pool is not registered.
+	 */
+	public synchronized ObjectName getObjectName() {
+		return this.objectName;
+	}
+	
+	/**
+	 * Registers the connection pool with the platform MBean server as a 
+	 * {@link ConnectionPoolMXBean} under the specified name.  The connection pool is first 
+	 * unregistered from the name it was previously registered under, if any.
+	 * @param objectName The object name, for example <code>com.opower.connectionpool:type=ConnectionPool,name=orders</code>, or null to unregister the connection pool.
+	 * @throws JMException Thrown if the connection pool could not be registered or unregistered.
+	 */
+	public synchronized void setObjectName(ObjectName objectName) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (this.objectName != null) {
+			server.unregisterMBean(this.objectName);
+			this.objectName = null;
 		}
-		if (!(connection instanceof PooledConnection)) {
-			throw new SQLException("Connection does not belong to the connection pool.");
+		if (objectName != null) {
+			server.registerMBean(new StandardMBean(this, ConnectionPoolMXBean.class), objectName);
+			this.objectName = objectName;
 		}
-		PooledConnection pooledConnection = (PooledConnection)connection;
-		if (pooledConnection.getConnectionPool() != this) {
-			throw new SQLException("Connection does not belong to the connection pool.");
+	}
+	
+	/**
+	 * Gets the maximum number of prepared statements cached by each connection.
+	 * @return The maximum number of prepared statements cached by each connection. A value of zero indicates that prepared statements are not cached.
+	 */
+	public int getStatementCacheSize() {
+		return this.statementCacheSize;
+	}
+	
+	/**
+	 * Sets the maximum number of prepared statements cached by each connection. Once a connection
+	 * caches more prepared statements than this value, the least recently used statements are 
+	 * closed. The value applies to connections that have not yet cached any prepared statements.
+	 * @param statementCacheSize The maximum number of prepared statements cached by each connection. This value must be greater than or equal to zero.  A value of zero disables the cache.
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException("Statement cache size cannot be less than zero.");
 		}
-		connection = pooledConnection.release();
-		if (connection != null) {
-			if (connection.isClosed()) {
-				if (this.currentConnections.decrementAndGet() < this.minimumConnections) {
-					this.currentConnections.incrementAndGet();
-					if (!this.queue.offer(this.dataSource.getConnection())) {
-						this.currentConnections.decrementAndGet();
-					}
-				}
-			} else {
-				if (!this.queue.offer(connection)) {
-					this.currentConnections.decrementAndGet();
-				}
+		this.statementCacheSize = statementCacheSize;
+	}
+	
+	/**
+	 * Gets the number of times a prepared statement was found in the cache of a connection.
+	 * @return The number of prepared statement cache hits of the current connections.
+	 */
+	public long getStatementCacheHits() {
+		long hits = 0;
+		for (PoolEntry entry : this.bag.values()) {
+			StatementCache<PreparedStatement> preparedStatements = entry.getPreparedStatementCache(false);
+			if (preparedStatements != null) {
+				hits += preparedStatements.getHits();
 			}
 		}
+		return hits;
 	}
 	
-	private DataSource dataSource;
-	private AtomicInteger currentConnections;
-	private int maximumConnections;
-	private int minimumConnections;
-	private Queue<Connection> queue;
-	private long timeout;
+	/**
+	 * Gets the number of times a prepared statement was not found in the cache of a connection.
+	 * @return The number of prepared statement cache misses of the current connections.
+	 */
+	public long getStatementCacheMisses() {
+		long misses = 0;
+		for (PoolEntry entry : this.bag.values()) {
+			StatementCache<PreparedStatement> preparedStatements = entry.getPreparedStatementCache(false);
+			if (preparedStatements != null) {
+				misses += preparedStatements.getMisses();
+			}
+		}
+		return misses;
+	}
 	
 	/**
-	 * Wraps an instance of the CallableStatement interface for use within a connection pool. 
-	 * <p>
-	 * Note that this wrapper does not actually pool the underlying callable statement. The only
-	 * additional functionality is as follows:
-	 * 
-	 * <ul>
-	 * <li>Attempts to close the underlying callable statement if the corresponding connection is
-	 * released. However, it is recommended that unused resources be closed when no longer in use.
-	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
-	 * </ul>
-	 * 
-	 * @see com.opower.connectionpool.ConnectionPoolImpl
+	 * Gets the maximum number of callable statements cached by each connection.
+	 * @return The maximum number of callable statements cached by each connection. A value of zero indicates that callable statements are not cached.
 	 */
-	private class PooledCallableStatement extends WrappedCallableStatement implements PooledConnectionListener {
-		
-		/**
-		 * Initializes a new instance of the PooledCallableStatement class.
-		 * @param pooledConnection The pooled connection for the pooled callable statement.
+	public int getCallableStatementCacheSize() {
+		return this.callableStatementCacheSize;
+	}
+	
+	/**
+	 * Sets the maximum number of callable statements cached by each connection. The callable 
+	 * statement cache is separate from the prepared statement cache and once a connection caches
+	 * more callable statements than this value, the least recently used statements are closed. 
+	 * The value applies to connections that have not yet cached any callable statements.
+	 * @param callableStatementCacheSize The maximum number of callable statements cached by each connection. This value must be greater than or equal to zero.  A value of zero disables the cache.
+	 */
+	public void setCallableStatementCacheSize(int callableStatementCacheSize) {
+		if (callableStatementCacheSize < 0) {
+			throw new IllegalArgumentException("Callable statement cache size cannot be less than zero.");
+		}
+		this.callableStatementCacheSize = callableStatementCacheSize;
+	}
+	
+	/**
+	 * Gets the number of times a callable statement was found in the cache of a connection.
+	 * @return The number of callable statement cache hits of the current connections.
+	 */
+	public long getCallableStatementCacheHits() {
+		long hits = 0;
+		for (PoolEntry entry : this.bag.values()) {
+			StatementCache<CallableStatement> callableStatements = entry.getCallableStatementCache(false);
+			if (callableStatements != null) {
+				hits += callableStatements.getHits();
+			}
+		}
+		return hits;
+	}
+	
+	/**
+	 * Gets the number of times a callable statement was not found in the cache of a connection.
+	 * @return The number of callable statement cache misses of the current connections.
+	 */
+	public long getCallableStatementCacheMisses() {
+		long misses = 0;
+		for (PoolEntry entry : this.bag.values()) {
+			StatementCache<CallableStatement> callableStatements = entry.getCallableStatementCache(false);
+			if (callableStatements != null) {
+				misses += callableStatements.getMisses();
+			}
+		}
+		return misses;
+	}
+	
+	/**
+	 * Gets the validator used to check unused connections before they are handed to a consumer.
+	 * @return The validator.
+	 */
+	public ConnectionValidator getValidator() {
+		return this.validator;
+	}
+	
+	/**
+	 * Sets the validator used to check unused connections before they are handed to a consumer.
+	 * @param validator The validator. Use {@link ConnectionValidator#NONE} to disable validation.
+	 */
+	public void setValidator(ConnectionValidator validator) {
+		if (validator == null) {
+			throw new IllegalArgumentException("Validator cannot be null.");
+		}
+		this.validator = validator;
+	}
+	
+	/**
+	 * Gets the number of milliseconds since a connection was last used within which it is not validated again when borrowed.
+	 * @return The validation interval in milliseconds.
+	 */
+	public long getValidationInterval() {
+		return this.validationInterval;
+	}
+	
+	/**
+	 * Sets the number of milliseconds since a connection was last used within which it is not 
+	 * validated again when borrowed, so that connections in constant use are not validated on 
+	 * every borrow while connections that have been idle always are.
+	 * @param validationInterval The validation interval in milliseconds. This value must be greater than or equal to zero.  A value of zero validates connections on every borrow.
+	 */
+	public void setValidationInterval(long validationInterval) {
+		if (validationInterval < 0) {
+			throw new IllegalArgumentException("Validation interval cannot be less than zero.");
+		}
+		this.validationInterval = validationInterval;
+	}
+	
+	/**
+	 * Gets the number of seconds a validator waits for the database.
+	 * @return The validation timeout in seconds.
+	 */
+	public int getValidationTimeout() {
+		return this.validationTimeout;
+	}
+	
+	/**
+	 * Sets the number of seconds a validator waits for the database.
+	 * @param validationTimeout The validation timeout in seconds. This value must be greater than or equal to zero.  A value of zero waits indefinitely.
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		if (validationTimeout < 0) {
+			throw new IllegalArgumentException("Validation timeout cannot be less than zero.");
+		}
+		this.validationTimeout = validationTimeout;
+	}
+	
+	/**
+	 * Gets the number of milliseconds an unused connection may remain idle before it is evicted by the maintenance task.
+	 * @return The idle timeout in milliseconds.
+	 */
+	public long getIdleTimeout() {
+		return this.idleTimeout;
+	}
+	
+	/**
+	 * Sets the number of milliseconds an unused connection may remain idle before it is evicted by
+	 * the maintenance task.  Unlike {@link #getTimeout()}, which applies to borrowed connections,
+	 * this value applies to connections that are in the connection pool.  Connections are never 
+	 * evicted if doing so would under run the minimum bounds.
+	 * @param idleTimeout The idle timeout in milliseconds. This value must be greater than or equal to zero.  A value of zero disables eviction.
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		if (idleTimeout < 0) {
+			throw new IllegalArgumentException("Idle timeout cannot be less than zero.");
+		}
+		this.idleTimeout = idleTimeout;
+	}
+	
+	/**
+	 * Gets the number of milliseconds after which a connection is retired.
+	 * @return The maximum lifetime in milliseconds.
+	 */
+	public long getMaxLifetime() {
+		return this.maxLifetime;
+	}
+	
+	/**
+	 * Sets the number of milliseconds after which a connection is retired.  The lifetime of each
+	 * connection is measured from its creation and shortened by up to 2.5% at random.  The value
+	 * applies to existing connections as well as new ones.
+	 * @param maxLifetime The maximum lifetime in milliseconds. This value must be greater than or equal to zero.  A value of zero disables retirement.
+	 */
+	public void setMaxLifetime(long maxLifetime) {
+		if (maxLifetime < 0) {
+			throw new IllegalArgumentException("Maximum lifetime cannot be less than zero.");
+		}
+		this.maxLifetime = maxLifetime;
+	}
+	
+	/**
+	 * Gets the number of milliseconds between runs of the maintenance task.
+	 * @return The maintenance interval in milliseconds.
+	 */
+	public long getMaintenanceInterval() {
+		return this.maintenanceInterval;
+	}
+	
+	/**
+	 * Sets the number of milliseconds between runs of the maintenance task and reschedules the 
+	 * task accordingly.  The task runs on a maintenance thread that is started the first time the
+	 * task is due.
+	 * @param maintenanceInterval The maintenance interval in milliseconds. This value must be greater than or equal to zero.  A value of zero stops the maintenance task.
+	 */
+	public synchronized void setMaintenanceInterval(long maintenanceInterval) {
+		if (maintenanceInterval < 0) {
+			throw new IllegalArgumentException("Maintenance interval cannot be less than zero.");
+		}
+		this.maintenanceInterval = maintenanceInterval;
+		if (this.maintenance != null) {
+			this.maintenance.cancel();
+			this.maintenance = null;
+		}
+		if (maintenanceInterval > 0) {
+			this.maintenance = this.timer.newTimeout(this.maintenanceHandoff, maintenanceInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Gets the controller that adjusts the maximum number of connections to the observed load.
+	 * @return The size controller or null if the maximum is not adjusted automatically.
+	 */
+	public PoolSizeController getSizeController() {
+		return this.sizeController;
+	}
+	
+	/**
+	 * Sets the controller that adjusts the maximum number of connections to the observed load and
+	 * schedules it to run at its interval on the timer of the connection pool.  A new maximum is 
+	 * applied on the maintenance thread, so connections opened or closed as a result never hold up
+	 * the timer.  While a controller is set, the wait time of every consumer and the execution 
+	 * time of every statement are recorded for it.  The minimum number of connections still 
+	 * applies and takes precedence over the lower bound of the controller.
+	 * @param sizeController The size controller or null to stop adjusting the maximum, which then keeps its last value.
+	 */
+	public synchronized void setSizeController(PoolSizeController sizeController) {
+		this.sizeController = sizeController;
+		if (this.sizing != null) {
+			this.sizing.cancel();
+			this.sizing = null;
+		}
+		if (sizeController != null) {
+			this.sizing = this.timer.newTimeout(this.sizingTask, sizeController.getInterval(), TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Gets the circuit breaker that guards the creation of connections.
+	 * @return The circuit breaker or null if the creation of connections is not guarded.
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+	
+	/**
+	 * Sets the circuit breaker that guards the creation of connections.  While the breaker is 
+	 * open, consumers that would have to wait for a new connection fail immediately with a 
+	 * {@link CircuitBreakerOpenException} instead of attempting to connect to the database.
+	 * @param circuitBreaker The circuit breaker or null to attempt every connection.
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+	
+	/**
+	 * Gets the executor that creates connections for waiting consumers.
+	 * @return The creation executor or null if consumers create connections on their own threads.
+	 */
+	public Executor getCreationExecutor() {
+		return this.creationExecutor;
+	}
+	
+	/**
+	 * Sets the executor that creates connections for waiting consumers.  When an executor is set,
+	 * a consumer that finds no unused connection while the maximum bounds have not been reached 
+	 * waits up to the creation timeout, or the time it asked to wait if that is longer, for a 
+	 * connection to become available.
+	 * @param creationExecutor The creation executor or null to create connections on the threads of the consumers.
+	 */
+	public void setCreationExecutor(Executor creationExecutor) {
+		this.creationExecutor = creationExecutor;
+	}
+	
+	/**
+	 * Gets the maximum number of connections that are created at the same time by the creation executor.
+	 * @return The maximum number of pending connections.
+	 */
+	public int getMaximumPendingConnections() {
+		return this.maximumPendingConnections;
+	}
+	
+	/**
+	 * Sets the maximum number of connections that are created at the same time by the creation executor.
+	 * @param maximumPendingConnections The maximum number of pending connections. This value must be greater than zero.
+	 */
+	public void setMaximumPendingConnections(int maximumPendingConnections) {
+		if (maximumPendingConnections < 1) {
+			throw new IllegalArgumentException("Maximum number of pending connections cannot be less than one.");
+		}
+		this.maximumPendingConnections = maximumPendingConnections;
+	}
+	
+	/**
+	 * Gets the number of milliseconds a consumer waits for a connection that is being created by the creation executor.
+	 * @return The creation timeout in milliseconds.
+	 */
+	public long getCreationTimeout() {
+		return this.creationTimeout;
+	}
+	
+	/**
+	 * Sets the number of milliseconds a consumer waits for a connection that is being created by the creation executor.
+	 * @param creationTimeout The creation timeout in milliseconds. This value must be greater than or equal to zero.
+	 */
+	public void setCreationTimeout(long creationTimeout) {
+		if (creationTimeout < 0) {
+			throw new IllegalArgumentException("Creation timeout cannot be less than zero.");
+		}
+		this.creationTimeout = creationTimeout;
+	}
+	
+	/** 
+	 * Gets a connection from this connection pool. This method will throw an exception if any of
+	 * the following are true:
+	 * 
+	 * <ul>
+	 * <li>The connection pool does not have any unused connections and creating a new connection
+	 * would exceed the {@link #getMaximumConnections} property.
+	 * <li>The connection pool does not have any unused connections and creating a new connection
+	 * would not exceed the {@link #getMaximumConnections} property and the data source throws an 
+	 * exception when trying to create a new connection.
+	 * <li>
+	 * </ul>
+	 * @see com.opower.connectionpool.ConnectionPool#getConnection()
+	 */
+	public Connection getConnection() throws SQLException {
+		return this.getConnection(0, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Gets a connection from this connection pool, waiting up to the specified time for a 
+	 * connection to be released if the connection pool does not have any unused connections and
+	 * creating a new connection would exceed the {@link #getMaximumConnections} property. Waiting
+	 * consumers are served in the order in which they started waiting. This method will throw an
+	 * exception if any of the following are true:
+	 * 
+	 * <ul>
+	 * <li>No connection was released to the connection pool before the wait time elapsed.
+	 * <li>The connection pool does not have any unused connections and creating a new connection
+	 * would not exceed the {@link #getMaximumConnections} property and the data source throws an 
+	 * exception when trying to create a new connection.
+	 * <li>The current thread was interrupted while waiting.
+	 * </ul>
+	 * @param timeout The maximum time to wait for a connection. A value less than or equal to zero will not wait.
+	 * @param unit The time unit of the timeout.
+	 * @return A valid connection from the pool.
+	 * @throws SQLException
+	 */
+	public Connection getConnection(long timeout, TimeUnit unit) throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + unit.toNanos(timeout);
+		PoolEntry entry = null;
+		while (entry == null) {
+			entry = this.bag.poll();
+			if (entry == null) {
+				long remaining = deadline - System.nanoTime();
+				Runnable waiting = null;
+				if (this.creationExecutor == null) {
+					entry = this.create(true);
+					if (entry != null) {
+						break;
+					}
+				} else if (this.currentConnections.get() < this.maximumConnections) {
+					if (this.circuitBreaker != null) {
+						this.circuitBreaker.check();
+					}
+					remaining = Math.max(remaining, TimeUnit.MILLISECONDS.toNanos(this.creationTimeout));
+					waiting = this.creationRequest;
+				}
+				if (remaining > 0) {
+					try {
+						entry = this.bag.borrow(remaining, TimeUnit.NANOSECONDS, waiting);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("Interrupted while waiting for a pooled connection.");
+					}
+				}
+				if (entry == null) {
+					this.timeouts.increment();
+					if (waiting != null) {
+						SQLException exception = new SQLException("Timed out waiting for a new pooled connection.");
+						if (this.creationFailure != null) {
+							exception.initCause(this.creationFailure);
+						}
+						throw exception;
+					}
+					throw new SQLException("Maximum number of pooled connections has been reached.");
+				}
+			}
+			if (entry.isExpired(System.currentTimeMillis()) || !this.validate(entry)) {
+				this.destroy(entry);
+				entry = null;
+			}
+		}
+		long now = System.nanoTime();
+		this.waitTimes.record(now - start);
+		PoolSizeController sizeController = this.sizeController;
+		if (sizeController != null) {
+			sizeController.recordWait(now - start);
+		}
+		this.borrows.increment();
+		return entry.borrow(now);
+	}
+	
+	/**
+	 * Releases a connection back to this connection pool.  This method will throw an exception if
+	 * any of the following are true:
+	 * 
+	 * <ul>
+	 * <li>The connection is null.
+	 * <li>The connection did not originate from the connection pool.
+	 * </ul>
+	 * 
+	 * @see com.opower.connectionpool.ConnectionPool#releaseConnection(java.sql.Connection)
+	 */
+	public void releaseConnection(Connection connection) throws SQLException {
+		if (connection == null) {
+			throw new SQLException("Null connection cannot be released.");
+		}
+		if (!(connection instanceof PooledConnection)) {
+			throw new SQLException("Connection does not belong to the connection pool.");
+		}
+		PooledConnection pooledConnection = (PooledConnection)connection;
+		if (pooledConnection.getConnectionPool() != this) {
+			throw new SQLException("Connection does not belong to the connection pool.");
+		}
+		pooledConnection.release();
+	}
+	
+	private DataSource dataSource;
+	private AtomicInteger currentConnections;
+	private volatile int maximumConnections;
+	private volatile int minimumConnections;
+	private ConnectionBag<PoolEntry> bag;
+	private long timeout;
+	private volatile int statementCacheSize;
+	private volatile int callableStatementCacheSize;
+	private volatile ConnectionValidator validator;
+	private volatile long validationInterval;
+	private volatile int validationTimeout;
+	private volatile long idleTimeout;
+	private volatile long maxLifetime;
+	private volatile long maintenanceInterval;
+	private HashedWheelTimer.Timeout maintenance;
+	private MaintenanceTask maintenanceTask;
+	private Handoff maintenanceHandoff;
+	private Executor maintenanceExecutor;
+	private volatile CircuitBreaker circuitBreaker;
+	private volatile Executor creationExecutor;
+	private AtomicInteger pendingConnections;
+	private volatile int maximumPendingConnections;
+	private volatile long creationTimeout;
+	private volatile SQLException creationFailure;
+	private CreationRequest creationRequest;
+	private CreationTask creationTask;
+	private HashedWheelTimer timer;
+	private StripedCounter borrows;
+	private StripedCounter timeouts;
+	private StripedCounter creations;
+	private StripedCounter destructions;
+	private StripedCounter validationFailures;
+	private LatencyHistogram waitTimes;
+	private LatencyHistogram holdTimes;
+	private ObjectName objectName;
+	private volatile SqlStatistics sqlStatistics;
+	private volatile SlowQueryLog slowQueryLog;
+	private volatile boolean executionLatencyTracked;
+	private volatile long executionLatency;
+	private volatile LeakDetector leakDetector;
+	private volatile PoolSizeController sizeController;
+	private HashedWheelTimer.Timeout sizing;
+	private SizingTask sizingTask;
+	
+	/**
+	 * Creates a new connection if doing so would not exceed the {@link #getMaximumConnections} 
+	 * property and adds it to the connection pool.
+	 * @param borrowed True if the new connection is to be borrowed by the current thread or false if it is to be made available to other consumers.
+	 * @return The entry for the new connection or null if the maximum number of connections has been reached.
+	 * @throws SQLException Thrown if the data source fails to create a new connection or the circuit breaker is open.
+	 */
+	private PoolEntry create(boolean borrowed) throws SQLException {
+		if (this.currentConnections.incrementAndGet() > this.maximumConnections) {
+			this.currentConnections.decrementAndGet();
+			return null;
+		}
+		CircuitBreaker circuitBreaker = this.circuitBreaker;
+		if (circuitBreaker != null) {
+			try {
+				circuitBreaker.acquire();
+			} catch (CircuitBreakerOpenException e) {
+				this.currentConnections.decrementAndGet();
+				throw e;
+			}
+		}
+		PoolEntry entry = null;
+		boolean connected = false;
+		try {
+			entry = new PoolEntry(this.dataSource.getConnection());
+			connected = true;
+		} finally {
+			if (!connected) {
+				if (circuitBreaker != null) {
+					circuitBreaker.failure();
+				}
+				this.currentConnections.decrementAndGet();
+			}
+		}
+		if (circuitBreaker != null) {
+			circuitBreaker.success();
+		}
+		this.creations.increment();
+		if (borrowed) {
+			entry.setState(PoolEntry.STATE_IN_USE);
+		}
+		this.bag.add(entry);
+		return entry;
+	}
+	
+	/**
+	 * Opens the minimum number of connections as described by a warm-up.  A sequential warm-up 
+	 * that requires every connection opens them on the current thread; otherwise, the connections
+	 * are opened by background threads and the current thread waits until the required number of
+	 * connections are ready.
+	 * @param warmUp The warm-up.
+	 * @throws SQLException Thrown if the required number of connections could not be opened.
+	 */
+	private void warmUp(WarmUp warmUp) throws SQLException {
+		int total = this.minimumConnections;
+		int required = Math.min(warmUp.getRequiredConnections(), total);
+		WarmUp.Listener listener = warmUp.getListener();
+		if (warmUp.getConcurrency() == 1 && required == total) {
+			for (int i = 0; i < total; i++) {
+				try {
+					this.create(false);
+				} catch (SQLException e) {
+					if (listener != null) {
+						listener.progress(i, 1, total);
+					}
+					throw e;
+				}
+				if (listener != null) {
+					listener.progress(i + 1, 0, total);
+				}
+			}
+			return;
+		}
+		WarmUpTask warmUpTask = new WarmUpTask(total, listener);
+		int threads = Math.min(warmUp.getConcurrency(), total);
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(warmUpTask, "ConnectionPoolImpl-warmup-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		warmUpTask.await(required);
+	}
+	
+	/**
+	 * Asks the creation executor to create connections for waiting consumers or up to the minimum 
+	 * bounds unless the maximum number of pending connections or the maximum bounds have been 
+	 * reached.
+	 */
+	private void requestCreation() {
+		Executor creationExecutor = this.creationExecutor;
+		if (creationExecutor == null) {
+			return;
+		}
+		for (;;) {
+			int pendingConnections = this.pendingConnections.get();
+			if (pendingConnections >= this.maximumPendingConnections || this.currentConnections.get() >= this.maximumConnections) {
+				return;
+			}
+			if (this.pendingConnections.compareAndSet(pendingConnections, pendingConnections + 1)) {
+				break;
+			}
+		}
+		try {
+			creationExecutor.execute(this.creationTask);
+		} catch (RuntimeException e) {
+			this.pendingConnections.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Returns a connection whose pooled connection has been released to the connection pool. A
+	 * closed or expired connection, or one whose session properties could not be restored, is 
+	 * removed from the connection pool and replaced if the minimum bounds would otherwise be under
+	 * run or if consumers are waiting for a connection, on the creation executor if one is set.  A
+	 * connection in excess of a maximum that has been lowered is removed without being replaced.
+	 * @param entry The entry for the connection.
+	 * @throws SQLException
+	 */
+	private void requite(PoolEntry entry) throws SQLException {
+		if (entry.isExpired(System.currentTimeMillis()) || !entry.restore() || entry.getConnection().isClosed()) {
+			this.destroy(entry);
+			if (this.isCreationNeeded()) {
+				if (this.creationExecutor != null) {
+					this.requestCreation();
+				} else {
+					try {
+						this.create(false);
+					} catch (CircuitBreakerOpenException e) {
+						
+					}
+				}
+			}
+		} else if (!this.retire(entry)) {
+			this.bag.requite(entry);
+		}
+	}
+	
+	/**
+	 * Removes a claimed connection from the connection pool if the connection pool holds more 
+	 * connections than its maximum, which happens after the maximum has been lowered.  The count 
+	 * of connections is decremented atomically, so concurrent releases never retire more 
+	 * connections than the excess.
+	 * @param entry The entry for the connection, which must be in use.
+	 * @return True if the connection was removed; otherwise, false.
+	 */
+	private boolean retire(PoolEntry entry) {
+		for (;;) {
+			int currentConnections = this.currentConnections.get();
+			if (currentConnections <= this.maximumConnections) {
+				return false;
+			}
+			if (this.currentConnections.compareAndSet(currentConnections, currentConnections - 1)) {
+				break;
+			}
+		}
+		this.bag.remove(entry);
+		this.destructions.increment();
+		entry.close();
+		return true;
+	}
+	
+	/**
+	 * Retires expired unused connections, evicts unused connections that have been idle for longer
+	 * than the idle timeout, sends a 
+	 * keepalive to the remaining unused connections that have not been used since the previous 
+	 * run and creates connections until the minimum bounds are met, on the creation executor if 
+	 * one is set.  Each unused connection is claimed while it is inspected so that it cannot be 
+	 * borrowed at the same time.
+	 */
+	private void maintain() {
+		long now = System.currentTimeMillis();
+		long idleTimeout = this.idleTimeout;
+		long maintenanceInterval = this.maintenanceInterval;
+		for (PoolEntry entry : this.bag.values()) {
+			if (!entry.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+				continue;
+			}
+			if (entry.isExpired(now)) {
+				this.destroy(entry);
+			} else if (idleTimeout > 0 && now - entry.getLastUsed() >= idleTimeout && this.currentConnections.get() > this.minimumConnections) {
+				this.destroy(entry);
+			} else if (now - entry.getLastChecked() >= maintenanceInterval && !this.keepalive(entry, now)) {
+				this.destroy(entry);
+			} else {
+				this.bag.requite(entry);
+			}
+		}
+		if (this.creationExecutor != null) {
+			if (this.currentConnections.get() < this.minimumConnections) {
+				this.requestCreation();
+			}
+			return;
+		}
+		try {
+			while (this.currentConnections.get() < this.minimumConnections) {
+				if (this.create(false) == null) {
+					break;
+				}
+			}
+		} catch (SQLException e) {
+			
+		}
+	}
+	
+	/**
+	 * Indicates whether a connection should be created, because consumers are waiting for a 
+	 * connection or because the minimum bounds are not met.
+	 * @return True if a connection should be created; otherwise, false.
+	 */
+	private boolean isCreationNeeded() {
+		return this.bag.hasWaiters() || this.currentConnections.get() < this.minimumConnections;
+	}
+	
+	/**
+	 * Sends a keepalive to an unused connection using the validator of the connection pool.
+	 * @param entry The entry for the connection.
+	 * @param now The current time in milliseconds.
+	 * @return True if the connection is still valid; otherwise, false.
+	 */
+	private boolean keepalive(PoolEntry entry, long now) {
+		try {
+			if (!this.validator.isValid(entry.getConnection(), this.validationTimeout)) {
+				this.validationFailures.increment();
+				return false;
+			}
+		} catch (SQLException e) {
+			this.validationFailures.increment();
+			return false;
+		}
+		entry.setLastValidated(now);
+		return true;
+	}
+	
+	/**
+	 * Validates an unused connection before it is handed to a consumer, unless it has been used 
+	 * within the validation interval.
+	 * @param entry The entry for the connection.
+	 * @return True if the connection is valid; otherwise, false.
+	 */
+	private boolean validate(PoolEntry entry) {
+		long now = System.currentTimeMillis();
+		long validationInterval = this.validationInterval;
+		if (validationInterval > 0 && now - entry.getLastChecked() < validationInterval) {
+			return true;
+		}
+		try {
+			if (!this.validator.isValid(entry.getConnection(), this.validationTimeout)) {
+				this.validationFailures.increment();
+				return false;
+			}
+		} catch (SQLException e) {
+			this.validationFailures.increment();
+			return false;
+		}
+		entry.setLastValidated(now);
+		return true;
+	}
+	
+	/**
+	 * Gets the time at which the execution of a statement starts and marks the connection of the
+	 * statement as dirty.
+	 * @param pooledConnection The pooled connection of the statement.
+	 * @return The value of {@link System#nanoTime()} or {@link #UNMONITORED} if executions are not monitored.
+	 */
+	private long startExecution(PooledConnection pooledConnection) {
+		pooledConnection.setDirty();
+		return (this.sqlStatistics == null && this.slowQueryLog == null && this.sizeController == null && !this.executionLatencyTracked ? ConnectionPoolImpl.UNMONITORED : System.nanoTime());
+	}
+	
+	/**
+	 * Records the execution of a statement once it has completed, for the size controller and the
+	 * execution latency as well as the SQL statistics, and logs it if it was slow.
+	 * @param sql The SQL text of the statement.
+	 * @param parameters The values bound to the parameters of the statement or null.
+	 * @param start The time at which the execution started, as returned by {@link #startExecution(PooledConnection)}.
+	 * @param rows The number of rows updated by the execution.
+	 * @return The statistics of the statement or null if statistics are not collected.
+	 */
+	private SqlStatistics.Entry finishExecution(String sql, BindParameters parameters, long start, long rows) {
+		if (start == ConnectionPoolImpl.UNMONITORED) {
+			return null;
+		}
+		long nanos = System.nanoTime() - start;
+		PoolSizeController sizeController = this.sizeController;
+		if (sizeController != null) {
+			sizeController.recordExecution(nanos);
+		}
+		if (this.executionLatencyTracked) {
+			long latency = this.executionLatency;
+			this.executionLatency = (latency == 0 ? Math.max(1, nanos) : latency + (nanos - latency) / ConnectionPoolImpl.EXECUTION_LATENCY_WEIGHT);
+		}
+		SlowQueryLog slowQueryLog = this.slowQueryLog;
+		if (slowQueryLog != null) {
+			slowQueryLog.log(sql, parameters, nanos);
+		}
+		SqlStatistics sqlStatistics = this.sqlStatistics;
+		return (sqlStatistics == null ? null : sqlStatistics.record(sql, nanos, rows));
+	}
+	
+	/**
+	 * Gets the number of rows updated by a call to <code>execute</code>, but only if the call is 
+	 * monitored.
+	 * @param statement The statement that was executed.
+	 * @param result The result of the call to <code>execute</code>.
+	 * @param start The time at which the execution started.
+	 * @return The number of rows updated or zero if the execution returned a result set or is not monitored.
+	 * @throws SQLException
+	 */
+	private static long getUpdateCount(Statement statement, boolean result, long start) throws SQLException {
+		return (result || start == ConnectionPoolImpl.UNMONITORED ? 0 : Math.max(0, statement.getUpdateCount()));
+	}
+	
+	/**
+	 * Gets the number of rows updated by a batch.
+	 * @param updateCounts The update counts of the batch.
+	 * @return The sum of the update counts that are known.
+	 */
+	private static long getUpdateCount(int[] updateCounts) {
+		long rows = 0;
+		for (int updateCount : updateCounts) {
+			if (updateCount > 0) {
+				rows += updateCount;
+			}
+		}
+		return rows;
+	}
+	
+	/**
+	 * Removes a connection from the connection pool.
+	 * @param entry The entry for the connection.
+	 */
+	private void destroy(PoolEntry entry) {
+		if (this.bag.remove(entry)) {
+			this.currentConnections.decrementAndGet();
+			this.destructions.increment();
+			entry.close();
+		}
+	}
+	
+	/**
+	 * Provides the callback that requests a new connection once a consumer has started waiting.
+	 */
+	private final class CreationRequest implements Runnable {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			ConnectionPoolImpl.this.requestCreation();
+		}
+		
+	}
+	
+	/**
+	 * Provides the task that is run by the creation executor.  The task keeps creating connections
+	 * for as long as consumers are waiting or the minimum bounds are not met, and each new 
+	 * connection is handed to the longest waiting consumer.  Once the task is done it requests 
+	 * another task if consumers started waiting while the maximum number of pending connections 
+	 * had been reached, so that no consumer is left waiting without a pending connection.
+	 */
+	private final class CreationTask implements Runnable {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			ConnectionPoolImpl connectionPool = ConnectionPoolImpl.this;
+			boolean failed = false;
+			try {
+				while (connectionPool.isCreationNeeded()) {
+					if (connectionPool.create(false) == null) {
+						break;
+					}
+					connectionPool.creationFailure = null;
+				}
+			} catch (SQLException e) {
+				connectionPool.creationFailure = e;
+				failed = true;
+			} finally {
+				connectionPool.pendingConnections.decrementAndGet();
+			}
+			if (!failed && connectionPool.isCreationNeeded()) {
+				connectionPool.requestCreation();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Provides a task that opens the initial connections of the connection pool.  The same task is
+	 * run by every warm-up thread and each thread keeps opening connections until all of them have
+	 * been attempted.
+	 */
+	private final class WarmUpTask implements Runnable {
+		
+		/**
+		 * Initializes a new instance of the WarmUpTask class.
+		 * @param total The number of connections to open.
+		 * @param listener The listener that is notified of the progress of the warm-up or null.
+		 */
+		public WarmUpTask(int total, WarmUp.Listener listener) {
+			this.total = total;
+			this.listener = listener;
+			this.next = new AtomicInteger();
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			while (this.next.getAndIncrement() < this.total) {
+				SQLException failure = null;
+				boolean opened;
+				try {
+					ConnectionPoolImpl.this.create(false);
+					opened = true;
+				} catch (SQLException e) {
+					failure = e;
+					opened = false;
+				} catch (RuntimeException e) {
+					opened = false;
+				}
+				synchronized (this) {
+					if (opened) {
+						this.opened++;
+					} else {
+						this.failed++;
+						if (this.failure == null) {
+							this.failure = failure;
+						}
+					}
+					if (this.listener != null) {
+						this.listener.progress(this.opened, this.failed, this.total);
+					}
+					this.notifyAll();
+				}
+			}
+		}
+		
+		/**
+		 * Waits until the required number of connections have been opened or every connection has
+		 * been attempted.
+		 * @param required The number of connections that must be opened.
+		 * @throws SQLException Thrown if the required number of connections could not be opened or the current thread was interrupted.
+		 */
+		public synchronized void await(int required) throws SQLException {
+			while (this.opened < required && this.opened + this.failed < this.total) {
+				try {
+					this.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while warming up the connection pool.");
+				}
+			}
+			if (this.opened < required) {
+				SQLException exception = new SQLException("Failed to open the required number of connections.");
+				if (this.failure != null) {
+					exception.initCause(this.failure);
+				}
+				throw exception;
+			}
+		}
+		
+		private int total;
+		private WarmUp.Listener listener;
+		private AtomicInteger next;
+		private int opened;
+		private int failed;
+		private SQLException failure;
+		
+	}
+	
+	/**
+	 * Provides a timer task that hands a task to the maintenance thread, so that the task can 
+	 * block on the database without holding up the other timeouts of the timer.
+	 */
+	private final class Handoff implements Runnable {
+		
+		/**
+		 * Initializes a new instance of the Handoff class.
+		 * @param task The task to run on the maintenance thread.
+		 */
+		public Handoff(Runnable task) {
+			this.task = task;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			ConnectionPoolImpl.this.maintenanceExecutor.execute(this.task);
+		}
+		
+		private Runnable task;
+		
+	}
+	
+	/**
+	 * Provides the thread factory of the maintenance executor, which runs its tasks on a single 
+	 * daemon thread.
+	 */
+	private static final class MaintenanceThreadFactory implements ThreadFactory {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+		 */
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, ConnectionPoolImpl.MAINTENANCE_THREAD_NAME);
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	}
+	
+	/**
+	 * Provides a task that periodically maintains the unused connections of the connection pool.
+	 * The task runs on the maintenance thread and schedules its next run once it has finished.
+	 */
+	private final class MaintenanceTask implements Runnable {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			ConnectionPoolImpl connectionPool = ConnectionPoolImpl.this;
+			try {
+				connectionPool.maintain();
+			} finally {
+				synchronized (connectionPool) {
+					long maintenanceInterval = connectionPool.maintenanceInterval;
+					if (connectionPool.maintenance != null && connectionPool.maintenance.isExpired() && maintenanceInterval > 0) {
+						connectionPool.maintenance = connectionPool.timer.newTimeout(connectionPool.maintenanceHandoff, maintenanceInterval, TimeUnit.MILLISECONDS);
+					}
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * Provides a timer task that periodically lets the size controller adjust the maximum number 
+	 * of connections.  The new maximum is computed on the thread of the timer, but it is applied 
+	 * by a {@link ResizeTask} on the maintenance thread because growing and shrinking the 
+	 * connection pool opens and closes connections.
+	 */
+	private final class SizingTask implements Runnable {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			ConnectionPoolImpl connectionPool = ConnectionPoolImpl.this;
+			PoolSizeController sizeController = connectionPool.sizeController;
+			if (sizeController == null) {
+				return;
+			}
+			int maximumConnections = connectionPool.maximumConnections;
+			int target = sizeController.adjust(maximumConnections, connectionPool.getActiveConnections(), connectionPool.getWaitingThreads());
+			target = Math.max(target, connectionPool.minimumConnections);
+			if (target != maximumConnections) {
+				connectionPool.maintenanceExecutor.execute(new ResizeTask(sizeController, target));
+			} else {
+				this.schedule(sizeController);
+			}
+		}
+		
+		/**
+		 * Schedules the next run of the task unless the size controller has been replaced or removed since the current run.
+		 * @param sizeController The size controller of the current run.
+		 */
+		public void schedule(PoolSizeController sizeController) {
+			ConnectionPoolImpl connectionPool = ConnectionPoolImpl.this;
+			synchronized (connectionPool) {
+				if (connectionPool.sizing != null && connectionPool.sizing.isExpired() && connectionPool.sizeController == sizeController) {
+					connectionPool.sizing = connectionPool.timer.newTimeout(this, sizeController.getInterval(), TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * Provides a task that applies a maximum number of connections computed by the size controller
+	 * on the maintenance thread and then schedules the next run of the sizing task.
+	 */
+	private final class ResizeTask implements Runnable {
+		
+		/**
+		 * Initializes a new instance of the ResizeTask class.
+		 * @param sizeController The size controller that computed the maximum.
+		 * @param target The new maximum number of connections.
+		 */
+		public ResizeTask(PoolSizeController sizeController, int target) {
+			this.sizeController = sizeController;
+			this.target = target;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			ConnectionPoolImpl connectionPool = ConnectionPoolImpl.this;
+			try {
+				if (connectionPool.sizeController == this.sizeController) {
+					connectionPool.setMaximumConnections(this.target);
+				}
+			} catch (SQLException e) {
+				
+			} catch (IllegalArgumentException e) {
+				
+			} finally {
+				connectionPool.sizingTask.schedule(this.sizeController);
+			}
+		}
+		
+		private PoolSizeController sizeController;
+		private int target;
+		
+	}
+	
+	/**
+	 * Represents a physical connection held by the connection pool.
+	 * <p>
+	 * An entry lives for as long as its physical connection and holds all of the state that the
+	 * connection pool keeps for it, so that borrowing a connection only allocates a lightweight 
+	 * {@link PooledConnection}.  Every borrow is stamped with the generation of the entry and 
+	 * releasing the connection advances the generation, so a pooled connection from an earlier 
+	 * borrow can no longer be used once it has been released.
+	 */
+	private final class PoolEntry extends ConnectionBag.Entry {
+		
+		/**
+		 * Defines the flag of {@link #known} that is set while the auto-commit mode is cached.
+		 */
+		private static final int AUTO_COMMIT = 1;
+		
+		/**
+		 * Defines the flag of {@link #known} that is set while the transaction isolation is cached.
+		 */
+		private static final int TRANSACTION_ISOLATION = 2;
+		
+		/**
+		 * Defines the flag of {@link #known} that is set while the read-only mode is cached.
+		 */
+		private static final int READ_ONLY = 4;
+		
+		/**
+		 * Defines the flag of {@link #known} that is set while the catalog is cached.
+		 */
+		private static final int CATALOG = 8;
+		
+		/**
+		 * Initializes a new instance of the PoolEntry class.
+		 * @param connection The physical connection.
+		 */
+		public PoolEntry(Connection connection) {
+			this.connection = connection;
+			this.created = System.currentTimeMillis();
+			this.last = this.created;
+			this.jitter = Math.random() * ConnectionPoolImpl.MAX_LIFETIME_JITTER;
+			this.generation = new AtomicInteger();
+			this.statements = new StatementRegistry();
+			this.timeoutTask = new TimeoutTask();
+			this.leakTask = new LeakTask();
+		}
+		
+		/**
+		 * Gets the physical connection.
+		 * @return The physical connection.
+		 */
+		public Connection getConnection() {
+			return this.connection;
+		}
+		
+		/**
+		 * Gets the current generation of the entry.
+		 * @return The current generation of the entry.
+		 */
+		public int getGeneration() {
+			return this.generation.get();
+		}
+		
+		/**
+		 * Records that the physical connection has been accessed.
+		 * @param now The current time in milliseconds.
+		 */
+		public void touch(long now) {
+			this.last = now;
+		}
+		
+		/**
+		 * Gets the time at which the physical connection was last accessed.
+		 * @return The time in milliseconds.
+		 */
+		public long getLastUsed() {
+			return this.last;
+		}
+		
+		/**
+		 * Gets the time at which the physical connection was created.
+		 * @return The time in milliseconds.
+		 */
+		public long getCreated() {
+			return this.created;
+		}
+		
+		/**
+		 * Indicates whether the physical connection has reached its maximum lifetime, which is the
+		 * maximum lifetime of the connection pool shortened by the random jitter of the entry.
+		 * @param now The current time in milliseconds.
+		 * @return True if the connection is to be retired; otherwise, false.
+		 */
+		public boolean isExpired(long now) {
+			long maxLifetime = ConnectionPoolImpl.this.maxLifetime;
+			return (maxLifetime > 0 && now - this.created >= maxLifetime - (long)(maxLifetime * this.jitter));
+		}
+		
+		/**
+		 * Records that the physical connection has been validated.
+		 * @param now The current time in milliseconds.
+		 */
+		public void setLastValidated(long now) {
+			this.validated = now;
+		}
+		
+		/**
+		 * Gets the time at which the physical connection was last known to be usable, because it
+		 * was either accessed or validated.
+		 * @return The time in milliseconds.
+		 */
+		public long getLastChecked() {
+			return Math.max(this.last, this.validated);
+		}
+		
+		/**
+		 * Indicates whether the borrower has not accessed the physical connection for longer than 
+		 * the timeout of the connection pool.
+		 * @param now The current time in milliseconds.
+		 * @return True if the connection has timed out; otherwise, false.
+		 */
+		public boolean isTimedOut(long now) {
+			long timeout = ConnectionPoolImpl.this.timeout;
+			return (timeout > 0 && now - this.last >= timeout);
+		}
+		
+		/**
+		 * Gets the prepared statement cache of the physical connection.
+		 * @param create True if the cache is to be created if it does not exist and prepared statements are cached; otherwise, false.
+		 * @return The prepared statement cache or null if it does not exist.
+		 */
+		public synchronized StatementCache<PreparedStatement> getPreparedStatementCache(boolean create) {
+			if (this.preparedStatements == null && create) {
+				int statementCacheSize = ConnectionPoolImpl.this.statementCacheSize;
+				if (statementCacheSize > 0) {
+					this.preparedStatements = new StatementCache<PreparedStatement>(statementCacheSize);
+				}
+			}
+			return this.preparedStatements;
+		}
+		
+		/**
+		 * Gets the callable statement cache of the physical connection.
+		 * @param create True if the cache is to be created if it does not exist and callable statements are cached; otherwise, false.
+		 * @return The callable statement cache or null if it does not exist.
+		 */
+		public synchronized StatementCache<CallableStatement> getCallableStatementCache(boolean create) {
+			if (this.callableStatements == null && create) {
+				int callableStatementCacheSize = ConnectionPoolImpl.this.callableStatementCacheSize;
+				if (callableStatementCacheSize > 0) {
+					this.callableStatements = new StatementCache<CallableStatement>(callableStatementCacheSize);
+				}
+			}
+			return this.callableStatements;
+		}
+		
+		/**
+		 * Closes the cached statements and the physical connection once the entry has been removed
+		 * from the connection pool.
+		 */
+		public void close() {
+			StatementCache<PreparedStatement> preparedStatements = this.getPreparedStatementCache(false);
+			if (preparedStatements != null) {
+				preparedStatements.close();
+			}
+			StatementCache<CallableStatement> callableStatements = this.getCallableStatementCache(false);
+			if (callableStatements != null) {
+				callableStatements.close();
+			}
+			try {
+				this.connection.close();
+			} catch (SQLException e) {
+				
+			}
+		}
+		
+		/**
+		 * Gets the auto-commit mode of the physical connection, reading it from the connection
+		 * only if it is not cached.
+		 * @return The auto-commit mode.
+		 * @throws SQLException
+		 */
+		public synchronized boolean getAutoCommit() throws SQLException {
+			if ((this.known & PoolEntry.AUTO_COMMIT) == 0) {
+				this.autoCommit = this.defaultAutoCommit = this.connection.getAutoCommit();
+				this.known |= PoolEntry.AUTO_COMMIT;
+			}
+			return this.autoCommit;
+		}
+		
+		/**
+		 * Sets the auto-commit mode of the physical connection unless it is unchanged.  Changing 
+		 * the auto-commit mode commits the current transaction, so the connection is then clean.
+		 * @param autoCommit The auto-commit mode.
+		 * @throws SQLException
+		 */
+		public synchronized void setAutoCommit(boolean autoCommit) throws SQLException {
+			if (this.getAutoCommit() == autoCommit) {
+				return;
+			}
+			this.known &= ~PoolEntry.AUTO_COMMIT;
+			this.connection.setAutoCommit(autoCommit);
+			this.autoCommit = autoCommit;
+			this.known |= PoolEntry.AUTO_COMMIT;
+			this.dirty = false;
+		}
+		
+		/**
+		 * Gets the transaction isolation of the physical connection, reading it from the 
+		 * connection only if it is not cached.
+		 * @return The transaction isolation.
+		 * @throws SQLException
+		 */
+		public synchronized int getTransactionIsolation() throws SQLException {
+			if ((this.known & PoolEntry.TRANSACTION_ISOLATION) == 0) {
+				this.transactionIsolation = this.defaultTransactionIsolation = this.connection.getTransactionIsolation();
+				this.known |= PoolEntry.TRANSACTION_ISOLATION;
+			}
+			return this.transactionIsolation;
+		}
+		
+		/**
+		 * Sets the transaction isolation of the physical connection unless it is unchanged.
+		 * @param transactionIsolation The transaction isolation.
+		 * @throws SQLException
+		 */
+		public synchronized void setTransactionIsolation(int transactionIsolation) throws SQLException {
+			if (this.getTransactionIsolation() == transactionIsolation) {
+				return;
+			}
+			this.known &= ~PoolEntry.TRANSACTION_ISOLATION;
+			this.connection.setTransactionIsolation(transactionIsolation);
+			this.transactionIsolation = transactionIsolation;
+			this.known |= PoolEntry.TRANSACTION_ISOLATION;
+		}
+		
+		/**
+		 * Gets the read-only mode of the physical connection, reading it from the connection only
+		 * if it is not cached.
+		 * @return The read-only mode.
+		 * @throws SQLException
+		 */
+		public synchronized boolean isReadOnly() throws SQLException {
+			if ((this.known & PoolEntry.READ_ONLY) == 0) {
+				this.readOnly = this.defaultReadOnly = this.connection.isReadOnly();
+				this.known |= PoolEntry.READ_ONLY;
+			}
+			return this.readOnly;
+		}
+		
+		/**
+		 * Sets the read-only mode of the physical connection unless it is unchanged.
+		 * @param readOnly The read-only mode.
+		 * @throws SQLException
+		 */
+		public synchronized void setReadOnly(boolean readOnly) throws SQLException {
+			if (this.isReadOnly() == readOnly) {
+				return;
+			}
+			this.known &= ~PoolEntry.READ_ONLY;
+			this.connection.setReadOnly(readOnly);
+			this.readOnly = readOnly;
+			this.known |= PoolEntry.READ_ONLY;
+		}
+		
+		/**
+		 * Gets the catalog of the physical connection, reading it from the connection only if it
+		 * is not cached.
+		 * @return The catalog or null.
+		 * @throws SQLException
+		 */
+		public synchronized String getCatalog() throws SQLException {
+			if ((this.known & PoolEntry.CATALOG) == 0) {
+				this.catalog = this.defaultCatalog = this.connection.getCatalog();
+				this.known |= PoolEntry.CATALOG;
+			}
+			return this.catalog;
+		}
+		
+		/**
+		 * Sets the catalog of the physical connection unless it is unchanged.
+		 * @param catalog The catalog.
+		 * @throws SQLException
+		 */
+		public synchronized void setCatalog(String catalog) throws SQLException {
+			String current = this.getCatalog();
+			if (current == null ? catalog == null : current.equals(catalog)) {
+				return;
+			}
+			this.known &= ~PoolEntry.CATALOG;
+			this.connection.setCatalog(catalog);
+			this.catalog = catalog;
+			this.known |= PoolEntry.CATALOG;
+		}
+		
+		/**
+		 * Marks the physical connection as dirty because work that may have started a transaction
+		 * has been done on it.
+		 */
+		public void setDirty() {
+			if (!this.dirty) {
+				this.dirty = true;
+			}
+		}
+		
+		/**
+		 * Marks the physical connection as clean because its transaction has been committed or 
+		 * rolled back.
+		 */
+		public void setClean() {
+			if (this.dirty) {
+				this.dirty = false;
+			}
+		}
+		
+		/**
+		 * Rolls back the physical connection if it is dirty and not in auto-commit mode, and 
+		 * restores the session properties that have been changed since they were first read to the
+		 * values the physical connection started with.  The rollback comes first so that restoring
+		 * auto-commit does not commit the work of the previous borrower.  Properties that have 
+		 * never been read or set are not touched, so a clean connection whose properties are 
+		 * unchanged is not called at all.
+		 * @return True if the connection was reset or false if the physical connection is in an unknown state.
+		 */
+		public synchronized boolean restore() {
+			try {
+				if (this.dirty) {
+					if (!this.getAutoCommit()) {
+						this.connection.rollback();
+					}
+					this.dirty = false;
+				}
+				if ((this.known & PoolEntry.AUTO_COMMIT) != 0 && this.autoCommit != this.defaultAutoCommit) {
+					this.setAutoCommit(this.defaultAutoCommit);
+				}
+				if ((this.known & PoolEntry.TRANSACTION_ISOLATION) != 0 && this.transactionIsolation != this.defaultTransactionIsolation) {
+					this.setTransactionIsolation(this.defaultTransactionIsolation);
+				}
+				if ((this.known & PoolEntry.READ_ONLY) != 0 && this.readOnly != this.defaultReadOnly) {
+					this.setReadOnly(this.defaultReadOnly);
+				}
+				if ((this.known & PoolEntry.CATALOG) != 0) {
+					this.setCatalog(this.defaultCatalog);
+				}
+			} catch (SQLException e) {
+				return false;
+			}
+			return true;
+		}
+		
+		/**
+		 * Gets the statements that are open on the physical connection.
+		 * @return The statements that are open on the physical connection.
+		 */
+		public StatementRegistry getStatements() {
+			return this.statements;
+		}
+		
+		/**
+		 * Hands the physical connection to a new borrower.
+		 * @param now The value of {@link System#nanoTime()} at which the connection is handed over.
+		 * @return A pooled connection stamped with the current generation of the entry.
+		 */
+		public PooledConnection borrow(long now) {
+			this.last = System.currentTimeMillis();
+			this.borrowed = now;
+			PooledConnection pooledConnection = new PooledConnection(this, this.generation.get());
+			long timeout = ConnectionPoolImpl.this.timeout;
+			if (timeout > 0) {
+				this.timeoutGeneration = this.generation.get();
+				this.expiration = ConnectionPoolImpl.this.timer.newTimeout(this.timeoutTask, timeout, TimeUnit.MILLISECONDS);
+			}
+			LeakDetector leakDetector = ConnectionPoolImpl.this.leakDetector;
+			if (leakDetector != null) {
+				this.leakDetector = leakDetector;
+				this.leakGeneration = this.generation.get();
+				this.leaked = false;
+				this.borrower = Thread.currentThread();
+				this.trace = leakDetector.capture();
+				this.leakCheck = ConnectionPoolImpl.this.timer.newTimeout(this.leakTask, leakDetector.getThreshold(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+			}
+			return pooledConnection;
+		}
+		
+		/**
+		 * Releases the physical connection from the borrow with the specified generation and 
+		 * returns it to the connection pool.  Nothing happens if that borrow has already been 
+		 * released.
+		 * @param generation The generation of the borrow to release.
+		 * @throws SQLException
+		 */
+		public void release(int generation) throws SQLException {
+			if (!this.generation.compareAndSet(generation, generation + 1)) {
+				return;
+			}
+			long held = System.nanoTime() - this.borrowed;
+			ConnectionPoolImpl.this.holdTimes.record(held);
+			HashedWheelTimer.Timeout expiration = this.expiration;
+			if (expiration != null) {
+				expiration.cancel();
+				this.expiration = null;
+			}
+			LeakDetector leakDetector = this.leakDetector;
+			if (leakDetector != null) {
+				this.leakCheck.cancel();
+				if (this.leaked) {
+					leakDetector.released(this.borrower, held);
+				}
+				this.leakDetector = null;
+				this.leakCheck = null;
+				this.borrower = null;
+				this.trace = null;
+			}
+			this.statements.closeAll();
+			ConnectionPoolImpl.this.requite(this);
+		}
+		
+		private Connection connection;
+		private long created;
+		private double jitter;
+		private AtomicInteger generation;
+		private volatile long last;
+		private volatile long validated;
+		private volatile long borrowed;
+		private volatile HashedWheelTimer.Timeout expiration;
+		private StatementRegistry statements;
+		private StatementCache<PreparedStatement> preparedStatements;
+		private StatementCache<CallableStatement> callableStatements;
+		private TimeoutTask timeoutTask;
+		private volatile int timeoutGeneration;
+		private volatile boolean dirty;
+		private int known;
+		private boolean autoCommit;
+		private boolean defaultAutoCommit;
+		private int transactionIsolation;
+		private int defaultTransactionIsolation;
+		private boolean readOnly;
+		private boolean defaultReadOnly;
+		private String catalog;
+		private String defaultCatalog;
+		private volatile LeakDetector leakDetector;
+		private volatile HashedWheelTimer.Timeout leakCheck;
+		private volatile Thread borrower;
+		private volatile Throwable trace;
+		private volatile int leakGeneration;
+		private volatile boolean leaked;
+		private LeakTask leakTask;
+		
+		/**
+		 * Provides a timer task that automatically releases idle pooled connections to the connection pool.
+		 * The task only releases the borrow for which it was scheduled, so a task that fires late
+		 * never releases a connection that has since been handed to another borrower.
+		 */
+		private class TimeoutTask implements Runnable {
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.lang.Runnable#run()
+			 */
+			public void run() {
+				PoolEntry entry = PoolEntry.this;
+				int generation = entry.timeoutGeneration;
+				if (entry.getState() != PoolEntry.STATE_IN_USE || entry.generation.get() != generation) {
+					return;
+				}
+				long delay = ConnectionPoolImpl.this.timeout - (System.currentTimeMillis() - entry.last);
+				if (delay > 0) {
+					entry.expiration = ConnectionPoolImpl.this.timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
+				} else {
+					try {
+						entry.release(generation);
+					} catch (SQLException e) {
+						
+					}
+				}
+			}
+			
+		}
+		
+		/**
+		 * Provides a timer task that reports a borrowed connection to the leak detector once it has
+		 * been held for longer than the threshold of the leak detector.
+		 */
+		private class LeakTask implements Runnable {
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.lang.Runnable#run()
+			 */
+			public void run() {
+				PoolEntry entry = PoolEntry.this;
+				LeakDetector leakDetector = entry.leakDetector;
+				Thread borrower = entry.borrower;
+				if (leakDetector == null || borrower == null || entry.generation.get() != entry.leakGeneration) {
+					return;
+				}
+				entry.leaked = true;
+				leakDetector.suspect(borrower, System.nanoTime() - entry.borrowed, entry.trace);
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Wraps an instance of the CallableStatement interface for use within a connection pool. 
+	 * <p>
+	 * The additional functionality is as follows:
+	 * 
+	 * <ul>
+	 * <li>Returns the underlying callable statement to the callable statement cache of its 
+	 * connection when closed, if the connection pool caches callable statements and none of its
+	 * options, such as the maximum number of rows or the query timeout, were changed.
+	 * <li>Attempts to close the underlying callable statement if the corresponding connection is
+	 * released. However, it is recommended that unused resources be closed when no longer in use.
+	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
+	 * <li>Records the execution time of the statement in the SQL statistics and the slow query log of
+	 * the connection pool, if any.
+	 * <li>Marks its connection as dirty when it is executed, so that an open transaction is rolled
+	 * back when the connection is released.
+	 * <li>Remembers the values bound to its parameters while the connection pool has a slow query log.
+	 * </ul>
+	 * 
+	 * @see com.opower.connectionpool.ConnectionPoolImpl
+	 */
+	private class PooledCallableStatement extends WrappedCallableStatement {
+		
+		/**
+		 * Initializes a new instance of the PooledCallableStatement class.
+		 * @param pooledConnection The pooled connection for the pooled callable statement.
 		 * @param callableStatement the callable statement for the pooled callable statement.
+		 * @param sql The SQL text of the callable statement.
+		 * @param key The key under which the callable statement is cached or null if it is not to be cached.
+		 */
+		public PooledCallableStatement(PooledConnection pooledConnection, CallableStatement callableStatement, String sql, StatementCache.Key key) throws SQLException {
+			super(callableStatement);
+			this.pooledConnection = pooledConnection;
+			this.sql = sql;
+			this.key = key;
+			if (ConnectionPoolImpl.this.slowQueryLog != null) {
+				this.parameters = new BindParameters();
+			}
+			this.slot = this.pooledConnection.register(this);
+			if (this.pooledConnection.isClosed()) {
+				this.close();
+			}
+		}
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#close()
+		 */
+		public void close() throws SQLException {
+			this.pooledConnection.unregister(this.slot, this);
+			CallableStatement callableStatement = super.getCallableStatement();
+			if (callableStatement != null) {
+				this.setCallableStatement(null);
+				if (this.key == null || this.modified || !this.pooledConnection.cacheCallableStatement(this.key, callableStatement)) {
+					callableStatement.close();
+				}
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setMaxFieldSize(int)
+		 */
+		public void setMaxFieldSize(int max) throws SQLException {
+			this.getCallableStatement().setMaxFieldSize(max);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setMaxRows(int)
+		 */
+		public void setMaxRows(int max) throws SQLException {
+			this.getCallableStatement().setMaxRows(max);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setEscapeProcessing(boolean)
+		 */
+		public void setEscapeProcessing(boolean enable) throws SQLException {
+			this.getCallableStatement().setEscapeProcessing(enable);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setQueryTimeout(int)
+		 */
+		public void setQueryTimeout(int seconds) throws SQLException {
+			this.getCallableStatement().setQueryTimeout(seconds);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setCursorName(java.lang.String)
+		 */
+		public void setCursorName(String name) throws SQLException {
+			this.getCallableStatement().setCursorName(name);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setFetchDirection(int)
+		 */
+		public void setFetchDirection(int direction) throws SQLException {
+			this.getCallableStatement().setFetchDirection(direction);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#setFetchSize(int)
+		 */
+		public void setFetchSize(int rows) throws SQLException {
+			this.getCallableStatement().setFetchSize(rows);
+			this.modified = true;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#executeQuery()
+		 */
+		public ResultSet executeQuery() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			ResultSet resultSet = this.getCallableStatement().executeQuery();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, 0);
+			return new PooledResultSet(this, resultSet, this.statistics);
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#executeUpdate()
+		 */
+		public int executeUpdate() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int rows = this.getCallableStatement().executeUpdate();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, rows);
+			return rows;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#execute()
+		 */
+		public boolean execute() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			boolean result = this.getCallableStatement().execute();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, ConnectionPoolImpl.getUpdateCount(this.getCallableStatement(), result, start));
+			return result;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#executeBatch()
+		 */
+		public int[] executeBatch() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int[] updateCounts = this.getCallableStatement().executeBatch();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, ConnectionPoolImpl.getUpdateCount(updateCounts));
+			return updateCounts;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#executeQuery(java.lang.String)
+		 */
+		public ResultSet executeQuery(String sql) throws SQLException {
+			return new PooledResultSet(this, this.getCallableStatement().executeQuery(sql));
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#getResultSet()
+		 */
+		public ResultSet getResultSet() throws SQLException {
+			return new PooledResultSet(this, this.getCallableStatement().getResultSet(), this.statistics);
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#getConnection()
+		 */
+		public Connection getConnection() throws SQLException {
+			return this.pooledConnection;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.CallableStatement#getGeneratedKeys()
+		 */
+		public ResultSet getGeneratedKeys() throws SQLException {
+			return new PooledResultSet(this, this.getCallableStatement().getGeneratedKeys());
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setNull(int, int)
+		 */
+		public void setNull(int parameterIndex, int sqlType) throws SQLException {
+			this.getCallableStatement().setNull(parameterIndex, sqlType);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, BindParameters.NULL);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setBoolean(int, boolean)
+		 */
+		public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+			this.getCallableStatement().setBoolean(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setByte(int, byte)
+		 */
+		public void setByte(int parameterIndex, byte x) throws SQLException {
+			this.getCallableStatement().setByte(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setShort(int, short)
+		 */
+		public void setShort(int parameterIndex, short x) throws SQLException {
+			this.getCallableStatement().setShort(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setInt(int, int)
+		 */
+		public void setInt(int parameterIndex, int x) throws SQLException {
+			this.getCallableStatement().setInt(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setLong(int, long)
+		 */
+		public void setLong(int parameterIndex, long x) throws SQLException {
+			this.getCallableStatement().setLong(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setFloat(int, float)
+		 */
+		public void setFloat(int parameterIndex, float x) throws SQLException {
+			this.getCallableStatement().setFloat(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setDouble(int, double)
+		 */
+		public void setDouble(int parameterIndex, double x) throws SQLException {
+			this.getCallableStatement().setDouble(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setBigDecimal(int, java.math.BigDecimal)
+		 */
+		public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+			this.getCallableStatement().setBigDecimal(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setString(int, java.lang.String)
+		 */
+		public void setString(int parameterIndex, String x) throws SQLException {
+			this.getCallableStatement().setString(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setBytes(int, byte[])
+		 */
+		public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+			this.getCallableStatement().setBytes(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date)
+		 */
+		public void setDate(int parameterIndex, Date x) throws SQLException {
+			this.getCallableStatement().setDate(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time)
+		 */
+		public void setTime(int parameterIndex, Time x) throws SQLException {
+			this.getCallableStatement().setTime(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp)
+		 */
+		public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+			this.getCallableStatement().setTimestamp(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream, int)
+		 */
+		public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			this.getCallableStatement().setAsciiStream(parameterIndex, x, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setUnicodeStream(int, java.io.InputStream, int)
+		 */
+		@Deprecated
+		public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			this.getCallableStatement().setUnicodeStream(parameterIndex, x, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, int)
+		 */
+		public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			this.getCallableStatement().setBinaryStream(parameterIndex, x, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int, int)
+		 */
+		public void setObject(int parameterIndex, Object x, int targetSqlType, int scale) throws SQLException {
+			this.getCallableStatement().setObject(parameterIndex, x, targetSqlType, scale);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int)
+		 */
+		public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+			this.getCallableStatement().setObject(parameterIndex, x, targetSqlType);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object)
+		 */
+		public void setObject(int parameterIndex, Object x) throws SQLException {
+			this.getCallableStatement().setObject(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, int)
+		 */
+		public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+			this.getCallableStatement().setCharacterStream(parameterIndex, reader, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, reader);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setRef(int, java.sql.Ref)
+		 */
+		public void setRef(int i, Ref x) throws SQLException {
+			this.getCallableStatement().setRef(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setBlob(int, java.sql.Blob)
+		 */
+		public void setBlob(int i, Blob x) throws SQLException {
+			this.getCallableStatement().setBlob(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setClob(int, java.sql.Clob)
+		 */
+		public void setClob(int i, Clob x) throws SQLException {
+			this.getCallableStatement().setClob(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setArray(int, java.sql.Array)
+		 */
+		public void setArray(int i, Array x) throws SQLException {
+			this.getCallableStatement().setArray(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date, java.util.Calendar)
+		 */
+		public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+			this.getCallableStatement().setDate(parameterIndex, x, cal);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time, java.util.Calendar)
+		 */
+		public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+			this.getCallableStatement().setTime(parameterIndex, x, cal);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp, java.util.Calendar)
+		 */
+		public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+			this.getCallableStatement().setTimestamp(parameterIndex, x, cal);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setNull(int, int, java.lang.String)
+		 */
+		public void setNull(int paramIndex, int sqlType, String typeName) throws SQLException {
+			this.getCallableStatement().setNull(paramIndex, sqlType, typeName);
+			if (this.parameters != null) {
+				this.parameters.set(paramIndex, BindParameters.NULL);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setURL(int, java.net.URL)
+		 */
+		public void setURL(int parameterIndex, URL x) throws SQLException {
+			this.getCallableStatement().setURL(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#clearParameters()
+		 */
+		public void clearParameters() throws SQLException {
+			this.getCallableStatement().clearParameters();
+			if (this.parameters != null) {
+				this.parameters.clear();
+			}
+		}
+		
+		/**
+		 * Gets the callable statement wrapped by the pooled callable statement or throws an 
+		 * exception if the pooled callable statement has been closed.
+		 * @return The callable statement wrapped by the pooled callable statement.
+		 */
+		protected CallableStatement getCallableStatement() {
+			CallableStatement callableStatement = super.getCallableStatement();
+			if (callableStatement == null) {
+				throw new IllegalStateException("The statement has already been closed.");
+			}
+			return callableStatement;
+		}
+		
+		private PooledConnection pooledConnection;
+		private String sql;
+		private StatementCache.Key key;
+		private int slot;
+		private SqlStatistics.Entry statistics;
+		private BindParameters parameters;
+		private boolean modified;
+		
+	}
+	
+	/**
+	 * Wraps an instance of the Connection interface for use within a connection pool.
+	 * 
+	 * While this wrapper delegates most methods to the underlying connection, the following methods
+	 * have custom functionality:
+	 * 
+	 * <ul>
+	 * <li> @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnection#close - Releases the 
+	 * underlying connection to the connection pool and so that is is no longer available from the 
+	 * pooled connection.
+	 * <li> @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnection#isClosed - Indicates 
+	 * whether the underlying connection is closed or has been released to the connection pool. 
+	 * <li> The getters and setters of the auto-commit mode, transaction isolation, read-only mode
+	 * and catalog - Use the values cached by the entry of the underlying connection, so that 
+	 * unchanged values are not set again.
+	 * <li> @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnection#commit and 
+	 * @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnection#rollback - Mark the 
+	 * underlying connection as clean, so that it is not rolled back again when it is released.
+	 * </ul>
+	 * 
+	 * Additionally, any method that returns the following types wraps the return value from the 
+	 * underlying connection in another wrapper to prevent direct access to the underlying connection:
+	 * 
+	 * <ul>
+	 * <li> @see java.sql.DatabaseMetaData - Wrapped in a {@link PooledDatabaseMetaData}.
+	 * <li> @see java.sql.CallableStatement - Wrapped in a {@link PooledCallableStatement}.
+	 * <li> @see java.sql.PreparedStatement - Wrapped in a {@link PooledPreparedStatement}.
+	 * <li> @see java.sql.ResultSet - Wrapped in a {@link PooledResultSet}.
+	 * <li> @see java.sql.Statement - Wrapped in a {@link PooledStatement}.
+	 * </ul>
+	 * 
+	 * Lastly, this implementation tracks the statements opened using the connection and closes any
+	 * that remain open when the connection is closed (i.e., released to the connection pool).
+	 * 
+	 * @see com.opower.connectionpool.ConnectionPoolImpl
+	 */
+	private class PooledConnection extends WrappedConnection {
+		
+		/**
+		 * Initializes a new instance of the PooledConnection class.
+		 * @param entry The entry for the connection wrapped by the pooled connection.
+		 * @param generation The generation of the entry for which the pooled connection is valid.
+		 */
+		public PooledConnection(PoolEntry entry, int generation) {
+			super(null);
+			this.entry = entry;
+			this.generation = generation;
+		}		
+		
+		/**
+		 * Gets the connection pool to which the pooled connection belongs.
+		 * @return The connection pool to which the pooled connection belongs.
+		 */
+		private ConnectionPool getConnectionPool() {
+			return ConnectionPoolImpl.this;
+		}
+		
+		/**
+		 * Registers a statement that has been opened using the pooled connection so that it is 
+		 * closed when the pooled connection is released.
+		 * @param statement The statement to register.
+		 * @return The slot in which the statement was registered.
+		 */
+		public int register(Statement statement) {
+			return this.entry.getStatements().register(statement);
+		}
+		
+		/**
+		 * Unregisters a statement that has been closed.
+		 * @param slot The slot in which the statement was registered.
+		 * @param statement The statement to unregister.
+		 */
+		public void unregister(int slot, Statement statement) {
+			this.entry.getStatements().unregister(slot, statement);
+		}
+		
+		/**
+		 * Returns a prepared statement that has been closed by the consumer to the prepared 
+		 * statement cache of the physical connection.
+		 * @param key The key of the prepared statement.
+		 * @param preparedStatement The prepared statement.
+		 * @return True if the prepared statement was cached or false if it should be closed.
+		 */
+		public boolean cachePreparedStatement(StatementCache.Key key, PreparedStatement preparedStatement) {
+			return this.cache(this.entry.getPreparedStatementCache(true), key, preparedStatement);
+		}
+		
+		/**
+		 * Returns a callable statement that has been closed by the consumer to the callable 
+		 * statement cache of the physical connection.
+		 * @param key The key of the callable statement.
+		 * @param callableStatement The callable statement.
+		 * @return True if the callable statement was cached or false if it should be closed.
+		 */
+		public boolean cacheCallableStatement(StatementCache.Key key, CallableStatement callableStatement) {
+			return this.cache(this.entry.getCallableStatementCache(true), key, callableStatement);
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#createStatement()
+		 */
+		public Statement createStatement() throws SQLException {
+			return new PooledStatement(this, this.getConnection().createStatement());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareStatement(java.lang.String)
+		 */
+		public PreparedStatement prepareStatement(String sql) throws SQLException {
+			StatementCache.Key key = this.getPreparedStatementKey(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, null, null);
+			PreparedStatement preparedStatement = this.takePreparedStatement(key);
+			if (preparedStatement == null) {
+				preparedStatement = this.getConnection().prepareStatement(sql);
+			}
+			return new PooledPreparedStatement(this, preparedStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareCall(java.lang.String)
+		 */
+		public CallableStatement prepareCall(String sql) throws SQLException {
+			StatementCache.Key key = this.getCallableStatementKey(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED);
+			CallableStatement callableStatement = this.takeCallableStatement(key);
+			if (callableStatement == null) {
+				callableStatement = this.getConnection().prepareCall(sql);
+			}
+			return new PooledCallableStatement(this, callableStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#close()
+		 */
+		public void close() throws SQLException {
+			ConnectionPoolImpl.this.releaseConnection(this);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#isClosed()
+		 */
+		public boolean isClosed() throws SQLException {
+			Connection connection = this.getUncheckedConnection();
+			return (connection == null || connection.isClosed());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#getMetaData()
+		 */
+		public DatabaseMetaData getMetaData() throws SQLException {
+			return new PooledDatabaseMetaData(this, this.getConnection().getMetaData());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#createStatement(int, int)
+		 */
+		public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+			return new PooledStatement(this, this.getConnection().createStatement(resultSetType, resultSetConcurrency));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int)
+		 */
+		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+			StatementCache.Key key = this.getPreparedStatementKey(sql, resultSetType, resultSetConcurrency, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, null, null);
+			PreparedStatement preparedStatement = this.takePreparedStatement(key);
+			if (preparedStatement == null) {
+				preparedStatement = this.getConnection().prepareStatement(sql, resultSetType, resultSetConcurrency);
+			}
+			return new PooledPreparedStatement(this, preparedStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int)
+		 */
+		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+			StatementCache.Key key = this.getCallableStatementKey(sql, resultSetType, resultSetConcurrency, StatementCache.Key.UNSPECIFIED);
+			CallableStatement callableStatement = this.takeCallableStatement(key);
+			if (callableStatement == null) {
+				callableStatement = this.getConnection().prepareCall(sql, resultSetType, resultSetConcurrency);
+			}
+			return new PooledCallableStatement(this, callableStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#createStatement(int, int, int)
+		 */
+		public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+			return new PooledStatement(this, this.getConnection().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int, int)
+		 */
+		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+			StatementCache.Key key = this.getPreparedStatementKey(sql, resultSetType, resultSetConcurrency, resultSetHoldability, StatementCache.Key.UNSPECIFIED, null, null);
+			PreparedStatement preparedStatement = this.takePreparedStatement(key);
+			if (preparedStatement == null) {
+				preparedStatement = this.getConnection().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+			}
+			return new PooledPreparedStatement(this, preparedStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int, int)
+		 */
+		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+			StatementCache.Key key = this.getCallableStatementKey(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+			CallableStatement callableStatement = this.takeCallableStatement(key);
+			if (callableStatement == null) {
+				callableStatement = this.getConnection().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+			}
+			return new PooledCallableStatement(this, callableStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int)
+		 */
+		public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+			StatementCache.Key key = this.getPreparedStatementKey(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, autoGeneratedKeys, null, null);
+			PreparedStatement preparedStatement = this.takePreparedStatement(key);
+			if (preparedStatement == null) {
+				preparedStatement = this.getConnection().prepareStatement(sql, autoGeneratedKeys);
+			}
+			return new PooledPreparedStatement(this, preparedStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int[])
+		 */
+		public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+			StatementCache.Key key = this.getPreparedStatementKey(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, columnIndexes, null);
+			PreparedStatement preparedStatement = this.takePreparedStatement(key);
+			if (preparedStatement == null) {
+				preparedStatement = this.getConnection().prepareStatement(sql, columnIndexes);
+			}
+			return new PooledPreparedStatement(this, preparedStatement, sql, key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, java.lang.String[])
+		 */
+		public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+			StatementCache.Key key = this.getPreparedStatementKey(sql, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, StatementCache.Key.UNSPECIFIED, null, columnNames);
+			PreparedStatement preparedStatement = this.takePreparedStatement(key);
+			if (preparedStatement == null) {
+				preparedStatement = this.getConnection().prepareStatement(sql, columnNames);
+			}
+			return new PooledPreparedStatement(this, preparedStatement, sql, key);
+		}
+		
+		/**
+		 * Marks the physical connection as dirty.
+		 */
+		public void setDirty() {
+			this.entry.setDirty();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#commit()
+		 */
+		public void commit() throws SQLException {
+			this.getConnection().commit();
+			this.entry.setClean();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#rollback()
+		 */
+		public void rollback() throws SQLException {
+			this.getConnection().rollback();
+			this.entry.setClean();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setSavepoint()
+		 */
+		public Savepoint setSavepoint() throws SQLException {
+			this.entry.setDirty();
+			return this.getConnection().setSavepoint();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setSavepoint(java.lang.String)
+		 */
+		public Savepoint setSavepoint(String name) throws SQLException {
+			this.entry.setDirty();
+			return this.getConnection().setSavepoint(name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setAutoCommit(boolean)
+		 */
+		public void setAutoCommit(boolean autoCommit) throws SQLException {
+			this.getConnection();
+			this.entry.setAutoCommit(autoCommit);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#getAutoCommit()
+		 */
+		public boolean getAutoCommit() throws SQLException {
+			this.getConnection();
+			return this.entry.getAutoCommit();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setTransactionIsolation(int)
+		 */
+		public void setTransactionIsolation(int level) throws SQLException {
+			this.getConnection();
+			this.entry.setTransactionIsolation(level);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#getTransactionIsolation()
+		 */
+		public int getTransactionIsolation() throws SQLException {
+			this.getConnection();
+			return this.entry.getTransactionIsolation();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setReadOnly(boolean)
+		 */
+		public void setReadOnly(boolean readOnly) throws SQLException {
+			this.getConnection();
+			this.entry.setReadOnly(readOnly);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#isReadOnly()
+		 */
+		public boolean isReadOnly() throws SQLException {
+			this.getConnection();
+			return this.entry.isReadOnly();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setCatalog(java.lang.String)
+		 */
+		public void setCatalog(String catalog) throws SQLException {
+			this.getConnection();
+			this.entry.setCatalog(catalog);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#getCatalog()
+		 */
+		public String getCatalog() throws SQLException {
+			this.getConnection();
+			return this.entry.getCatalog();
+		}
+		
+		private PoolEntry entry;
+		private int generation;
+		
+		/**
+		 * Gets the key under which a prepared statement is cached.
+		 * @param sql The SQL text of the statement.
+		 * @param resultSetType The result set type or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @param resultSetConcurrency The result set concurrency or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @param resultSetHoldability The result set holdability or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @param autoGeneratedKeys The auto generated keys flag or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @param columnIndexes The indexes of the columns that return generated keys or null.
+		 * @param columnNames The names of the columns that return generated keys or null.
+		 * @return The key or null if prepared statements are not cached.
+		 */
+		private StatementCache.Key getPreparedStatementKey(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, int autoGeneratedKeys, int[] columnIndexes, String[] columnNames) {
+			if (ConnectionPoolImpl.this.statementCacheSize == 0) {
+				return null;
+			}
+			return new StatementCache.Key(sql, resultSetType, resultSetConcurrency, resultSetHoldability, autoGeneratedKeys, columnIndexes, columnNames);
+		}
+		
+		/**
+		 * Takes a prepared statement from the prepared statement cache of the physical connection.
+		 * @param key The key of the prepared statement or null if prepared statements are not cached.
+		 * @return The prepared statement or null if it is not cached.
+		 */
+		private PreparedStatement takePreparedStatement(StatementCache.Key key) {
+			if (key == null) {
+				return null;
+			}
+			this.getConnection();
+			StatementCache<PreparedStatement> preparedStatements = this.entry.getPreparedStatementCache(true);
+			return (preparedStatements == null ? null : preparedStatements.take(key));
+		}
+		
+		/**
+		 * Gets the key under which a callable statement is cached.
+		 * @param sql The SQL text of the statement.
+		 * @param resultSetType The result set type or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @param resultSetConcurrency The result set concurrency or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @param resultSetHoldability The result set holdability or {@link StatementCache.Key#UNSPECIFIED}.
+		 * @return The key or null if callable statements are not cached.
+		 */
+		private StatementCache.Key getCallableStatementKey(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+			if (ConnectionPoolImpl.this.callableStatementCacheSize == 0) {
+				return null;
+			}
+			return new StatementCache.Key(sql, resultSetType, resultSetConcurrency, resultSetHoldability, StatementCache.Key.UNSPECIFIED, null, null);
+		}
+		
+		/**
+		 * Takes a callable statement from the callable statement cache of the physical connection.
+		 * @param key The key of the callable statement or null if callable statements are not cached.
+		 * @return The callable statement or null if it is not cached.
+		 */
+		private CallableStatement takeCallableStatement(StatementCache.Key key) {
+			if (key == null) {
+				return null;
+			}
+			this.getConnection();
+			StatementCache<CallableStatement> callableStatements = this.entry.getCallableStatementCache(true);
+			return (callableStatements == null ? null : callableStatements.take(key));
+		}
+		
+		/**
+		 * Puts a statement that has been closed by the consumer into a statement cache.  The 
+		 * parameters of the statement, including any registered out parameters for drivers that 
+		 * clear them along with the parameter values, its batch and its warnings are cleared so 
+		 * that a reused statement behaves like a newly prepared statement.  Statements whose 
+		 * options were changed by the consumer are not passed to this method but closed.
+		 * @param statements The statement cache or null if statements are not cached.
+		 * @param key The key of the statement.
+		 * @param statement The statement.
+		 * @return True if the statement was cached or false if it should be closed.
+		 */
+		private <S extends PreparedStatement> boolean cache(StatementCache<S> statements, StatementCache.Key key, S statement) {
+			if (statements == null) {
+				return false;
+			}
+			try {
+				statement.clearParameters();
+				statement.clearBatch();
+				statement.clearWarnings();
+			} catch (SQLException e) {
+				return false;
+			}
+			return statements.put(key, statement);
+		}
+		
+		/**
+		 * Gets the connection wrapped by the pooled connection or throws an exception if the 
+		 * connection has been released to the connection pool. As the timer may expire an idle
+		 * connection up to one tick late, a connection that has been idle for longer than the 
+		 * timeout is released here rather than being handed out again.
+		 * @return The connection wrapped by the pool.
+		 */
+		protected Connection getConnection() {
+			long now = System.currentTimeMillis();
+			if (this.entry.isTimedOut(now)) {
+				try {
+					this.release();
+				} catch (SQLException e) {
+					
+				}
+			}
+			if (this.entry.getGeneration() != this.generation) {
+				throw new IllegalStateException("The connection has already been released to the connection pool."); 
+			}
+			this.entry.touch(now);
+			return this.entry.getConnection();
+		}
+		
+		/**
+		 * Gets the connection wrapped by the pooled connection or null if the connection has
+		 * been released to the connection pool.
+		 * @return The connection wrapped by the pool.
+		 */
+		protected Connection getUncheckedConnection() {
+			return (this.entry.getGeneration() == this.generation ? this.entry.getConnection() : null);
+		}
+		
+		/**
+		 * Releases underlying connection from the pooled connection and returns it to the 
+		 * connection pool.
+		 * @throws SQLException
+		 */
+		private void release() throws SQLException {
+			this.entry.release(this.generation);
+		}
+		
+	}
+	
+	/**
+	 * Wraps an instance of the DatabaseMetaData interface for use within a connection pool. 
+	 * <p>
+	 * Note that this wrapper does not actually pool the underlying database meta data. The only
+	 * additional functionality is as follows:
+	 * 
+	 * <ul>
+	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
+	 * </ul>
+	 * 
+	 * @see com.opower.connectionpool.ConnectionPoolImpl
+	 */
+	private class PooledDatabaseMetaData extends WrappedDatabaseMetaData {
+
+		/**
+		 * Initializes a new instance of the PooledDatabaseMetaData class.
+		 * @param pooledConnection The pooled connection for the pooled database meta data.
+		 * @param databaseMetaData the database meta data for the pooled database meta data.
+		 */
+		public PooledDatabaseMetaData(PooledConnection pooledConnection, DatabaseMetaData databaseMetaData) {
+			super(databaseMetaData);
+			this.pooledConnection = pooledConnection;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getProcedures(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getProcedures(String catalog, String schemaPattern, String procedureNamePattern) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getProcedures(catalog, schemaPattern, procedureNamePattern));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getProcedureColumns(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getProcedureColumns(String catalog, String schemaPattern, String procedureNamePattern, String columnNamePattern) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getProcedureColumns(catalog, schemaPattern, procedureNamePattern, columnNamePattern));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getTables(java.lang.String, java.lang.String, java.lang.String, java.lang.String[])
+		 */
+		public ResultSet getTables(String catalog, String schemaPattern, String tableNamePattern, String[] types) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getTables(catalog, schemaPattern, tableNamePattern, types));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getSchemas()
+		 */
+		public ResultSet getSchemas() throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getSchemas());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getCatalogs()
+		 */
+		public ResultSet getCatalogs() throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getCatalogs());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getTableTypes()
+		 */
+		public ResultSet getTableTypes() throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getTableTypes());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getColumns(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getColumnPrivileges(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getColumnPrivileges(String catalog, String schema, String table, String columnNamePattern) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getColumnPrivileges(catalog, schema, table, columnNamePattern));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getTablePrivileges(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getTablePrivileges(String catalog,	String schemaPattern, String tableNamePattern) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getTablePrivileges(catalog, schemaPattern, tableNamePattern));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getBestRowIdentifier(java.lang.String, java.lang.String, java.lang.String, int, boolean)
+		 */
+		public ResultSet getBestRowIdentifier(String catalog, String schema, String table, int scope, boolean nullable) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getBestRowIdentifier(catalog, schema, table, scope, nullable));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getVersionColumns(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getVersionColumns(String catalog, String schema, String table) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getVersionColumns(catalog, schema, table));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getPrimaryKeys(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getPrimaryKeys(String catalog, String schema, String table) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getPrimaryKeys(catalog, schema, table));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getImportedKeys(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getImportedKeys(String catalog, String schema,	String table) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getImportedKeys(catalog, schema, table));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getExportedKeys(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getExportedKeys(String catalog, String schema,	String table) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getExportedKeys(catalog, schema, table));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getCrossReference(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public ResultSet getCrossReference(String primaryCatalog, String primarySchema, String primaryTable, String foreignCatalog, String foreignSchema, String foreignTable) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getCrossReference(primaryCatalog, primarySchema, primaryTable, foreignCatalog, foreignSchema, foreignTable));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.DatabaseMetaData#getTypeInfo()
 		 */
-		public PooledCallableStatement(PooledConnection pooledConnection, CallableStatement callableStatement) throws SQLException {
-			super(callableStatement);
-			this.pooledConnection = pooledConnection;
-			this.pooledConnection.addPooledConnectionListener(this);
-			if (this.pooledConnection.isClosed()) {
-				this.close();
-			}
+		public ResultSet getTypeInfo() throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getTypeInfo());
 		}
+
 		/*
 		 * (non-Javadoc)
-		 * @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnectionListener#pooledConnectionClosed()
+		 * @see java.sql.DatabaseMetaData#getIndexInfo(java.lang.String, java.lang.String, java.lang.String, boolean, boolean)
 		 */
-		public void pooledConnectionClosed() {
-			try {
-				this.close();
-			} catch (SQLException e) {
-				e.printStackTrace();
-			}
+		public ResultSet getIndexInfo(String catalog, String schema, String table, boolean unique, boolean approximate) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getIndexInfo(catalog, schema, table, unique, approximate));
 		}
-		
+
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.CallableStatement#executeQuery()
+		 * @see java.sql.DatabaseMetaData#getUDTs(java.lang.String, java.lang.String, java.lang.String, int[])
 		 */
-		public ResultSet executeQuery() throws SQLException {
-			return new PooledResultSet(this, this.getCallableStatement().executeQuery());
+		public ResultSet getUDTs(String catalog, String schemaPattern, String typeNamePattern, int[] types) throws SQLException {
+			return new PooledResultSet(null, this.getDatabaseMetaData().getUDTs(catalog, schemaPattern, typeNamePattern, types));
 		}
 
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.CallableStatement#executeQuery(java.lang.String)
+		 * @see java.sql.DatabaseMetaData#getConnection()
 		 */
-		public ResultSet executeQuery(String sql) throws SQLException {
-			return new PooledResultSet(this, this.getCallableStatement().executeQuery(sql));
+		public Connection getConnection() throws SQLException {
+			return this.pooledConnection;
 		}
-		
+
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.CallableStatement#getResultSet()
+		 * @see java.sql.DatabaseMetaData#getSuperTypes(java.lang.String, java.lang.String, java.lang.String)
 		 */
-		public ResultSet getResultSet() throws SQLException {
-			return new PooledResultSet(this, this.getCallableStatement().getResultSet());
+		public ResultSet getSuperTypes(String catalog, String schemaPattern, String typeNamePattern) throws SQLException {
+			return this.getDatabaseMetaData().getSuperTypes(catalog, schemaPattern, typeNamePattern);
 		}
-		
+
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.CallableStatement#getConnection()
+		 * @see java.sql.DatabaseMetaData#getSuperTables(java.lang.String, java.lang.String, java.lang.String)
 		 */
-		public Connection getConnection() throws SQLException {
-			return this.pooledConnection;
+		public ResultSet getSuperTables(String catalog, String schemaPattern, String tableNamePattern) throws SQLException {
+			return this.getDatabaseMetaData().getSuperTables(catalog, schemaPattern, tableNamePattern);
 		}
-		
+
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.CallableStatement#getGeneratedKeys()
+		 * @see java.sql.DatabaseMetaData#getAttributes(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
 		 */
-		public ResultSet getGeneratedKeys() throws SQLException {
-			return new PooledResultSet(this, this.getCallableStatement().getGeneratedKeys());
+		public ResultSet getAttributes(String catalog, String schemaPattern, String typeNamePattern, String attributeNamePattern) throws SQLException {
+			return this.getDatabaseMetaData().getAttributes(catalog, schemaPattern, typeNamePattern, attributeNamePattern);
 		}
 		
 		private PooledConnection pooledConnection;
@@ -326,565 +3551,565 @@ public class ConnectionPoolImpl implements ConnectionPool {
 	}
 	
 	/**
-	 * Wraps an instance of the Connection interface for use within a connection pool.
-	 * 
-	 * While this wrapper delegates most methods to the underlying connection, the following methods
-	 * have custom functionality:
-	 * 
-	 * <ul>
-	 * <li> @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnection#close - Releases the 
-	 * underlying connection to the connection pool and so that is is no longer available from the 
-	 * pooled connection.
-	 * <li> @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnection#isClosed - Indicates 
-	 * whether the underlying connection is closed or has been released to the connection pool. 
-	 * </ul>
-	 * 
-	 * Additionally, any method that returns the following types wraps the return value from the 
-	 * underlying connection in another wrapper to prevent direct access to the underlying connection:
+	 * Wraps an instance of the PreparedStatement interface for use within a connection pool. 
+	 * <p>
+	 * The additional functionality is as follows:
 	 * 
 	 * <ul>
-	 * <li> @see java.sql.DatabaseMetaData - Wrapped in a {@link PooledDatabaseMetaData}.
-	 * <li> @see java.sql.CallableStatement - Wrapped in a {@link PooledCallableStatement}.
-	 * <li> @see java.sql.PreparedStatement - Wrapped in a {@link PooledPreparedStatement}.
-	 * <li> @see java.sql.ResultSet - Wrapped in a {@link PooledResultSet}.
-	 * <li> @see java.sql.Statement - Wrapped in a {@link PooledStatement}.
+	 * <li>Returns the underlying prepared statement to the prepared statement cache of its 
+	 * connection when closed, if the connection pool caches prepared statements and none of its
+	 * options, such as the maximum number of rows or the query timeout, were changed.
+	 * <li>Attempts to close the underlying prepared statement if the corresponding connection is
+	 * released. However, it is recommended that unused resources be closed when no longer in use.
+	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
+	 * <li>Records the execution time of the statement in the SQL statistics and the slow query log of
+	 * the connection pool, if any.
+	 * <li>Marks its connection as dirty when it is executed, so that an open transaction is rolled
+	 * back when the connection is released.
+	 * <li>Remembers the values bound to its parameters while the connection pool has a slow query log.
 	 * </ul>
 	 * 
-	 * Lastly, this implementation supports pooled connection listeners and notifies them when the 
-	 * connection is closed (i.e., released to the connection pool).
-	 * 
 	 * @see com.opower.connectionpool.ConnectionPoolImpl
 	 */
-	private class PooledConnection extends WrappedConnection {
-		
-		/**
-		 * Initializes a new instance of the PooledConnection class.
-		 * @param connection The connection wrapped by the pooled connection.
-		 * @param timeout The number of milliseconds before the idle connection is automatically released to the connection pool. This value must be greater than or equal to zero.  A value of zero will disable automatic timeouts.
-		 */
-		public PooledConnection(Connection connection, long timeout) {
-			super(connection);
-			this.last = new AtomicLong(System.currentTimeMillis());
-			this.released = new AtomicBoolean(false);
-			this.listeners = new EventListenerList();
-			this.timeout = timeout;
-			if (this.timeout > 0) {
-				this.timer = new Timer(true);
-				this.timer.schedule(new TimeoutTask(), this.timeout);
-			}
-		}		
-		
-		/**
-		 * Gets the connection pool to which the pooled connection belongs.
-		 * @return The connection pool to which the pooled connection belongs.
-		 */
-		private ConnectionPool getConnectionPool() {
-			return ConnectionPoolImpl.this;
-		}
-		
+	private class PooledPreparedStatement extends WrappedPreparedStatement {
+
 		/**
-		 * Adds a pooled connection event listener to the pooled connection.
-		 * @param listener The pooled connection event listener to add.
+		 * Initializes a new instance of the PooledPreparedStatement class.
+		 * @param pooledConnection The pooled connection for the pooled prepared statement.
+		 * @param preparedStatement The prepared statement wrapped by the pooled prepared statement.
+		 * @param sql The SQL text of the prepared statement.
+		 * @param key The key under which the prepared statement is cached or null if it is not to be cached.
 		 */
-		public void addPooledConnectionListener(PooledConnectionListener listener) {
-			this.listeners.add(PooledConnectionListener.class, listener);
+		public PooledPreparedStatement(PooledConnection pooledConnection, PreparedStatement preparedStatement, String sql, StatementCache.Key key) throws SQLException {
+			super(preparedStatement);
+			this.pooledConnection = pooledConnection;
+			this.sql = sql;
+			this.key = key;
+			if (ConnectionPoolImpl.this.slowQueryLog != null) {
+				this.parameters = new BindParameters();
+			}
+			this.slot = this.pooledConnection.register(this);
+			if (this.pooledConnection.isClosed()) {
+				this.close();
+			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#createStatement()
+		 * @see java.sql.PreparedStatement#close()
 		 */
-		public Statement createStatement() throws SQLException {
-			return new PooledStatement(this, this.getConnection().createStatement());
+		public void close() throws SQLException {
+			this.pooledConnection.unregister(this.slot, this);
+			PreparedStatement preparedStatement = super.getPreparedStatement();
+			if (preparedStatement != null) {
+				this.setPreparedStatement(null);
+				if (this.key == null || this.modified || !this.pooledConnection.cachePreparedStatement(this.key, preparedStatement)) {
+					preparedStatement.close();
+				}
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareStatement(java.lang.String)
+		 * @see java.sql.PreparedStatement#setMaxFieldSize(int)
 		 */
-		public PreparedStatement prepareStatement(String sql) throws SQLException {
-			return new PooledPreparedStatement(this, this.getConnection().prepareStatement(sql));
+		public void setMaxFieldSize(int max) throws SQLException {
+			this.getPreparedStatement().setMaxFieldSize(max);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareCall(java.lang.String)
+		 * @see java.sql.PreparedStatement#setMaxRows(int)
 		 */
-		public CallableStatement prepareCall(String sql) throws SQLException {
-			return new PooledCallableStatement(this, this.getConnection().prepareCall(sql));
+		public void setMaxRows(int max) throws SQLException {
+			this.getPreparedStatement().setMaxRows(max);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#close()
+		 * @see java.sql.PreparedStatement#setEscapeProcessing(boolean)
 		 */
-		public void close() throws SQLException {
-			ConnectionPoolImpl.this.releaseConnection(this);
+		public void setEscapeProcessing(boolean enable) throws SQLException {
+			this.getPreparedStatement().setEscapeProcessing(enable);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#isClosed()
+		 * @see java.sql.PreparedStatement#setQueryTimeout(int)
 		 */
-		public boolean isClosed() throws SQLException {
-			Connection connection = this.getUncheckedConnection();
-			return (this.released.get() || connection == null || connection.isClosed());
+		public void setQueryTimeout(int seconds) throws SQLException {
+			this.getPreparedStatement().setQueryTimeout(seconds);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#getMetaData()
+		 * @see java.sql.PreparedStatement#setCursorName(java.lang.String)
 		 */
-		public DatabaseMetaData getMetaData() throws SQLException {
-			return new PooledDatabaseMetaData(this, this.getConnection().getMetaData());
+		public void setCursorName(String name) throws SQLException {
+			this.getPreparedStatement().setCursorName(name);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#createStatement(int, int)
+		 * @see java.sql.PreparedStatement#setFetchDirection(int)
 		 */
-		public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
-			return new PooledStatement(this, this.getConnection().createStatement(resultSetType, resultSetConcurrency));
+		public void setFetchDirection(int direction) throws SQLException {
+			this.getPreparedStatement().setFetchDirection(direction);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int)
+		 * @see java.sql.PreparedStatement#setFetchSize(int)
 		 */
-		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-			return new PooledPreparedStatement(this, this.getConnection().prepareStatement(sql, resultSetType, resultSetConcurrency));
+		public void setFetchSize(int rows) throws SQLException {
+			this.getPreparedStatement().setFetchSize(rows);
+			this.modified = true;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int)
+		 * @see java.sql.PreparedStatement#executeQuery()
 		 */
-		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-			return new PooledCallableStatement(this, this.getConnection().prepareCall(sql, resultSetType, resultSetConcurrency));
+		public ResultSet executeQuery() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			ResultSet resultSet = this.getPreparedStatement().executeQuery();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, 0);
+			return new PooledResultSet(this, resultSet, this.statistics);
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#createStatement(int, int, int)
+		 * @see java.sql.PreparedStatement#executeUpdate()
 		 */
-		public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-			return new PooledStatement(this, this.getConnection().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+		public int executeUpdate() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int rows = this.getPreparedStatement().executeUpdate();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, rows);
+			return rows;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int, int)
+		 * @see java.sql.PreparedStatement#execute()
 		 */
-		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-			return new PooledPreparedStatement(this, this.getConnection().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+		public boolean execute() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			boolean result = this.getPreparedStatement().execute();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, ConnectionPoolImpl.getUpdateCount(this.getPreparedStatement(), result, start));
+			return result;
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int, int)
+		 * @see java.sql.PreparedStatement#executeBatch()
 		 */
-		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-			return new PooledCallableStatement(this, this.getConnection().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+		public int[] executeBatch() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int[] updateCounts = this.getPreparedStatement().executeBatch();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(this.sql, this.parameters, start, ConnectionPoolImpl.getUpdateCount(updateCounts));
+			return updateCounts;
 		}
 
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int)
+		 * @see java.sql.PreparedStatement#executeQuery(java.lang.String)
 		 */
-		public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
-			return new PooledPreparedStatement(this, this.getConnection().prepareStatement(sql, autoGeneratedKeys));
+		public ResultSet executeQuery(String sql) throws SQLException {
+			return new PooledResultSet(this, this.getPreparedStatement().executeQuery(sql));
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int[])
+		 * @see java.sql.PreparedStatement#getResultSet()
 		 */
-		public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
-			return new PooledPreparedStatement(this, this.getConnection().prepareStatement(sql, columnIndexes));
+		public ResultSet getResultSet() throws SQLException {
+			return new PooledResultSet(this, this.getPreparedStatement().getResultSet(), this.statistics);
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, java.lang.String[])
-		 */
-		public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
-			return new PooledPreparedStatement(this, this.getConnection().prepareStatement(sql, columnNames));
-		}
-		
-		private AtomicLong last;
-		private AtomicBoolean released;
-		private long timeout;
-		private Timer timer;
-		private EventListenerList listeners;
-		
-		/**
-		 * Gets the connection wrapped by the pooled connection or throws an exception if the 
-		 * connection has been released to the connection pool.
-		 * @return The connection wrapped by the pool.
-		 */
-		protected Connection getConnection() {
-			this.last.set(System.currentTimeMillis());
-			Connection connection = this.getUncheckedConnection();
-			if (this.released.get()) {
-				throw new IllegalStateException("The connection has already been released to the connection pool."); 
-			}
-			return connection;
-		}
-		
-		/**
-		 * Gets the connection wrapped by the pooled connection or null if the connection has
-		 * been released to the connection pool.
-		 * @return The connection wrapped by the pool.
-		 */
-		protected Connection getUncheckedConnection() {
-			return super.getConnection();
-		}
-		
-		/**
-		 * Releases underlying connection from the pooled connection and returns its value.
-		 * @return The underlying connection;
+		 * @see java.sql.PreparedStatement#getConnection()
 		 */
-		private Connection release() {
-			Connection connection = null;
-			if (!this.released.getAndSet(true)) {
-				connection = this.getUncheckedConnection();
-				this.setConnection(null);
-				PooledConnectionListener[] listeners = this.listeners.getListeners(PooledConnectionListener.class);
-				for (PooledConnectionListener listener : listeners) {
-					listener.pooledConnectionClosed();
-				}
-			}
-			return connection;
+		public Connection getConnection() throws SQLException {
+			return this.pooledConnection;
 		}
 		
-		/**
-		 * Provides a timer task that automatically releases idle pooled connections to the connection pool.
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#getGeneratedKeys()
 		 */
-		private class TimeoutTask extends TimerTask {
-
-			/*
-			 * (non-Javadoc)
-			 * @see java.util.TimerTask#run()
-			 */
-			@Override
-			public void run() {
-				PooledConnection connection = PooledConnection.this;
-				long delay = connection.timeout - (System.currentTimeMillis() - connection.last.get());
-				if (delay > 0) {
-					connection.timer.schedule(new TimeoutTask(), delay);
-				} else {
-					connection.timer.cancel();
-					try {
-						connection.getConnectionPool().releaseConnection(connection);
-					} catch (SQLException e) {
-						
-					}
-				}
-			}
-			
+		public ResultSet getGeneratedKeys() throws SQLException {
+			return new PooledResultSet(this, this.getPreparedStatement().getGeneratedKeys());
 		}
 		
-	}
-	
-	/**
-	 * Provides an interface for classes that listen to pooled connections.
-	 */
-	private interface PooledConnectionListener extends EventListener {
-		
-		/**
-		 * Called when a pooled connection is closed or released.
-		 */
-		public void pooledConnectionClosed();
-		
-	}
-
-	/**
-	 * Wraps an instance of the DatabaseMetaData interface for use within a connection pool. 
-	 * <p>
-	 * Note that this wrapper does not actually pool the underlying database meta data. The only
-	 * additional functionality is as follows:
-	 * 
-	 * <ul>
-	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
-	 * </ul>
-	 * 
-	 * @see com.opower.connectionpool.ConnectionPoolImpl
-	 */
-	private class PooledDatabaseMetaData extends WrappedDatabaseMetaData {
-
-		/**
-		 * Initializes a new instance of the PooledDatabaseMetaData class.
-		 * @param pooledConnection The pooled connection for the pooled database meta data.
-		 * @param databaseMetaData the database meta data for the pooled database meta data.
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setNull(int, int)
 		 */
-		public PooledDatabaseMetaData(PooledConnection pooledConnection, DatabaseMetaData databaseMetaData) {
-			super(databaseMetaData);
-			this.pooledConnection = pooledConnection;
+		public void setNull(int parameterIndex, int sqlType) throws SQLException {
+			this.getPreparedStatement().setNull(parameterIndex, sqlType);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, BindParameters.NULL);
+			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getProcedures(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setBoolean(int, boolean)
 		 */
-		public ResultSet getProcedures(String catalog, String schemaPattern, String procedureNamePattern) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getProcedures(catalog, schemaPattern, procedureNamePattern));
+		public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+			this.getPreparedStatement().setBoolean(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getProcedureColumns(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setByte(int, byte)
 		 */
-		public ResultSet getProcedureColumns(String catalog, String schemaPattern, String procedureNamePattern, String columnNamePattern) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getProcedureColumns(catalog, schemaPattern, procedureNamePattern, columnNamePattern));
+		public void setByte(int parameterIndex, byte x) throws SQLException {
+			this.getPreparedStatement().setByte(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getTables(java.lang.String, java.lang.String, java.lang.String, java.lang.String[])
+		 * @see java.sql.PreparedStatement#setShort(int, short)
 		 */
-		public ResultSet getTables(String catalog, String schemaPattern, String tableNamePattern, String[] types) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getTables(catalog, schemaPattern, tableNamePattern, types));
+		public void setShort(int parameterIndex, short x) throws SQLException {
+			this.getPreparedStatement().setShort(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getSchemas()
+		 * @see java.sql.PreparedStatement#setInt(int, int)
 		 */
-		public ResultSet getSchemas() throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getSchemas());
+		public void setInt(int parameterIndex, int x) throws SQLException {
+			this.getPreparedStatement().setInt(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getCatalogs()
+		 * @see java.sql.PreparedStatement#setLong(int, long)
 		 */
-		public ResultSet getCatalogs() throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getCatalogs());
+		public void setLong(int parameterIndex, long x) throws SQLException {
+			this.getPreparedStatement().setLong(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getTableTypes()
+		 * @see java.sql.PreparedStatement#setFloat(int, float)
 		 */
-		public ResultSet getTableTypes() throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getTableTypes());
+		public void setFloat(int parameterIndex, float x) throws SQLException {
+			this.getPreparedStatement().setFloat(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getColumns(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setDouble(int, double)
 		 */
-		public ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern));
+		public void setDouble(int parameterIndex, double x) throws SQLException {
+			this.getPreparedStatement().setDouble(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getColumnPrivileges(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setBigDecimal(int, java.math.BigDecimal)
 		 */
-		public ResultSet getColumnPrivileges(String catalog, String schema, String table, String columnNamePattern) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getColumnPrivileges(catalog, schema, table, columnNamePattern));
+		public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+			this.getPreparedStatement().setBigDecimal(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getTablePrivileges(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setString(int, java.lang.String)
 		 */
-		public ResultSet getTablePrivileges(String catalog,	String schemaPattern, String tableNamePattern) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getTablePrivileges(catalog, schemaPattern, tableNamePattern));
+		public void setString(int parameterIndex, String x) throws SQLException {
+			this.getPreparedStatement().setString(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getBestRowIdentifier(java.lang.String, java.lang.String, java.lang.String, int, boolean)
+		 * @see java.sql.PreparedStatement#setBytes(int, byte[])
 		 */
-		public ResultSet getBestRowIdentifier(String catalog, String schema, String table, int scope, boolean nullable) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getBestRowIdentifier(catalog, schema, table, scope, nullable));
+		public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+			this.getPreparedStatement().setBytes(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getVersionColumns(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date)
 		 */
-		public ResultSet getVersionColumns(String catalog, String schema, String table) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getVersionColumns(catalog, schema, table));
+		public void setDate(int parameterIndex, Date x) throws SQLException {
+			this.getPreparedStatement().setDate(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getPrimaryKeys(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time)
 		 */
-		public ResultSet getPrimaryKeys(String catalog, String schema, String table) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getPrimaryKeys(catalog, schema, table));
+		public void setTime(int parameterIndex, Time x) throws SQLException {
+			this.getPreparedStatement().setTime(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getImportedKeys(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp)
 		 */
-		public ResultSet getImportedKeys(String catalog, String schema,	String table) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getImportedKeys(catalog, schema, table));
+		public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+			this.getPreparedStatement().setTimestamp(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getExportedKeys(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream, int)
 		 */
-		public ResultSet getExportedKeys(String catalog, String schema,	String table) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getExportedKeys(catalog, schema, table));
+		public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			this.getPreparedStatement().setAsciiStream(parameterIndex, x, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getCrossReference(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setUnicodeStream(int, java.io.InputStream, int)
 		 */
-		public ResultSet getCrossReference(String primaryCatalog, String primarySchema, String primaryTable, String foreignCatalog, String foreignSchema, String foreignTable) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getCrossReference(primaryCatalog, primarySchema, primaryTable, foreignCatalog, foreignSchema, foreignTable));
+		@Deprecated
+		public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			this.getPreparedStatement().setUnicodeStream(parameterIndex, x, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getTypeInfo()
+		 * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, int)
 		 */
-		public ResultSet getTypeInfo() throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getTypeInfo());
+		public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			this.getPreparedStatement().setBinaryStream(parameterIndex, x, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getIndexInfo(java.lang.String, java.lang.String, java.lang.String, boolean, boolean)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int, int)
 		 */
-		public ResultSet getIndexInfo(String catalog, String schema, String table, boolean unique, boolean approximate) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getIndexInfo(catalog, schema, table, unique, approximate));
+		public void setObject(int parameterIndex, Object x, int targetSqlType, int scale) throws SQLException {
+			this.getPreparedStatement().setObject(parameterIndex, x, targetSqlType, scale);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getUDTs(java.lang.String, java.lang.String, java.lang.String, int[])
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int)
 		 */
-		public ResultSet getUDTs(String catalog, String schemaPattern, String typeNamePattern, int[] types) throws SQLException {
-			return new PooledResultSet(null, this.getDatabaseMetaData().getUDTs(catalog, schemaPattern, typeNamePattern, types));
+		public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+			this.getPreparedStatement().setObject(parameterIndex, x, targetSqlType);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getConnection()
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object)
 		 */
-		public Connection getConnection() throws SQLException {
-			return this.pooledConnection;
+		public void setObject(int parameterIndex, Object x) throws SQLException {
+			this.getPreparedStatement().setObject(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getSuperTypes(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, int)
 		 */
-		public ResultSet getSuperTypes(String catalog, String schemaPattern, String typeNamePattern) throws SQLException {
-			return this.getDatabaseMetaData().getSuperTypes(catalog, schemaPattern, typeNamePattern);
+		public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+			this.getPreparedStatement().setCharacterStream(parameterIndex, reader, length);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, reader);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getSuperTables(java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setRef(int, java.sql.Ref)
 		 */
-		public ResultSet getSuperTables(String catalog, String schemaPattern, String tableNamePattern) throws SQLException {
-			return this.getDatabaseMetaData().getSuperTables(catalog, schemaPattern, tableNamePattern);
+		public void setRef(int i, Ref x) throws SQLException {
+			this.getPreparedStatement().setRef(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.DatabaseMetaData#getAttributes(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+		 * @see java.sql.PreparedStatement#setBlob(int, java.sql.Blob)
 		 */
-		public ResultSet getAttributes(String catalog, String schemaPattern, String typeNamePattern, String attributeNamePattern) throws SQLException {
-			return this.getDatabaseMetaData().getAttributes(catalog, schemaPattern, typeNamePattern, attributeNamePattern);
+		public void setBlob(int i, Blob x) throws SQLException {
+			this.getPreparedStatement().setBlob(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
 		}
 		
-		private PooledConnection pooledConnection;
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setClob(int, java.sql.Clob)
+		 */
+		public void setClob(int i, Clob x) throws SQLException {
+			this.getPreparedStatement().setClob(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
+			}
+		}
 		
-	}
-	
-	/**
-	 * Wraps an instance of the PreparedStatement interface for use within a connection pool. 
-	 * <p>
-	 * Note that this wrapper does not actually pool the underlying prepared statement. The only
-	 * additional functionality is as follows:
-	 * 
-	 * <ul>
-	 * <li>Attempts to close the underlying prepared statement if the corresponding connection is
-	 * released. However, it is recommended that unused resources be closed when no longer in use.
-	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
-	 * </ul>
-	 * 
-	 * @see com.opower.connectionpool.ConnectionPoolImpl
-	 */
-	private class PooledPreparedStatement extends WrappedPreparedStatement implements PooledConnectionListener {
-
-		/**
-		 * Initializes a new instance of the PooledPreparedStatement class.
-		 * @param pooledConnection The pooled connection for the pooled prepared statement.
-		 * @param preparedStatement The prepared statement wrapped by the pooled prepared statement.
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.PreparedStatement#setArray(int, java.sql.Array)
 		 */
-		public PooledPreparedStatement(PooledConnection pooledConnection, PreparedStatement preparedStatement) throws SQLException {
-			super(preparedStatement);
-			this.pooledConnection = pooledConnection;
-			this.pooledConnection.addPooledConnectionListener(this);
-			if (this.pooledConnection.isClosed()) {
-				this.close();
+		public void setArray(int i, Array x) throws SQLException {
+			this.getPreparedStatement().setArray(i, x);
+			if (this.parameters != null) {
+				this.parameters.set(i, x);
 			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnectionListener#pooledConnectionClosed()
+		 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date, java.util.Calendar)
 		 */
-		public void pooledConnectionClosed() {
-			try {
-				this.close();
-			} catch (SQLException e) {
-				e.printStackTrace();
+		public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+			this.getPreparedStatement().setDate(parameterIndex, x, cal);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
 			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.PreparedStatement#executeQuery()
+		 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time, java.util.Calendar)
 		 */
-		public ResultSet executeQuery() throws SQLException {
-			return new PooledResultSet(this, this.getPreparedStatement().executeQuery());
+		public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+			this.getPreparedStatement().setTime(parameterIndex, x, cal);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
-
+		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.PreparedStatement#executeQuery(java.lang.String)
+		 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp, java.util.Calendar)
 		 */
-		public ResultSet executeQuery(String sql) throws SQLException {
-			return new PooledResultSet(this, this.getPreparedStatement().executeQuery(sql));
+		public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+			this.getPreparedStatement().setTimestamp(parameterIndex, x, cal);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.PreparedStatement#getResultSet()
+		 * @see java.sql.PreparedStatement#setNull(int, int, java.lang.String)
 		 */
-		public ResultSet getResultSet() throws SQLException {
-			return new PooledResultSet(this, this.getPreparedStatement().getResultSet());
+		public void setNull(int paramIndex, int sqlType, String typeName) throws SQLException {
+			this.getPreparedStatement().setNull(paramIndex, sqlType, typeName);
+			if (this.parameters != null) {
+				this.parameters.set(paramIndex, BindParameters.NULL);
+			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.PreparedStatement#getConnection()
+		 * @see java.sql.PreparedStatement#setURL(int, java.net.URL)
 		 */
-		public Connection getConnection() throws SQLException {
-			return this.pooledConnection;
+		public void setURL(int parameterIndex, URL x) throws SQLException {
+			this.getPreparedStatement().setURL(parameterIndex, x);
+			if (this.parameters != null) {
+				this.parameters.set(parameterIndex, x);
+			}
 		}
 		
 		/*
 		 * (non-Javadoc)
-		 * @see java.sql.PreparedStatement#getGeneratedKeys()
+		 * @see java.sql.PreparedStatement#clearParameters()
 		 */
-		public ResultSet getGeneratedKeys() throws SQLException {
-			return new PooledResultSet(this, this.getPreparedStatement().getGeneratedKeys());
+		public void clearParameters() throws SQLException {
+			this.getPreparedStatement().clearParameters();
+			if (this.parameters != null) {
+				this.parameters.clear();
+			}
+		}
+		
+		/**
+		 * Gets the prepared statement wrapped by the pooled prepared statement or throws an 
+		 * exception if the pooled prepared statement has been closed.
+		 * @return The prepared statement wrapped by the pooled prepared statement.
+		 */
+		protected PreparedStatement getPreparedStatement() {
+			PreparedStatement preparedStatement = super.getPreparedStatement();
+			if (preparedStatement == null) {
+				throw new IllegalStateException("The statement has already been closed.");
+			}
+			return preparedStatement;
 		}
 		
 		private PooledConnection pooledConnection;
+		private String sql;
+		private StatementCache.Key key;
+		private int slot;
+		private SqlStatistics.Entry statistics;
+		private BindParameters parameters;
+		private boolean modified;
 		
 	}
 	
@@ -896,6 +4121,7 @@ public class ConnectionPoolImpl implements ConnectionPool {
 	 * 
 	 * <ul>
 	 * <li>Prevents direct access to the physical statement through calls to {@link #getStatement()}.
+	 * <li>Counts the rows it reads in the SQL statistics of its statement, if any.
 	 * </ul>
 	 * 
 	 * @see com.opower.connectionpool.ConnectionPoolImpl
@@ -908,8 +4134,31 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		 * @param resultSet The result set wrapped by the pooled result set.
 		 */
 		public PooledResultSet(Statement statement, ResultSet resultSet) {
+			this(statement, resultSet, null);
+		}
+		
+		/**
+		 * Initializes a new instance of the PooledResultSet class that counts the rows it reads.
+		 * @param statement The statement to be returned for calls to {@link #getStatement()}.
+		 * @param resultSet The result set wrapped by the pooled result set.
+		 * @param statistics The statistics of the statement to which the rows read are added or null.
+		 */
+		public PooledResultSet(Statement statement, ResultSet resultSet, SqlStatistics.Entry statistics) {
 			super(resultSet);
-			this.statement = statement; 
+			this.statement = statement;
+			this.statistics = statistics;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.ResultSet#next()
+		 */
+		public boolean next() throws SQLException {
+			boolean next = super.next();
+			if (next && this.statistics != null) {
+				this.statistics.addRows(1);
+			}
+			return next;
 		}
 
 		/*
@@ -921,6 +4170,7 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		}
 		
 		private Statement statement;
+		private SqlStatistics.Entry statistics;
 		
 	}
 	
@@ -935,11 +4185,16 @@ public class ConnectionPoolImpl implements ConnectionPool {
 	 * However, it is recommended that unused resources be closed when no longer in use.
 	 * <li>Prevents direct access to the physical connection through calls to {@link #getConnection()}.
 	 * Instead a {@link com.opower.connectionpool.ConnectionPoolImpl.PooledConnection} is returned.
+	 * <li>Records the execution time of the statement in the SQL statistics and the slow query log of
+	 * the connection pool, if any.  Batches are recorded as a whole under the SQL text 
+	 * <code>&lt;batch&gt;</code>.
+	 * <li>Marks its connection as dirty when it is executed, so that an open transaction is rolled
+	 * back when the connection is released.
 	 * </ul>
 	 * 
 	 * @see com.opower.connectionpool.ConnectionPoolImpl
 	 */
-	private class PooledStatement extends WrappedStatement implements PooledConnectionListener {
+	private class PooledStatement extends WrappedStatement {
 		
 		/**
 		 * Initializes a new instance of the PooledStatement class.
@@ -950,7 +4205,7 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		public PooledStatement(PooledConnection pooledConnection, Statement statement) throws SQLException {
 			super(statement);
 			this.pooledConnection = pooledConnection;
-			this.pooledConnection.addPooledConnectionListener(this);
+			this.slot = this.pooledConnection.register(this);
 			if (this.pooledConnection.isClosed()) {
 				this.close();
 			}
@@ -958,14 +4213,11 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		
 		/*
 		 * (non-Javadoc)
-		 * @see com.opower.connectionpool.ConnectionPoolImpl.PooledConnectionListener#pooledConnectionClosed()
+		 * @see java.sql.Statement#close()
 		 */
-		public void pooledConnectionClosed() {
-			try {
-				this.close();
-			} catch (SQLException e) {
-				e.printStackTrace();
-			}
+		public void close() throws SQLException {
+			this.pooledConnection.unregister(this.slot, this);
+			super.close();
 		}
 		
 		/*
@@ -973,7 +4225,109 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		 * @see java.sql.Statement#executeQuery(java.lang.String)
 		 */
 		public ResultSet executeQuery(String sql) throws SQLException {
-			return new PooledResultSet(this, this.getStatement().executeQuery(sql));
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			ResultSet resultSet = this.getStatement().executeQuery(sql);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, 0);
+			return new PooledResultSet(this, resultSet, this.statistics);
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#executeUpdate(java.lang.String)
+		 */
+		public int executeUpdate(String sql) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int rows = this.getStatement().executeUpdate(sql);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, rows);
+			return rows;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#executeUpdate(java.lang.String, int)
+		 */
+		public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int rows = this.getStatement().executeUpdate(sql, autoGeneratedKeys);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, rows);
+			return rows;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#executeUpdate(java.lang.String, int[])
+		 */
+		public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int rows = this.getStatement().executeUpdate(sql, columnIndexes);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, rows);
+			return rows;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#executeUpdate(java.lang.String, java.lang.String[])
+		 */
+		public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int rows = this.getStatement().executeUpdate(sql, columnNames);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, rows);
+			return rows;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#execute(java.lang.String)
+		 */
+		public boolean execute(String sql) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			boolean result = this.getStatement().execute(sql);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, ConnectionPoolImpl.getUpdateCount(this.getStatement(), result, start));
+			return result;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#execute(java.lang.String, int)
+		 */
+		public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			boolean result = this.getStatement().execute(sql, autoGeneratedKeys);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, ConnectionPoolImpl.getUpdateCount(this.getStatement(), result, start));
+			return result;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#execute(java.lang.String, int[])
+		 */
+		public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			boolean result = this.getStatement().execute(sql, columnIndexes);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, ConnectionPoolImpl.getUpdateCount(this.getStatement(), result, start));
+			return result;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#execute(java.lang.String, java.lang.String[])
+		 */
+		public boolean execute(String sql, String[] columnNames) throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			boolean result = this.getStatement().execute(sql, columnNames);
+			this.statistics = ConnectionPoolImpl.this.finishExecution(sql, null, start, ConnectionPoolImpl.getUpdateCount(this.getStatement(), result, start));
+			return result;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Statement#executeBatch()
+		 */
+		public int[] executeBatch() throws SQLException {
+			long start = ConnectionPoolImpl.this.startExecution(this.pooledConnection);
+			int[] updateCounts = this.getStatement().executeBatch();
+			this.statistics = ConnectionPoolImpl.this.finishExecution(ConnectionPoolImpl.BATCH, null, start, ConnectionPoolImpl.getUpdateCount(updateCounts));
+			return updateCounts;
 		}
 		
 		/*
@@ -981,7 +4335,7 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		 * @see java.sql.Statement#getResultSet()
 		 */
 		public ResultSet getResultSet() throws SQLException {
-			return new PooledResultSet(this, this.getStatement().getResultSet());
+			return new PooledResultSet(this, this.getStatement().getResultSet(), this.statistics);
 		}
 		
 		/*
@@ -1001,6 +4355,8 @@ public class ConnectionPoolImpl implements ConnectionPool {
 		}
 
 		private PooledConnection pooledConnection;
+		private int slot;
+		private SqlStatistics.Entry statistics;
 		
 	}
 		
@@ -0,0 +1,104 @@
+package com.opower.connectionpool;
+
+import java.sql.SQLException;
+
+/**
+ * Exposes the live statistics of a connection pool through JMX.
+ * <p>
+ * The connection counts are sampled when they are read and the event counts are totals since the
+ * connection pool was constructed.  Every attribute is of a primitive type, so the interface can
+ * be registered as a standard MBean as well as an MXBean.  The minimum and maximum number of 
+ * connections can be changed, so that the capacity of the connection pool can be adjusted without
+ * restarting the consumer; every other attribute is read only.
+ *
+ * @author Joshua Mark Rutherford
+ * @see ConnectionPoolImpl#setObjectName(javax.management.ObjectName)
+ */
+public interface ConnectionPoolMXBean {
+
+	/**
+	 * Gets the number of connections that are borrowed by consumers.
+	 * @return The number of active connections.
+	 */
+	int getActiveConnections();
+
+	/**
+	 * Gets the number of connections that are in the connection pool and not in use.
+	 * @return The number of idle connections.
+	 */
+	int getIdleConnections();
+
+	/**
+	 * Gets the total number of connections, whether they are active or idle.
+	 * @return The current number of connections.
+	 */
+	int getCurrentConnections();
+
+	/**
+	 * Gets the minimum number of connections in the connection pool.
+	 * @return The minimum number of connections.
+	 */
+	int getMinimumConnections();
+
+	/**
+	 * Sets the minimum number of connections in the connection pool.
+	 * @param minimumConnections The minimum number of connections.
+	 * @throws SQLException Thrown if a connection could not be opened to meet the new minimum.
+	 * @see ConnectionPoolImpl#setMinimumConnections(int)
+	 */
+	void setMinimumConnections(int minimumConnections) throws SQLException;
+
+	/**
+	 * Gets the maximum number of connections in the connection pool.
+	 * @return The maximum number of connections.
+	 */
+	int getMaximumConnections();
+
+	/**
+	 * Sets the maximum number of connections in the connection pool.
+	 * @param maximumConnections The maximum number of connections.
+	 * @throws SQLException Thrown if a connection could not be created for a waiting consumer.
+	 * @see ConnectionPoolImpl#setMaximumConnections(int)
+	 */
+	void setMaximumConnections(int maximumConnections) throws SQLException;
+
+	/**
+	 * Gets the number of threads that are waiting for a connection.
+	 * @return The number of waiting threads.
+	 */
+	int getWaitingThreads();
+
+	/**
+	 * Gets the number of connections that have been handed to consumers.
+	 * @return The number of borrows.
+	 */
+	long getBorrowCount();
+
+	/**
+	 * Gets the number of requests for a connection that failed because no connection became
+	 * available in time.
+	 * @return The number of timeouts.
+	 */
+	long getTimeoutCount();
+
+	/**
+	 * Gets the number of physical connections that have been opened.
+	 * @return The number of creations.
+	 */
+	long getCreationCount();
+
+	/**
+	 * Gets the number of physical connections that have been removed from the connection pool and
+	 * closed.
+	 * @return The number of destructions.
+	 */
+	long getDestructionCount();
+
+	/**
+	 * Gets the number of times a connection was rejected by the validator, either before it was
+	 * handed to a consumer or by the keepalive of the maintenance task.
+	 * @return The number of validation failures.
+	 */
+	long getValidationFailureCount();
+
+}
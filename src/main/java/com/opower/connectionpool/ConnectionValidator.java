@@ -0,0 +1,119 @@
+package com.opower.connectionpool;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Decides whether a physical connection is still usable before it is handed to a consumer.
+ * <p>
+ * The following validators are provided:
+ *
+ * <ul>
+ * <li>{@link #NONE} does not validate connections at all.
+ * <li>{@link #IS_CLOSED} calls {@link Connection#isClosed()}. This is cheap but usually only
+ * detects connections that have been closed explicitly, not sockets that have been dropped.
+ * <li>{@link #query(String)} executes a validation query and discards its results.
+ * <li>{@link #IS_VALID} calls <code>Connection.isValid(int)</code>. The method was introduced by
+ * JDBC 4 and is invoked reflectively, so this validator falls back to {@link #IS_CLOSED} when the
+ * runtime does not provide it.
+ * </ul>
+ *
+ * @author Joshua Mark Rutherford
+ */
+public abstract class ConnectionValidator {
+
+	/**
+	 * Defines a validator that considers every connection valid.
+	 */
+	public static final ConnectionValidator NONE = new ConnectionValidator() {
+		public boolean isValid(Connection connection, int timeout) {
+			return true;
+		}
+	};
+
+	/**
+	 * Defines a validator that considers a connection valid if it has not been closed.
+	 */
+	public static final ConnectionValidator IS_CLOSED = new ConnectionValidator() {
+		public boolean isValid(Connection connection, int timeout) throws SQLException {
+			return !connection.isClosed();
+		}
+	};
+
+	/**
+	 * Defines a validator that asks the driver whether a connection is valid using
+	 * <code>Connection.isValid(int)</code>.
+	 */
+	public static final ConnectionValidator IS_VALID = new ConnectionValidator() {
+		public boolean isValid(Connection connection, int timeout) throws SQLException {
+			Method method = ConnectionValidator.IS_VALID_METHOD;
+			if (method == null) {
+				return !connection.isClosed();
+			}
+			try {
+				return ((Boolean)method.invoke(connection, Integer.valueOf(timeout))).booleanValue();
+			} catch (IllegalAccessException e) {
+				return !connection.isClosed();
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof SQLException) {
+					throw (SQLException)e.getCause();
+				}
+				return !connection.isClosed();
+			}
+		}
+	};
+
+	/**
+	 * Creates a validator that considers a connection valid if a validation query can be executed
+	 * against it.
+	 * @param sql The validation query, for example <code>select 1</code>.
+	 * @return The validator.
+	 */
+	public static ConnectionValidator query(final String sql) {
+		if (sql == null) {
+			throw new IllegalArgumentException("Validation query cannot be null.");
+		}
+		return new ConnectionValidator() {
+			public boolean isValid(Connection connection, int timeout) throws SQLException {
+				Statement statement = connection.createStatement();
+				try {
+					if (timeout > 0) {
+						statement.setQueryTimeout(timeout);
+					}
+					statement.execute(sql);
+				} finally {
+					statement.close();
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Indicates whether a connection is still usable.  A validator may either return false or
+	 * throw an exception for an unusable connection.
+	 * @param connection The physical connection.
+	 * @param timeout The number of seconds to wait for the database, or zero to wait indefinitely.
+	 * @return True if the connection is valid; otherwise, false.
+	 * @throws SQLException Thrown if the connection could not be validated.
+	 */
+	public abstract boolean isValid(Connection connection, int timeout) throws SQLException;
+
+	private static final Method IS_VALID_METHOD = ConnectionValidator.getIsValidMethod();
+
+	/**
+	 * Looks up the <code>Connection.isValid(int)</code> method.
+	 * @return The method or null if the runtime does not support JDBC 4.
+	 */
+	private static Method getIsValidMethod() {
+		try {
+			return Connection.class.getMethod("isValid", Integer.TYPE);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,337 @@
+package com.opower.connectionpool;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Provides a timer that schedules a large number of short lived timeouts using a hashed timing
+ * wheel.
+ * <p>
+ * The wheel is an array of buckets that is advanced by a single daemon worker thread once per
+ * tick. Scheduling and cancelling a timeout are both constant time operations: new and cancelled
+ * timeouts are handed to the worker thread through lock free queues and the worker thread is the
+ * only thread that ever touches the buckets. As such, a timeout may expire up to one tick later
+ * than requested but never earlier.
+ * <p>
+ * The worker thread is not started until the first timeout is scheduled, so a timer that is never
+ * used costs nothing more than its wheel. Tasks are executed on the worker thread and should
+ * therefore complete quickly.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class HashedWheelTimer {
+
+	/**
+	 * Initializes a new instance of the HashedWheelTimer class.
+	 * @param name The name of the worker thread.
+	 * @param tickDuration The duration between ticks. This value must be greater than zero.
+	 * @param unit The time unit of the tick duration.
+	 * @param ticksPerWheel The number of buckets in the wheel. This value must be greater than zero and is rounded up to the next power of two.
+	 */
+	public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("Tick duration must be greater than zero.");
+		}
+		if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+			throw new IllegalArgumentException("Ticks per wheel must be greater than zero and less than or equal to 2^30.");
+		}
+		int length = 1;
+		while (length < ticksPerWheel) {
+			length <<= 1;
+		}
+		this.name = name;
+		this.tickDuration = unit.toNanos(tickDuration);
+		this.wheel = new Bucket[length];
+		for (int i = 0; i < this.wheel.length; i++) {
+			this.wheel[i] = new Bucket();
+		}
+		this.mask = length - 1;
+		this.pending = new ConcurrentLinkedQueue<Timeout>();
+		this.cancelled = new ConcurrentLinkedQueue<Timeout>();
+	}
+
+	/**
+	 * Schedules a task for execution after a delay.
+	 * @param task The task to execute once the delay expires.
+	 * @param delay The delay before the task is executed.
+	 * @param unit The time unit of the delay.
+	 * @return A handle that can be used to cancel the task.
+	 */
+	public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+		if (task == null) {
+			throw new IllegalArgumentException("Task cannot be null.");
+		}
+		this.start();
+		Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay));
+		this.pending.offer(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Stops the worker thread. Any timeouts that have not yet expired are discarded and any
+	 * subsequent attempt to schedule a timeout will throw an exception.
+	 */
+	public void stop() {
+		Thread worker;
+		synchronized (this) {
+			this.stopped = true;
+			worker = this.worker;
+		}
+		if (worker != null && worker != Thread.currentThread()) {
+			worker.interrupt();
+		}
+	}
+
+	private final String name;
+	private final long tickDuration;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Queue<Timeout> pending;
+	private final Queue<Timeout> cancelled;
+	private volatile Thread worker;
+	private volatile boolean stopped;
+
+	/**
+	 * Starts the worker thread if it has not already been started.
+	 */
+	private void start() {
+		if (this.worker == null) {
+			synchronized (this) {
+				if (this.stopped) {
+					throw new IllegalStateException("The timer has been stopped.");
+				}
+				if (this.worker == null) {
+					Thread worker = new Thread(new Worker(), this.name);
+					worker.setDaemon(true);
+					worker.start();
+					this.worker = worker;
+				}
+			}
+		} else if (this.stopped) {
+			throw new IllegalStateException("The timer has been stopped.");
+		}
+	}
+
+	/**
+	 * Provides a handle for a task scheduled with a {@link HashedWheelTimer}.
+	 */
+	public static final class Timeout {
+
+		/**
+		 * Cancels the task associated with the timeout.
+		 * @return True if the task was cancelled or false if it has already expired or been cancelled.
+		 */
+		public boolean cancel() {
+			if (!Timeout.STATE.compareAndSet(this, Timeout.STATE_INIT, Timeout.STATE_CANCELLED)) {
+				return false;
+			}
+			this.timer.cancelled.offer(this);
+			return true;
+		}
+
+		/**
+		 * Indicates whether the timeout has been cancelled.
+		 * @return True if the timeout has been cancelled; otherwise, false.
+		 */
+		public boolean isCancelled() {
+			return this.state == Timeout.STATE_CANCELLED;
+		}
+
+		/**
+		 * Indicates whether the timeout has expired.
+		 * @return True if the timeout has expired; otherwise, false.
+		 */
+		public boolean isExpired() {
+			return this.state == Timeout.STATE_EXPIRED;
+		}
+
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+		private static final int STATE_INIT = 0;
+		private static final int STATE_CANCELLED = 1;
+		private static final int STATE_EXPIRED = 2;
+
+		private final HashedWheelTimer timer;
+		private final Runnable task;
+		private final long deadline;
+		private volatile int state;
+		private long remainingRounds;
+		private Bucket bucket;
+		private Timeout next;
+		private Timeout previous;
+
+		/**
+		 * Initializes a new instance of the Timeout class.
+		 * @param timer The timer that scheduled the timeout.
+		 * @param task The task to execute once the timeout expires.
+		 * @param deadline The value of {@link System#nanoTime()} at which the timeout expires.
+		 */
+		private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+			this.timer = timer;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Executes the task associated with the timeout unless it has been cancelled.
+		 */
+		private void expire() {
+			if (Timeout.STATE.compareAndSet(this, Timeout.STATE_INIT, Timeout.STATE_EXPIRED)) {
+				try {
+					this.task.run();
+				} catch (Throwable t) {
+					t.printStackTrace();
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Provides a doubly linked list of timeouts that is only ever accessed by the worker thread.
+	 */
+	private static final class Bucket {
+
+		/**
+		 * Appends a timeout to the bucket.
+		 * @param timeout The timeout to append.
+		 */
+		public void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (this.tail == null) {
+				this.head = timeout;
+				this.tail = timeout;
+			} else {
+				this.tail.next = timeout;
+				timeout.previous = this.tail;
+				this.tail = timeout;
+			}
+		}
+
+		/**
+		 * Removes a timeout from the bucket.
+		 * @param timeout The timeout to remove.
+		 * @return The timeout that followed the removed timeout.
+		 */
+		public Timeout remove(Timeout timeout) {
+			Timeout next = timeout.next;
+			if (timeout.previous != null) {
+				timeout.previous.next = next;
+			}
+			if (timeout.next != null) {
+				timeout.next.previous = timeout.previous;
+			}
+			if (timeout == this.head) {
+				this.head = next;
+			}
+			if (timeout == this.tail) {
+				this.tail = timeout.previous;
+			}
+			timeout.previous = null;
+			timeout.next = null;
+			timeout.bucket = null;
+			return next;
+		}
+
+		/**
+		 * Expires every timeout in the bucket whose deadline falls within the current rotation.
+		 */
+		public void expire() {
+			Timeout timeout = this.head;
+			while (timeout != null) {
+				if (timeout.remainingRounds <= 0) {
+					Timeout next = this.remove(timeout);
+					timeout.expire();
+					timeout = next;
+				} else if (timeout.isCancelled()) {
+					timeout = this.remove(timeout);
+				} else {
+					timeout.remainingRounds--;
+					timeout = timeout.next;
+				}
+			}
+		}
+
+		private Timeout head;
+		private Timeout tail;
+
+	}
+
+	/**
+	 * Provides the worker that advances the wheel.
+	 */
+	private final class Worker implements Runnable {
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			HashedWheelTimer timer = HashedWheelTimer.this;
+			this.startTime = System.nanoTime();
+			while (!timer.stopped) {
+				if (!this.waitForNextTick()) {
+					break;
+				}
+				this.removeCancelled();
+				this.transferPending();
+				timer.wheel[(int)(this.tick & timer.mask)].expire();
+				this.tick++;
+			}
+		}
+
+		private long startTime;
+		private long tick;
+
+		/**
+		 * Sleeps until the start of the next tick.
+		 * @return True if the next tick has started or false if the worker was interrupted.
+		 */
+		private boolean waitForNextTick() {
+			long deadline = this.startTime + HashedWheelTimer.this.tickDuration * (this.tick + 1);
+			for (;;) {
+				long sleep = (deadline - System.nanoTime() + 999999) / 1000000;
+				if (sleep <= 0) {
+					return true;
+				}
+				try {
+					Thread.sleep(sleep);
+				} catch (InterruptedException e) {
+					return false;
+				}
+			}
+		}
+
+		/**
+		 * Moves newly scheduled timeouts from the pending queue into their buckets.
+		 */
+		private void transferPending() {
+			HashedWheelTimer timer = HashedWheelTimer.this;
+			Timeout timeout;
+			while ((timeout = timer.pending.poll()) != null) {
+				if (timeout.isCancelled()) {
+					continue;
+				}
+				long calculated = (timeout.deadline - this.startTime) / timer.tickDuration;
+				timeout.remainingRounds = (calculated - this.tick) / timer.wheel.length;
+				long ticks = Math.max(calculated, this.tick);
+				timer.wheel[(int)(ticks & timer.mask)].add(timeout);
+			}
+		}
+
+		/**
+		 * Unlinks cancelled timeouts from their buckets.
+		 */
+		private void removeCancelled() {
+			Timeout timeout;
+			while ((timeout = HashedWheelTimer.this.cancelled.poll()) != null) {
+				if (timeout.bucket != null) {
+					timeout.bucket.remove(timeout);
+				}
+			}
+		}
+
+	}
+
+}
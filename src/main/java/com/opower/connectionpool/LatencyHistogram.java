@@ -0,0 +1,229 @@
+package com.opower.connectionpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the distribution of durations in a fixed amount of memory without locking.
+ * <p>
+ * Durations are recorded in nanoseconds into logarithmic buckets: every power of two is split
+ * into eight buckets of equal width, so durations below eight nanoseconds are counted exactly and
+ * every other duration is counted in a bucket that is at most 12.5% wide.  Recording a duration
+ * computes the index of its bucket with a few shifts and increments a single element of an atomic
+ * array, so it never blocks and never allocates.  The histogram covers every non-negative
+ * <code>long</code> in 488 buckets.
+ * <p>
+ * Percentiles, the count and the mean are computed from a {@link Snapshot} of the buckets.
+ * {@link #snapshotAndReset()} empties each bucket while it is copied, which lets a monitoring
+ * system scrape the durations recorded since its previous scrape without losing any that are
+ * recorded at the same time.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Initializes a new instance of the LatencyHistogram class.
+	 */
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+		this.maximum = new AtomicLong();
+	}
+
+	/**
+	 * Records a duration.  Negative durations, which a clock that is not monotonic can produce,
+	 * are recorded as zero.
+	 * @param nanos The duration in nanoseconds.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		this.counts.incrementAndGet(LatencyHistogram.index(nanos));
+		long maximum;
+		while (nanos > (maximum = this.maximum.get())) {
+			if (this.maximum.compareAndSet(maximum, nanos)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Copies the buckets of the histogram.
+	 * @return A snapshot of every duration recorded so far.
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[LatencyHistogram.BUCKETS];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = this.counts.get(i);
+		}
+		return new Snapshot(counts, this.maximum.get());
+	}
+
+	/**
+	 * Copies and empties the buckets of the histogram.  A duration that is recorded at the same
+	 * time is either included in the snapshot or remains in the histogram.
+	 * @return A snapshot of every duration recorded since the histogram was last reset.
+	 */
+	public Snapshot snapshotAndReset() {
+		long maximum = this.maximum.getAndSet(0);
+		long[] counts = new long[LatencyHistogram.BUCKETS];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = this.counts.getAndSet(i, 0);
+		}
+		return new Snapshot(counts, maximum);
+	}
+
+	/**
+	 * Defines the number of bits of a duration, below its highest bit, that select a bucket within
+	 * a power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	/**
+	 * Defines the number of buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+
+	/**
+	 * Defines the number of buckets needed to cover every non-negative long.
+	 */
+	private static final int BUCKETS = (63 - LatencyHistogram.SUB_BUCKET_BITS + 1) * LatencyHistogram.SUB_BUCKETS;
+
+	private AtomicLongArray counts;
+	private AtomicLong maximum;
+
+	/**
+	 * Gets the index of the bucket that counts a duration.
+	 * @param nanos The non-negative duration in nanoseconds.
+	 * @return The index of the bucket.
+	 */
+	static int index(long nanos) {
+		if (nanos < LatencyHistogram.SUB_BUCKETS) {
+			return (int)nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = exponent - LatencyHistogram.SUB_BUCKET_BITS;
+		int mantissa = (int)(nanos >>> shift) & (LatencyHistogram.SUB_BUCKETS - 1);
+		return (shift + 1) * LatencyHistogram.SUB_BUCKETS + mantissa;
+	}
+
+	/**
+	 * Gets the largest duration that is counted by a bucket.
+	 * @param index The index of the bucket.
+	 * @return The largest duration in nanoseconds.
+	 */
+	static long highest(int index) {
+		if (index < LatencyHistogram.SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / LatencyHistogram.SUB_BUCKETS - 1;
+		long lowest = (long)(LatencyHistogram.SUB_BUCKETS + index % LatencyHistogram.SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Represents the durations recorded by a histogram at a point in time.
+	 */
+	public static final class Snapshot {
+
+		/**
+		 * Initializes a new instance of the Snapshot class.
+		 * @param counts The counts of the buckets.
+		 * @param maximum The largest duration recorded.
+		 */
+		private Snapshot(long[] counts, long maximum) {
+			this.counts = counts;
+			long count = 0;
+			for (long bucket : counts) {
+				count += bucket;
+			}
+			this.count = count;
+			this.maximum = maximum;
+		}
+
+		/**
+		 * Gets the number of durations in the snapshot.
+		 * @return The number of durations.
+		 */
+		public long getCount() {
+			return this.count;
+		}
+
+		/**
+		 * Gets the largest duration in the snapshot.
+		 * @param unit The time unit of the result.
+		 * @return The largest duration or zero if the snapshot is empty.
+		 */
+		public long getMaximum(TimeUnit unit) {
+			return unit.convert(this.maximum, TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Gets the approximate mean of the durations in the snapshot, taking the middle of each
+		 * bucket as its value.
+		 * @param unit The time unit of the result.
+		 * @return The mean duration or zero if the snapshot is empty.
+		 */
+		public double getMean(TimeUnit unit) {
+			if (this.count == 0) {
+				return 0;
+			}
+			double sum = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				if (this.counts[i] > 0) {
+					long lowest = (i == 0 ? 0 : LatencyHistogram.highest(i - 1) + 1);
+					sum += this.counts[i] * ((lowest + LatencyHistogram.highest(i)) / 2.0);
+				}
+			}
+			return sum / this.count / unit.toNanos(1);
+		}
+
+		/**
+		 * Gets a percentile of the durations in the snapshot.  The result is the largest duration
+		 * of the bucket that contains the percentile, limited to the largest duration recorded, so
+		 * it overstates the exact percentile by at most 12.5%.
+		 * @param percentile The percentile, for example 99.9. This value must be between zero and one hundred.
+		 * @param unit The time unit of the result.
+		 * @return The duration at the percentile or zero if the snapshot is empty.
+		 */
+		public long getPercentile(double percentile, TimeUnit unit) {
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException("Percentile must be between zero and one hundred.");
+			}
+			if (this.count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long)Math.ceil(this.count * percentile / 100));
+			long seen = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				seen += this.counts[i];
+				if (seen >= rank) {
+					return unit.convert(Math.min(LatencyHistogram.highest(i), this.maximum), TimeUnit.NANOSECONDS);
+				}
+			}
+			return unit.convert(this.maximum, TimeUnit.NANOSECONDS);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			TimeUnit unit = TimeUnit.MICROSECONDS;
+			return "count=" + this.count
+				+ ", p50=" + this.getPercentile(50, unit) + "us"
+				+ ", p99=" + this.getPercentile(99, unit) + "us"
+				+ ", p999=" + this.getPercentile(99.9, unit) + "us"
+				+ ", max=" + this.getMaximum(unit) + "us";
+		}
+
+		private long[] counts;
+		private long count;
+		private long maximum;
+
+	}
+
+}
@@ -0,0 +1,244 @@
+package com.opower.connectionpool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reports connections that have been borrowed for longer than a threshold and are therefore
+ * suspected to have leaked.
+ * <p>
+ * Capturing the stack trace of every borrow is the most useful report but also the most expensive
+ * part of detecting leaks, so only a sample of borrows is traced: by default one borrow in
+ * {@link #DEFAULT_SAMPLE_INTERVAL}.  Once a leak is suspected for a borrow that was not traced,
+ * the next borrows are traced, by default {@link #DEFAULT_ESCALATION_BORROWS} of them, so that a
+ * connection that keeps leaking is reported with the place at which it was borrowed soon after it
+ * is first noticed.  An untraced borrow has no known call site, so the escalation applies to every
+ * call site, but it is bounded so that a single leak does not trace the connection pool for good.
+ * <p>
+ * Each suspected leak is written to the log4j logger of this class at the WARN level with the
+ * time the connection has been held and the name of the thread that borrowed it.  The full stack
+ * trace of a traced borrow is written the first time a leak is suspected for its call site, which
+ * is the first caller outside of the connection pool, and later leaks from the same call site are
+ * written with the call site and the number of leaks from it.  A connection that is released after
+ * it was reported is written at the INFO level, so that slow consumers can be told apart from
+ * leaks.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class LeakDetector {
+
+	/**
+	 * Defines the default number of borrows for each borrow whose stack trace is captured.
+	 */
+	public static final int DEFAULT_SAMPLE_INTERVAL = 100;
+
+	/**
+	 * Defines the default number of borrows that are traced once a leak is suspected for a borrow
+	 * that was not traced.
+	 */
+	public static final int DEFAULT_ESCALATION_BORROWS = 1000;
+
+	/**
+	 * Initializes a new instance of the LeakDetector class.
+	 * @param threshold The time after which a borrowed connection is suspected to have leaked. This value must be greater than zero.
+	 * @param unit The time unit of the threshold.
+	 */
+	public LeakDetector(long threshold, TimeUnit unit) {
+		this(threshold, unit, LeakDetector.DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * Initializes a new instance of the LeakDetector class with a sample interval.
+	 * @param threshold The time after which a borrowed connection is suspected to have leaked. This value must be greater than zero.
+	 * @param unit The time unit of the threshold.
+	 * @param sampleInterval The number of borrows for each borrow whose stack trace is captured. This value must be greater than or equal to zero.  A value of one traces every borrow and a value of zero only traces borrows once a leak is suspected.
+	 */
+	public LeakDetector(long threshold, TimeUnit unit, int sampleInterval) {
+		this(threshold, unit, sampleInterval, LeakDetector.DEFAULT_ESCALATION_BORROWS);
+	}
+
+	/**
+	 * Initializes a new instance of the LeakDetector class with a sample interval and an escalation.
+	 * @param threshold The time after which a borrowed connection is suspected to have leaked. This value must be greater than zero.
+	 * @param unit The time unit of the threshold.
+	 * @param sampleInterval The number of borrows for each borrow whose stack trace is captured. This value must be greater than or equal to zero.  A value of one traces every borrow and a value of zero only traces borrows once a leak is suspected.
+	 * @param escalationBorrows The number of borrows that are traced once a leak is suspected for a borrow that was not traced. This value must be greater than or equal to zero.
+	 */
+	public LeakDetector(long threshold, TimeUnit unit, int sampleInterval, int escalationBorrows) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Threshold must be greater than zero.");
+		}
+		if (sampleInterval < 0) {
+			throw new IllegalArgumentException("Sample interval cannot be less than zero.");
+		}
+		if (escalationBorrows < 0) {
+			throw new IllegalArgumentException("Number of escalation borrows cannot be less than zero.");
+		}
+		this.threshold = unit.toNanos(threshold);
+		this.sampleInterval = sampleInterval;
+		this.escalationBorrows = escalationBorrows;
+		this.borrows = new StripedCounter();
+		this.escalation = new AtomicInteger();
+		this.sites = new ConcurrentHashMap<String, AtomicLong>();
+		this.suspected = new AtomicLong();
+		this.captured = new AtomicLong();
+		this.logger = Logger.getLogger(LeakDetector.class);
+	}
+
+	/**
+	 * Gets the time after which a borrowed connection is suspected to have leaked.
+	 * @param unit The time unit of the result.
+	 * @return The threshold.
+	 */
+	public long getThreshold(TimeUnit unit) {
+		return unit.convert(this.threshold, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the number of borrows for each borrow whose stack trace is captured.
+	 * @return The sample interval.
+	 */
+	public int getSampleInterval() {
+		return this.sampleInterval;
+	}
+
+	/**
+	 * Gets the number of borrows that are traced once a leak is suspected for a borrow that was 
+	 * not traced.
+	 * @return The number of escalation borrows.
+	 */
+	public int getEscalationBorrows() {
+		return this.escalationBorrows;
+	}
+
+	/**
+	 * Gets the number of connections that have been suspected to have leaked.
+	 * @return The number of suspected leaks.
+	 */
+	public long getSuspected() {
+		return this.suspected.get();
+	}
+
+	/**
+	 * Gets the number of borrows whose stack trace has been captured.
+	 * @return The number of captured stack traces.
+	 */
+	public long getCaptured() {
+		return this.captured.get();
+	}
+
+	/**
+	 * Captures the stack trace of a borrow if the borrow is sampled or it is one of the borrows
+	 * traced after a leak was suspected for a borrow that was not traced.  The borrows are counted
+	 * by a {@link StripedCounter} and each of its cells samples one in every sample interval of 
+	 * its own increments, so sampling never makes borrowing threads contend.
+	 * @return The stack trace of the borrow or null if it is not traced.
+	 */
+	public Throwable capture() {
+		if (!this.escalate()) {
+			int sampleInterval = this.sampleInterval;
+			if (sampleInterval == 0 || this.borrows.incrementAndGetCell() % sampleInterval != 0) {
+				return null;
+			}
+		}
+		this.captured.incrementAndGet();
+		return new Throwable("Connection borrowed here");
+	}
+
+	/**
+	 * Reports a connection that has been held for longer than the threshold.
+	 * @param thread The thread that borrowed the connection.
+	 * @param nanos The time the connection has been held in nanoseconds.
+	 * @param trace The stack trace of the borrow or null if it was not traced.
+	 */
+	public void suspect(Thread thread, long nanos, Throwable trace) {
+		this.suspected.incrementAndGet();
+		StringBuilder message = new StringBuilder("Connection leak suspected: held for ");
+		message.append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms by thread ").append(thread.getName());
+		if (trace == null) {
+			int escalationBorrows = this.escalationBorrows;
+			if (escalationBorrows > 0) {
+				this.escalation.set(escalationBorrows);
+				message.append("; tracing the next ").append(escalationBorrows).append(" borrows");
+			}
+			this.logger.warn(message);
+			return;
+		}
+		String site = LeakDetector.getSite(trace);
+		AtomicLong count = this.sites.get(site);
+		if (count == null) {
+			AtomicLong existing = this.sites.putIfAbsent(site, count = new AtomicLong());
+			if (existing != null) {
+				count = existing;
+			}
+		}
+		long leaks = count.incrementAndGet();
+		message.append(", borrowed at ").append(site);
+		if (leaks == 1) {
+			this.logger.warn(message, trace);
+		} else {
+			message.append(" (").append(leaks).append(" leaks from this call site)");
+			this.logger.warn(message);
+		}
+	}
+
+	/**
+	 * Reports that a connection that was suspected to have leaked has been released.
+	 * @param thread The thread that borrowed the connection.
+	 * @param nanos The time the connection was held in nanoseconds.
+	 */
+	public void released(Thread thread, long nanos) {
+		this.logger.info("Connection suspected to have leaked was released after " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms by thread " + thread.getName());
+	}
+
+	/**
+	 * Gets the call site of a borrow, which is the first frame of its stack trace that is outside
+	 * of the connection pool and this class.
+	 * @param trace The stack trace of the borrow.
+	 * @return The call site or "unknown" if the stack trace is empty.
+	 */
+	static String getSite(Throwable trace) {
+		String pool = ConnectionPoolImpl.class.getName();
+		String detector = LeakDetector.class.getName();
+		for (StackTraceElement element : trace.getStackTrace()) {
+			String className = element.getClassName();
+			if (!className.equals(pool) && !className.startsWith(pool + "$") && !className.equals(detector)) {
+				return element.toString();
+			}
+		}
+		return "unknown";
+	}
+
+	private long threshold;
+	private int sampleInterval;
+	private int escalationBorrows;
+	private StripedCounter borrows;
+	private AtomicInteger escalation;
+	private ConcurrentMap<String, AtomicLong> sites;
+	private AtomicLong suspected;
+	private AtomicLong captured;
+	private Logger logger;
+
+	/**
+	 * Claims one of the borrows that are traced after a leak was suspected for a borrow that was
+	 * not traced.
+	 * @return True if the borrow is to be traced; otherwise, false.
+	 */
+	private boolean escalate() {
+		for (;;) {
+			int escalation = this.escalation.get();
+			if (escalation <= 0) {
+				return false;
+			}
+			if (this.escalation.compareAndSet(escalation, escalation - 1)) {
+				return true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,282 @@
+package com.opower.connectionpool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts the maximum number of connections of a connection pool to the load it observes.
+ * <p>
+ * The controller is run by the connection pool at a regular interval (see {@link #getInterval()}).
+ * Between runs, the connection pool records the time each consumer waited for a connection and
+ * the execution time of each statement into histograms of the controller.  Each run takes the
+ * 99th percentile wait time and the median execution time of the interval, together with the
+ * number of active connections and waiting consumers, and applies an additive increase,
+ * multiplicative decrease rule within a lower and an upper bound:
+ *
+ * <ul>
+ * <li>If the median execution time has grown beyond the latency tolerance times its baseline, the
+ * database is taken to be overloaded and the maximum is multiplied by the decrease factor.  More
+ * connections would only queue more work at the database.
+ * <li>Otherwise, if consumers waited longer than the wait threshold, or are waiting, while every
+ * connection is in use, the maximum is raised by the increment.  An increase is only followed by
+ * another while the wait time keeps falling; an increase that did not cut the wait time is not
+ * repeated in the next interval.
+ * <li>Otherwise, if nobody waited and fewer than half of the connections are in use, the maximum
+ * is lowered by one, so that the connection pool shrinks gradually once the load subsides.
+ * </ul>
+ *
+ * The baseline is the lowest median execution time seen so far, drifting slowly towards the
+ * current median so that a lasting change of the workload becomes the new baseline.
+ *
+ * @author Joshua Mark Rutherford
+ * @see ConnectionPoolImpl#setSizeController(PoolSizeController)
+ */
+public class PoolSizeController {
+
+	/**
+	 * Defines the default number of milliseconds between runs of the controller.
+	 */
+	public static final long DEFAULT_INTERVAL = 1000;
+
+	/**
+	 * Defines the default wait time, in milliseconds, above which consumers are taken to be queueing.
+	 */
+	public static final long DEFAULT_WAIT_THRESHOLD = 1;
+
+	/**
+	 * Defines the default multiple of the baseline execution time above which the database is taken to be overloaded.
+	 */
+	public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+	/**
+	 * Defines the default factor by which the maximum is multiplied when the database is overloaded.
+	 */
+	public static final double DEFAULT_DECREASE_FACTOR = 0.75;
+
+	/**
+	 * Defines the default number of connections by which the maximum is raised when consumers are queueing.
+	 */
+	public static final int DEFAULT_INCREMENT = 1;
+
+	/**
+	 * Initializes a new instance of the PoolSizeController class.
+	 * @param lowerBound The lowest maximum the controller sets. This value must be greater than zero.
+	 * @param upperBound The highest maximum the controller sets. This value must be greater than or equal to lowerBound.
+	 */
+	public PoolSizeController(int lowerBound, int upperBound) {
+		if (lowerBound < 1) {
+			throw new IllegalArgumentException("Lower bound cannot be less than one.");
+		}
+		if (upperBound < lowerBound) {
+			throw new IllegalArgumentException("Upper bound cannot be less than lower bound.");
+		}
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.interval = PoolSizeController.DEFAULT_INTERVAL;
+		this.waitThreshold = TimeUnit.MILLISECONDS.toNanos(PoolSizeController.DEFAULT_WAIT_THRESHOLD);
+		this.latencyTolerance = PoolSizeController.DEFAULT_LATENCY_TOLERANCE;
+		this.decreaseFactor = PoolSizeController.DEFAULT_DECREASE_FACTOR;
+		this.increment = PoolSizeController.DEFAULT_INCREMENT;
+		this.waitTimes = new LatencyHistogram();
+		this.executionTimes = new LatencyHistogram();
+	}
+
+	/**
+	 * Gets the lowest maximum the controller sets.
+	 * @return The lower bound.
+	 */
+	public int getLowerBound() {
+		return this.lowerBound;
+	}
+
+	/**
+	 * Gets the highest maximum the controller sets.
+	 * @return The upper bound.
+	 */
+	public int getUpperBound() {
+		return this.upperBound;
+	}
+
+	/**
+	 * Gets the number of milliseconds between runs of the controller.
+	 * @return The interval in milliseconds.
+	 */
+	public long getInterval() {
+		return this.interval;
+	}
+
+	/**
+	 * Sets the number of milliseconds between runs of the controller.  The new interval takes
+	 * effect when the controller is next set on a connection pool.
+	 * @param interval The interval in milliseconds. This value must be greater than zero.
+	 */
+	public void setInterval(long interval) {
+		if (interval <= 0) {
+			throw new IllegalArgumentException("Interval must be greater than zero.");
+		}
+		this.interval = interval;
+	}
+
+	/**
+	 * Gets the wait time above which consumers are taken to be queueing.
+	 * @param unit The time unit of the result.
+	 * @return The wait threshold.
+	 */
+	public long getWaitThreshold(TimeUnit unit) {
+		return unit.convert(this.waitThreshold, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Sets the wait time above which consumers are taken to be queueing.
+	 * @param waitThreshold The wait threshold. This value must be greater than or equal to zero.
+	 * @param unit The time unit of the wait threshold.
+	 */
+	public void setWaitThreshold(long waitThreshold, TimeUnit unit) {
+		if (waitThreshold < 0) {
+			throw new IllegalArgumentException("Wait threshold cannot be less than zero.");
+		}
+		this.waitThreshold = unit.toNanos(waitThreshold);
+	}
+
+	/**
+	 * Gets the multiple of the baseline execution time above which the database is taken to be
+	 * overloaded.
+	 * @return The latency tolerance.
+	 */
+	public double getLatencyTolerance() {
+		return this.latencyTolerance;
+	}
+
+	/**
+	 * Sets the multiple of the baseline execution time above which the database is taken to be
+	 * overloaded.
+	 * @param latencyTolerance The latency tolerance. This value must be greater than one.
+	 */
+	public void setLatencyTolerance(double latencyTolerance) {
+		if (!(latencyTolerance > 1)) {
+			throw new IllegalArgumentException("Latency tolerance must be greater than one.");
+		}
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * Gets the factor by which the maximum is multiplied when the database is overloaded.
+	 * @return The decrease factor.
+	 */
+	public double getDecreaseFactor() {
+		return this.decreaseFactor;
+	}
+
+	/**
+	 * Sets the factor by which the maximum is multiplied when the database is overloaded.
+	 * @param decreaseFactor The decrease factor. This value must be greater than zero and less than one.
+	 */
+	public void setDecreaseFactor(double decreaseFactor) {
+		if (!(decreaseFactor > 0 && decreaseFactor < 1)) {
+			throw new IllegalArgumentException("Decrease factor must be greater than zero and less than one.");
+		}
+		this.decreaseFactor = decreaseFactor;
+	}
+
+	/**
+	 * Gets the number of connections by which the maximum is raised when consumers are queueing.
+	 * @return The increment.
+	 */
+	public int getIncrement() {
+		return this.increment;
+	}
+
+	/**
+	 * Sets the number of connections by which the maximum is raised when consumers are queueing.
+	 * @param increment The increment. This value must be greater than zero.
+	 */
+	public void setIncrement(int increment) {
+		if (increment < 1) {
+			throw new IllegalArgumentException("Increment cannot be less than one.");
+		}
+		this.increment = increment;
+	}
+
+	/**
+	 * Gets the baseline execution time against which the database is judged to be overloaded.
+	 * @param unit The time unit of the result.
+	 * @return The baseline or zero if no statement has been executed yet.
+	 */
+	public synchronized long getBaseline(TimeUnit unit) {
+		return unit.convert(this.baseline, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records the time a consumer waited for a connection.
+	 * @param nanos The wait time in nanoseconds.
+	 */
+	public void recordWait(long nanos) {
+		this.waitTimes.record(nanos);
+	}
+
+	/**
+	 * Records the execution time of a statement.
+	 * @param nanos The execution time in nanoseconds.
+	 */
+	public void recordExecution(long nanos) {
+		this.executionTimes.record(nanos);
+	}
+
+	/**
+	 * Computes the maximum number of connections for the next interval from the times recorded
+	 * since the previous run and the current state of the connection pool.
+	 * @param maximum The current maximum number of connections.
+	 * @param active The number of connections that are in use.
+	 * @param waiting The number of consumers that are waiting for a connection.
+	 * @return The new maximum number of connections, between the lower and upper bounds.
+	 */
+	public synchronized int adjust(int maximum, int active, int waiting) {
+		LatencyHistogram.Snapshot waitTimes = this.waitTimes.snapshotAndReset();
+		LatencyHistogram.Snapshot executionTimes = this.executionTimes.snapshotAndReset();
+		long wait = waitTimes.getPercentile(99, TimeUnit.NANOSECONDS);
+		boolean overloaded = false;
+		if (executionTimes.getCount() > 0) {
+			long latency = executionTimes.getPercentile(50, TimeUnit.NANOSECONDS);
+			if (this.baseline == 0 || latency < this.baseline) {
+				this.baseline = latency;
+			} else {
+				overloaded = latency > this.baseline * this.latencyTolerance;
+				this.baseline += (latency - this.baseline) / PoolSizeController.BASELINE_DRIFT;
+			}
+		}
+		int target = Math.max(this.lowerBound, Math.min(this.upperBound, maximum));
+		boolean increased = false;
+		if (overloaded) {
+			target = Math.max(this.lowerBound, (int)(target * this.decreaseFactor));
+		} else if ((wait > this.waitThreshold || waiting > 0) && active + waiting >= target) {
+			if (!this.increased || wait < this.wait) {
+				target = Math.min(this.upperBound, target + this.increment);
+				increased = true;
+			}
+		} else if (wait <= this.waitThreshold && waiting == 0 && active < target / 2) {
+			target = Math.max(this.lowerBound, target - 1);
+		}
+		this.increased = increased;
+		this.wait = wait;
+		return target;
+	}
+
+	/**
+	 * Defines the fraction of the difference to the current median execution time by which the
+	 * baseline drifts in each run, as a divisor.
+	 */
+	private static final long BASELINE_DRIFT = 16;
+
+	private int lowerBound;
+	private int upperBound;
+	private volatile long interval;
+	private volatile long waitThreshold;
+	private volatile double latencyTolerance;
+	private volatile double decreaseFactor;
+	private volatile int increment;
+	private LatencyHistogram waitTimes;
+	private LatencyHistogram executionTimes;
+	private long baseline;
+	private long wait;
+	private boolean increased;
+
+}
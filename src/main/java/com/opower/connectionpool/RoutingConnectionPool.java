@@ -0,0 +1,496 @@
+package com.opower.connectionpool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * Provides a connection pool that splits reads from writes over a primary database and its read
+ * replicas.
+ * <p>
+ * The routing pool holds a {@link ConnectionPoolImpl} for the primary and one for each replica.
+ * Connections are borrowed from the primary unless the borrow is read only, either because
+ * {@link #getConnection(boolean)} was asked for a read-only connection or because
+ * {@link java.sql.Connection#setReadOnly(boolean)} is called with true on a connection before it
+ * has been used for anything else.  Read-only borrows are served by a replica chosen by the
+ * {@link Balancing} of the routing pool, so that existing code that marks its read-only work, as
+ * transaction managers commonly do, takes read load off the primary without being changed.
+ * <p>
+ * A connection handed out by the routing pool wraps a connection of one of the pools.  While it is
+ * unused, setting its read-only mode moves it to a replica or back to the primary: the wrapped
+ * connection, which has not been used and is therefore returned without any call to the driver,
+ * is released and one is borrowed from the other pool, carrying over the auto-commit mode and
+ * transaction isolation that have been set.  Once the connection has been used, setting its
+ * read-only mode only changes the mode of the wrapped connection.  If a replica cannot provide a
+ * connection in time, a read-only borrow is served by the primary instead.
+ * <p>
+ * The routing pool keeps its own count of the connections borrowed from each replica, so that 
+ * choosing a replica never walks the connections of the pools.  For {@link Balancing#LOWEST_LATENCY}
+ * it has each replica track the execution latency of its statements (see 
+ * {@link ConnectionPoolImpl#getExecutionLatency(TimeUnit)}), which measures how fast the replica
+ * responds rather than how long consumers hold its connections.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class RoutingConnectionPool implements ConnectionPool {
+
+	/**
+	 * Enumerates the ways in which a replica is chosen for a read-only borrow.
+	 */
+	public enum Balancing {
+
+		/**
+		 * The replica with the fewest connections borrowed through the routing pool is chosen.
+		 */
+		LEAST_ACTIVE,
+
+		/**
+		 * The replica with the lowest average statement execution time, weighted by the number of
+		 * connections borrowed from it, is chosen.  Replicas whose execution time has not been 
+		 * measured yet are chosen first.
+		 */
+		LOWEST_LATENCY
+
+	}
+
+	/**
+	 * Initializes a new instance of the RoutingConnectionPool class that balances replicas by the
+	 * number of active connections.
+	 * @param primary The connection pool of the primary database.
+	 * @param replicas The connection pools of the read replicas, which may be empty.
+	 */
+	public RoutingConnectionPool(ConnectionPoolImpl primary, List<ConnectionPoolImpl> replicas) {
+		this(primary, replicas, Balancing.LEAST_ACTIVE);
+	}
+
+	/**
+	 * Initializes a new instance of the RoutingConnectionPool class with a balancing.  Balancing by
+	 * the lowest latency turns on the tracking of the execution latency of each replica.
+	 * @param primary The connection pool of the primary database.
+	 * @param replicas The connection pools of the read replicas, which may be empty.
+	 * @param balancing The way in which a replica is chosen for a read-only borrow.
+	 */
+	public RoutingConnectionPool(ConnectionPoolImpl primary, List<ConnectionPoolImpl> replicas, Balancing balancing) {
+		if (primary == null) {
+			throw new IllegalArgumentException("Primary connection pool cannot be null.");
+		}
+		if (replicas == null) {
+			throw new IllegalArgumentException("Replica connection pools cannot be null.");
+		}
+		if (balancing == null) {
+			throw new IllegalArgumentException("Balancing cannot be null.");
+		}
+		this.primary = new Route(primary);
+		this.replicas = new Route[replicas.size()];
+		for (int i = 0; i < this.replicas.length; i++) {
+			if (replicas.get(i) == null) {
+				throw new IllegalArgumentException("Replica connection pool cannot be null.");
+			}
+			this.replicas[i] = new Route(replicas.get(i));
+			if (balancing == Balancing.LOWEST_LATENCY) {
+				replicas.get(i).setExecutionLatencyTracked(true);
+			}
+		}
+		this.balancing = balancing;
+		this.next = new AtomicInteger();
+	}
+
+	/**
+	 * Initializes a new instance of the RoutingConnectionPool class that creates a connection pool
+	 * with the same bounds for the primary and each replica.
+	 * @param primary The data source of the primary database.
+	 * @param replicas The data sources of the read replicas, which may be empty.
+	 * @param minimumConnections The minimum number of connections of each connection pool.
+	 * @param maximumConnections The maximum number of connections of each connection pool.
+	 * @param balancing The way in which a replica is chosen for a read-only borrow.
+	 * @throws SQLException Thrown if the minimum number of connections of a connection pool could not be opened.
+	 */
+	public RoutingConnectionPool(DataSource primary, List<DataSource> replicas, int minimumConnections, int maximumConnections, Balancing balancing) throws SQLException {
+		this(new ConnectionPoolImpl(primary, minimumConnections, maximumConnections), RoutingConnectionPool.createPools(replicas, minimumConnections, maximumConnections), balancing);
+	}
+
+	/**
+	 * Gets the connection pool of the primary database.
+	 * @return The primary connection pool.
+	 */
+	public ConnectionPoolImpl getPrimary() {
+		return this.primary.pool;
+	}
+
+	/**
+	 * Gets the connection pools of the read replicas.
+	 * @return The replica connection pools.
+	 */
+	public List<ConnectionPoolImpl> getReplicas() {
+		List<ConnectionPoolImpl> replicas = new ArrayList<ConnectionPoolImpl>(this.replicas.length);
+		for (Route replica : this.replicas) {
+			replicas.add(replica.pool);
+		}
+		return Collections.unmodifiableList(replicas);
+	}
+
+	/**
+	 * Gets the way in which a replica is chosen for a read-only borrow.
+	 * @return The balancing.
+	 */
+	public Balancing getBalancing() {
+		return this.balancing;
+	}
+
+	/**
+	 * Gets a connection from the primary connection pool without waiting.  The connection moves
+	 * to a replica if it is made read only before it is used.
+	 * @see com.opower.connectionpool.ConnectionPool#getConnection()
+	 */
+	public Connection getConnection() throws SQLException {
+		return this.getConnection(false, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets a connection for reading or writing without waiting.
+	 * @param readOnly True if the connection is only used for reading; otherwise, false.
+	 * @return A connection from a replica if readOnly is true and a replica is available; otherwise, a connection from the primary.
+	 * @throws SQLException
+	 */
+	public Connection getConnection(boolean readOnly) throws SQLException {
+		return this.getConnection(readOnly, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets a connection for reading or writing, waiting up to the specified time for a connection
+	 * to be released if the chosen connection pool has reached its maximum.  A read-only borrow 
+	 * that a replica cannot serve falls back to the primary with whatever is left of the wait 
+	 * time.  The full wait time applies when the connection later moves between the primary and a
+	 * replica.
+	 * @param readOnly True if the connection is only used for reading; otherwise, false.
+	 * @param timeout The maximum time to wait for a connection. A value less than or equal to zero will not wait.
+	 * @param unit The time unit of the timeout.
+	 * @return A connection from a replica if readOnly is true and a replica is available; otherwise, a connection from the primary.
+	 * @throws SQLException
+	 */
+	public Connection getConnection(boolean readOnly, long timeout, TimeUnit unit) throws SQLException {
+		long nanos = unit.toNanos(timeout);
+		long remaining = nanos;
+		if (readOnly) {
+			Route replica = this.selectReplica();
+			if (replica != null) {
+				long start = System.nanoTime();
+				Connection connection = null;
+				try {
+					connection = replica.borrow(nanos);
+					connection.setReadOnly(true);
+					return new RoutingConnection(replica, connection, nanos);
+				} catch (SQLException e) {
+					// The replica could not serve the borrow, so the primary serves it instead.
+					if (connection != null) {
+						RoutingConnectionPool.releaseQuietly(replica, connection);
+					}
+				}
+				remaining = Math.max(0, nanos - (System.nanoTime() - start));
+			}
+		}
+		return new RoutingConnection(this.primary, this.primary.borrow(remaining), nanos);
+	}
+
+	/**
+	 * Releases a connection back to the connection pool from which it was borrowed.  This method
+	 * will throw an exception if the connection is null or did not originate from the routing
+	 * pool.
+	 * @see com.opower.connectionpool.ConnectionPool#releaseConnection(java.sql.Connection)
+	 */
+	public void releaseConnection(Connection connection) throws SQLException {
+		if (connection == null) {
+			throw new SQLException("Null connection cannot be released.");
+		}
+		if (!(connection instanceof RoutingConnection) || ((RoutingConnection)connection).getConnectionPool() != this) {
+			throw new SQLException("Connection does not belong to the connection pool.");
+		}
+		((RoutingConnection)connection).release();
+	}
+
+	private Route primary;
+	private Route[] replicas;
+	private Balancing balancing;
+	private AtomicInteger next;
+
+	/**
+	 * Creates a connection pool for each of a list of data sources.
+	 * @param dataSources The data sources.
+	 * @param minimumConnections The minimum number of connections of each connection pool.
+	 * @param maximumConnections The maximum number of connections of each connection pool.
+	 * @return The connection pools.
+	 * @throws SQLException Thrown if the minimum number of connections of a connection pool could not be opened.
+	 */
+	private static List<ConnectionPoolImpl> createPools(List<DataSource> dataSources, int minimumConnections, int maximumConnections) throws SQLException {
+		if (dataSources == null) {
+			throw new IllegalArgumentException("Replica data sources cannot be null.");
+		}
+		List<ConnectionPoolImpl> pools = new ArrayList<ConnectionPoolImpl>(dataSources.size());
+		for (DataSource dataSource : dataSources) {
+			pools.add(new ConnectionPoolImpl(dataSource, minimumConnections, maximumConnections));
+		}
+		return pools;
+	}
+
+	/**
+	 * Releases a connection that could not be handed out to its connection pool.  A failure to
+	 * release it is ignored, because the caller is already handling the failure that made it 
+	 * release the connection.
+	 * @param route The connection pool from which the connection was borrowed.
+	 * @param connection The connection.
+	 */
+	private static void releaseQuietly(Route route, Connection connection) {
+		try {
+			route.release(connection);
+		} catch (SQLException e) {
+			// The connection pool has already removed or closed the connection.
+		}
+	}
+
+	/**
+	 * Chooses the replica that serves the next read-only borrow.  The replicas are scanned
+	 * starting at a rotating position, so that ties are spread over the replicas.
+	 * @return The replica or null if there are no replicas.
+	 */
+	private Route selectReplica() {
+		int count = this.replicas.length;
+		if (count == 0) {
+			return null;
+		}
+		int start = (this.next.getAndIncrement() & Integer.MAX_VALUE) % count;
+		Route selected = null;
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			Route replica = this.replicas[(start + i) % count];
+			long active = replica.active.get();
+			long score = (this.balancing == Balancing.LEAST_ACTIVE ? active : replica.pool.getExecutionLatency(TimeUnit.NANOSECONDS) * (active + 1));
+			if (score < best) {
+				best = score;
+				selected = replica;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Represents one of the connection pools of the routing pool along with the state that the
+	 * routing pool keeps for balancing.
+	 */
+	private static final class Route {
+
+		/**
+		 * Initializes a new instance of the Route class.
+		 * @param pool The connection pool.
+		 */
+		public Route(ConnectionPoolImpl pool) {
+			this.pool = pool;
+			this.active = new AtomicInteger();
+		}
+
+		/**
+		 * Borrows a connection from the connection pool.
+		 * @param timeout The maximum time to wait in nanoseconds.
+		 * @return The connection.
+		 * @throws SQLException
+		 */
+		public Connection borrow(long timeout) throws SQLException {
+			Connection connection = this.pool.getConnection(timeout, TimeUnit.NANOSECONDS);
+			this.active.incrementAndGet();
+			return connection;
+		}
+
+		/**
+		 * Releases a connection to the connection pool.
+		 * @param connection The connection.
+		 * @throws SQLException
+		 */
+		public void release(Connection connection) throws SQLException {
+			this.active.decrementAndGet();
+			this.pool.releaseConnection(connection);
+		}
+
+		private ConnectionPoolImpl pool;
+		private AtomicInteger active;
+
+	}
+
+	/**
+	 * Wraps a connection borrowed from one of the connection pools of the routing pool.
+	 * <p>
+	 * The auto-commit mode, transaction isolation and read-only mode can be read and set without
+	 * marking the connection as used; any other call marks it as used, after which it stays with
+	 * its connection pool until it is released.
+	 */
+	private final class RoutingConnection extends WrappedConnection {
+
+		/**
+		 * Initializes a new instance of the RoutingConnection class.
+		 * @param route The connection pool from which the connection was borrowed.
+		 * @param connection The borrowed connection.
+		 * @param timeout The maximum time to wait, in nanoseconds, when the connection moves to another connection pool.
+		 */
+		public RoutingConnection(Route route, Connection connection, long timeout) {
+			super(connection);
+			this.route = route;
+			this.timeout = timeout;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setReadOnly(boolean)
+		 */
+		public void setReadOnly(boolean readOnly) throws SQLException {
+			RoutingConnectionPool routingPool = RoutingConnectionPool.this;
+			Connection connection = this.getWrappedConnection();
+			if (!this.used) {
+				Route route = (readOnly ? routingPool.selectReplica() : routingPool.primary);
+				if (route != null && (readOnly ? this.route == routingPool.primary : this.route != routingPool.primary)) {
+					Connection moved = null;
+					try {
+						moved = route.borrow(this.timeout);
+					} catch (SQLException e) {
+						if (!readOnly) {
+							throw e;
+						}
+					}
+					if (moved != null) {
+						try {
+							if (this.autoCommit != null) {
+								moved.setAutoCommit(this.autoCommit.booleanValue());
+							}
+							if (this.transactionIsolation != null) {
+								moved.setTransactionIsolation(this.transactionIsolation.intValue());
+							}
+						} catch (SQLException e) {
+							route.release(moved);
+							throw e;
+						}
+						this.route.release(connection);
+						this.route = route;
+						this.setConnection(moved);
+						connection = moved;
+					}
+				}
+			}
+			connection.setReadOnly(readOnly);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#isReadOnly()
+		 */
+		public boolean isReadOnly() throws SQLException {
+			return this.getWrappedConnection().isReadOnly();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setAutoCommit(boolean)
+		 */
+		public void setAutoCommit(boolean autoCommit) throws SQLException {
+			this.getWrappedConnection().setAutoCommit(autoCommit);
+			this.autoCommit = Boolean.valueOf(autoCommit);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#getAutoCommit()
+		 */
+		public boolean getAutoCommit() throws SQLException {
+			return this.getWrappedConnection().getAutoCommit();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#setTransactionIsolation(int)
+		 */
+		public void setTransactionIsolation(int level) throws SQLException {
+			this.getWrappedConnection().setTransactionIsolation(level);
+			this.transactionIsolation = Integer.valueOf(level);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#getTransactionIsolation()
+		 */
+		public int getTransactionIsolation() throws SQLException {
+			return this.getWrappedConnection().getTransactionIsolation();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#close()
+		 */
+		public void close() throws SQLException {
+			RoutingConnectionPool.this.releaseConnection(this);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.sql.Connection#isClosed()
+		 */
+		public boolean isClosed() throws SQLException {
+			Connection connection = super.getConnection();
+			return (connection == null || connection.isClosed());
+		}
+
+		/**
+		 * Gets the routing pool to which the connection belongs.
+		 * @return The routing pool.
+		 */
+		private RoutingConnectionPool getConnectionPool() {
+			return RoutingConnectionPool.this;
+		}
+
+		/**
+		 * Gets the borrowed connection without marking it as used.
+		 * @return The borrowed connection.
+		 */
+		private Connection getWrappedConnection() {
+			Connection connection = super.getConnection();
+			if (connection == null) {
+				throw new IllegalStateException("The connection has already been released to the connection pool.");
+			}
+			return connection;
+		}
+
+		/**
+		 * Gets the borrowed connection and marks it as used, so that it no longer moves between
+		 * connection pools.
+		 * @return The borrowed connection.
+		 */
+		protected Connection getConnection() {
+			Connection connection = this.getWrappedConnection();
+			this.used = true;
+			return connection;
+		}
+
+		/**
+		 * Releases the borrowed connection to its connection pool.  Nothing happens if it has
+		 * already been released.
+		 * @throws SQLException
+		 */
+		private synchronized void release() throws SQLException {
+			Connection connection = super.getConnection();
+			if (connection == null) {
+				return;
+			}
+			this.setConnection(null);
+			this.route.release(connection);
+		}
+
+		private Route route;
+		private long timeout;
+		private boolean used;
+		private Boolean autoCommit;
+		private Integer transactionIsolation;
+
+	}
+
+}
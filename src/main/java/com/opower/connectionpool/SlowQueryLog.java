@@ -0,0 +1,225 @@
+package com.opower.connectionpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Logs statements whose execution takes longer than a threshold.
+ * <p>
+ * Each slow statement is written to the log4j logger of this class at the WARN level with its
+ * SQL text, a summary of its bind parameters, its execution time and the name of the thread that
+ * executed it.  The thread that executed the statement never formats or writes the message: it
+ * claims a slot in a bounded ring buffer of preallocated events, fills it in and moves on, and a
+ * single background thread drains the buffer and writes the messages.  When a burst of slow
+ * statements fills the buffer, further statements are dropped and counted rather than making the
+ * executing threads wait (see {@link #getDropped()}).
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class SlowQueryLog {
+
+	/**
+	 * Defines the default number of slow statements that can wait to be written.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * Initializes a new instance of the SlowQueryLog class.
+	 * @param threshold The execution time above which a statement is logged. This value must be greater than or equal to zero.
+	 * @param unit The time unit of the threshold.
+	 */
+	public SlowQueryLog(long threshold, TimeUnit unit) {
+		this(threshold, unit, SlowQueryLog.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initializes a new instance of the SlowQueryLog class with a capacity.
+	 * @param threshold The execution time above which a statement is logged. This value must be greater than or equal to zero.
+	 * @param unit The time unit of the threshold.
+	 * @param capacity The number of slow statements that can wait to be written, which is rounded up to a power of two. This value must be greater than zero.
+	 */
+	public SlowQueryLog(long threshold, TimeUnit unit, int capacity) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Threshold cannot be less than zero.");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity cannot be less than one.");
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.threshold = unit.toNanos(threshold);
+		this.events = new Event[size];
+		for (int i = 0; i < size; i++) {
+			this.events[i] = new Event();
+		}
+		this.mask = size - 1;
+		this.tail = new AtomicLong();
+		this.dropped = new AtomicLong();
+		this.logger = Logger.getLogger(SlowQueryLog.class);
+		this.running = true;
+		this.writer = new Thread(new Writer(), "SlowQueryLog-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Gets the execution time above which a statement is logged.
+	 * @param unit The time unit of the result.
+	 * @return The threshold.
+	 */
+	public long getThreshold(TimeUnit unit) {
+		return unit.convert(this.threshold, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Logs a statement if its execution took longer than the threshold.  The message is written
+	 * by the background thread.
+	 * @param sql The SQL text of the statement.
+	 * @param parameters The values bound to the parameters of the statement or null.
+	 * @param nanos The execution time in nanoseconds.
+	 * @return True if the statement was slow and queued to be written; otherwise, false.
+	 */
+	public boolean log(String sql, BindParameters parameters, long nanos) {
+		if (nanos <= this.threshold || !this.running) {
+			return false;
+		}
+		long sequence;
+		do {
+			sequence = this.tail.get();
+			if (sequence - this.head >= this.events.length) {
+				this.dropped.incrementAndGet();
+				return false;
+			}
+		} while (!this.tail.compareAndSet(sequence, sequence + 1));
+		Event event = this.events[(int)sequence & this.mask];
+		event.sql = sql;
+		event.parameters = (parameters == null ? null : parameters.toArray());
+		event.nanos = nanos;
+		event.thread = Thread.currentThread();
+		event.published = sequence + 1;
+		LockSupport.unpark(this.writer);
+		return true;
+	}
+
+	/**
+	 * Gets the number of slow statements that have been written.
+	 * @return The number of slow statements written.
+	 */
+	public long getLogged() {
+		return this.head;
+	}
+
+	/**
+	 * Gets the number of slow statements that were not written because the buffer was full.
+	 * @return The number of slow statements dropped.
+	 */
+	public long getDropped() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Stops accepting slow statements and waits for the background thread to write those that
+	 * have already been accepted.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting.
+	 */
+	public void close() throws InterruptedException {
+		this.running = false;
+		LockSupport.unpark(this.writer);
+		this.writer.join();
+	}
+
+	/**
+	 * Defines the longest time the background thread sleeps before it checks for slow statements
+	 * that it has not been woken for.
+	 */
+	private static final long POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private long threshold;
+	private Event[] events;
+	private int mask;
+	private AtomicLong tail;
+	private volatile long head;
+	private AtomicLong dropped;
+	private Logger logger;
+	private volatile boolean running;
+	private Thread writer;
+
+	/**
+	 * Writes a slow statement to the log.
+	 * @param sql The SQL text of the statement.
+	 * @param parameters The values bound to the parameters of the statement or null.
+	 * @param nanos The execution time in nanoseconds.
+	 * @param thread The thread that executed the statement.
+	 */
+	private void write(String sql, Object[] parameters, long nanos, Thread thread) {
+		StringBuilder message = new StringBuilder(128 + (sql == null ? 0 : sql.length()));
+		message.append("Slow statement took ").append(nanos / 1000000).append('.');
+		long fraction = (nanos / 1000) % 1000;
+		message.append(fraction < 100 ? (fraction < 10 ? "00" : "0") : "").append(fraction);
+		message.append(" ms on thread ").append(thread.getName()).append(": ").append(sql);
+		if (parameters != null && parameters.length > 0) {
+			message.append(" [").append(BindParameters.summarize(parameters)).append(']');
+		}
+		this.logger.warn(message);
+	}
+
+	/**
+	 * Represents a slot of the ring buffer.  The fields are written by the thread that claimed the
+	 * slot and become visible to the background thread when {@link #published} is set.
+	 */
+	private static final class Event {
+
+		private String sql;
+		private Object[] parameters;
+		private long nanos;
+		private Thread thread;
+		private volatile long published;
+
+	}
+
+	/**
+	 * Provides the task of the background thread, which writes the slow statements in the order in
+	 * which their slots were claimed.
+	 */
+	private final class Writer implements Runnable {
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			SlowQueryLog log = SlowQueryLog.this;
+			for (;;) {
+				long head = log.head;
+				Event event = log.events[(int)head & log.mask];
+				if (event.published != head + 1) {
+					if (!log.running && log.tail.get() == head) {
+						return;
+					}
+					LockSupport.parkNanos(SlowQueryLog.POLL_INTERVAL);
+					continue;
+				}
+				String sql = event.sql;
+				Object[] parameters = event.parameters;
+				long nanos = event.nanos;
+				Thread thread = event.thread;
+				event.sql = null;
+				event.parameters = null;
+				event.thread = null;
+				log.head = head + 1;
+				try {
+					log.write(sql, parameters, nanos, thread);
+				} catch (RuntimeException e) {
+
+				}
+			}
+		}
+
+	}
+
+}
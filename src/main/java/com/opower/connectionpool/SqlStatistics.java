@@ -0,0 +1,518 @@
+package com.opower.connectionpool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects execution statistics for each shape of SQL executed through a connection pool.
+ * <p>
+ * SQL text is normalized before it is counted: comments are removed, whitespace is collapsed,
+ * unquoted text is lower cased, string and numeric literals are replaced by <code>?</code> and a
+ * parenthesized list of placeholders is collapsed into a single placeholder.  As such,
+ * <code>SELECT * FROM t WHERE id IN (1, 2, 3)</code> and <code>select * from t where id in (?)</code>
+ * are counted as the same statement.  For each statement the number of executions, the total,
+ * minimum and maximum execution time, a {@link LatencyHistogram} of the execution times and the
+ * number of rows returned or updated are kept.
+ * <p>
+ * At most a fixed number of statements are tracked, which are chosen with the Space-Saving 
+ * algorithm.  Once that number has been reached, a new statement replaces the statement with the
+ * least estimated total execution time and inherits its count and total execution time as an 
+ * error bound (see {@link Entry#getErrorTime(TimeUnit)}).  A statement that keeps arriving
+ * therefore accumulates an estimate that eventually outranks the statements it competes with 
+ * rather than being the first to be replaced again, so the statements that cost the most remain
+ * tracked and the memory used stays the same no matter how much distinct SQL is executed.  The
+ * tracked statements are kept in a heap ordered by their estimate, so replacing a statement takes
+ * logarithmic rather than linear time.  Recording an execution of a tracked statement does not
+ * lock.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class SqlStatistics {
+
+	/**
+	 * Defines the default maximum number of statements that are tracked.
+	 */
+	public static final int DEFAULT_MAXIMUM_STATEMENTS = 100;
+
+	/**
+	 * Initializes a new instance of the SqlStatistics class.
+	 */
+	public SqlStatistics() {
+		this(SqlStatistics.DEFAULT_MAXIMUM_STATEMENTS);
+	}
+
+	/**
+	 * Initializes a new instance of the SqlStatistics class with a maximum number of statements.
+	 * @param maximumStatements The maximum number of statements that are tracked. This value must be greater than zero.
+	 */
+	public SqlStatistics(int maximumStatements) {
+		if (maximumStatements < 1) {
+			throw new IllegalArgumentException("Maximum number of statements cannot be less than one.");
+		}
+		this.maximumStatements = maximumStatements;
+		this.statements = new ConcurrentHashMap<String, Entry>();
+		this.heap = new PriorityQueue<Entry>(maximumStatements, new Comparator<Entry>() {
+			public int compare(Entry left, Entry right) {
+				return (left.priority < right.priority ? -1 : (left.priority > right.priority ? 1 : 0));
+			}
+		});
+		this.normalized = new ConcurrentHashMap<String, String>();
+		this.evictions = new AtomicLong();
+	}
+
+	/**
+	 * Records an execution of a statement.
+	 * @param sql The SQL text of the statement as it was executed.
+	 * @param nanos The execution time in nanoseconds.
+	 * @param rows The number of rows updated by the execution or zero if it returned a result set.
+	 * @return The entry of the statement, to which the rows read from a result set can be added.
+	 */
+	public Entry record(String sql, long nanos, long rows) {
+		String normalized = this.normalized.get(sql);
+		if (normalized == null) {
+			normalized = SqlStatistics.normalize(sql);
+			if (this.normalized.size() >= this.maximumStatements * SqlStatistics.NORMALIZED_PER_STATEMENT) {
+				this.normalized.clear();
+			}
+			this.normalized.put(sql, normalized);
+		}
+		Entry entry = this.statements.get(normalized);
+		if (entry == null) {
+			entry = this.add(normalized);
+		}
+		entry.record(nanos, rows);
+		return entry;
+	}
+
+	/**
+	 * Gets the tracked statements, ordered by their estimated total execution time from most to least.
+	 * @return A snapshot of the tracked statements.
+	 */
+	public List<Entry> getStatements() {
+		List<Entry> statements = new ArrayList<Entry>(this.statements.values());
+		Collections.sort(statements, new Comparator<Entry>() {
+			public int compare(Entry left, Entry right) {
+				long difference = right.getEstimatedTime() - left.getEstimatedTime();
+				return (difference < 0 ? -1 : (difference > 0 ? 1 : 0));
+			}
+		});
+		return statements;
+	}
+
+	/**
+	 * Gets the maximum number of statements that are tracked.
+	 * @return The maximum number of statements.
+	 */
+	public int getMaximumStatements() {
+		return this.maximumStatements;
+	}
+
+	/**
+	 * Gets the number of statements that were replaced to keep within the maximum number of
+	 * statements.
+	 * @return The number of evictions.
+	 */
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	/**
+	 * Forgets every tracked statement.
+	 */
+	public synchronized void reset() {
+		this.statements.clear();
+		this.heap.clear();
+		this.normalized.clear();
+		this.evictions.set(0);
+	}
+
+	/**
+	 * Writes a report of the statements with the most estimated total execution time, one 
+	 * statement per line.  Times are reported in microseconds.  The error column is the total 
+	 * execution time that a statement inherited when it replaced another statement, by which its
+	 * total may be underestimated.
+	 * @param limit The maximum number of statements to report.
+	 * @return The report.
+	 */
+	public String report(int limit) {
+		String separator = System.getProperty("line.separator");
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%10s %14s %14s %10s %10s %10s %10s %10s %12s  %s", "count", "total", "error", "mean", "min", "p50", "p99", "max", "rows", "sql"));
+		report.append(separator);
+		TimeUnit unit = TimeUnit.MICROSECONDS;
+		for (Entry entry : this.getStatements()) {
+			if (limit-- <= 0) {
+				break;
+			}
+			report.append(String.format("%10d %14d %14d %10d %10d %10d %10d %10d %12d  %s",
+				entry.getCount(),
+				entry.getTotalTime(unit),
+				entry.getErrorTime(unit),
+				entry.getMeanTime(unit),
+				entry.getMinimumTime(unit),
+				entry.getPercentile(50, unit),
+				entry.getPercentile(99, unit),
+				entry.getMaximumTime(unit),
+				entry.getRows(),
+				entry.getSql()));
+			report.append(separator);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Normalizes SQL text so that statements that differ only in their literals, comments, case or
+	 * whitespace have the same text.
+	 * @param sql The SQL text.
+	 * @return The normalized SQL text.
+	 */
+	public static String normalize(String sql) {
+		if (sql == null) {
+			return null;
+		}
+		int length = sql.length();
+		StringBuilder normalized = new StringBuilder(length);
+		boolean space = false;
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = true;
+				i++;
+				continue;
+			}
+			if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				while (i < length && sql.charAt(i) != '\n') {
+					i++;
+				}
+				space = true;
+				continue;
+			}
+			if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				int end = sql.indexOf("*/", i + 2);
+				i = (end < 0 ? length : end + 2);
+				space = true;
+				continue;
+			}
+			if (space && normalized.length() > 0) {
+				normalized.append(' ');
+			}
+			space = false;
+			if (c == '\'') {
+				i++;
+				while (i < length) {
+					if (sql.charAt(i) == '\'') {
+						if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				i++;
+				normalized.append('?');
+			} else if (c == '"') {
+				int end = sql.indexOf('"', i + 1);
+				end = (end < 0 ? length : end + 1);
+				normalized.append(sql, i, end);
+				i = end;
+			} else if (Character.isDigit(c) && !SqlStatistics.isIdentifierPart(normalized)) {
+				while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+					i++;
+				}
+				normalized.append('?');
+			} else if (Character.isLetter(c) || c == '_') {
+				while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+					normalized.append(Character.toLowerCase(sql.charAt(i)));
+					i++;
+				}
+			} else if (c == ')') {
+				SqlStatistics.collapse(normalized);
+				normalized.append(c);
+				i++;
+			} else {
+				normalized.append(c);
+				i++;
+			}
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * Defines the number of distinct SQL texts per tracked statement whose normalized text is
+	 * remembered before the remembered texts are forgotten.
+	 */
+	private static final int NORMALIZED_PER_STATEMENT = 10;
+
+	private int maximumStatements;
+	private Map<String, Entry> statements;
+	private PriorityQueue<Entry> heap;
+	private Map<String, String> normalized;
+	private AtomicLong evictions;
+
+	/**
+	 * Adds a statement, replacing the statement with the least estimated total execution time if
+	 * the maximum number of statements has been reached.  The new statement inherits the count and
+	 * estimated total execution time of the statement it replaces as its error.
+	 * @param sql The normalized SQL text of the statement.
+	 * @return The entry of the statement.
+	 */
+	private synchronized Entry add(String sql) {
+		Entry entry = this.statements.get(sql);
+		if (entry != null) {
+			return entry;
+		}
+		if (this.statements.size() >= this.maximumStatements) {
+			Entry least = this.pollLeast();
+			this.statements.remove(least.getSql());
+			this.evictions.incrementAndGet();
+			entry = new Entry(sql, least.getCount() + least.getErrorCount(), least.getEstimatedTime());
+		} else {
+			entry = new Entry(sql, 0, 0);
+		}
+		entry.priority = entry.getEstimatedTime();
+		this.statements.put(sql, entry);
+		this.heap.offer(entry);
+		return entry;
+	}
+
+	/**
+	 * Removes the statement with the least estimated total execution time from the heap.  The heap
+	 * is ordered by the estimates as they were when each statement was last offered, which can 
+	 * only have grown since.  A statement whose estimate has grown past the next statement in the
+	 * heap is therefore offered again with its current estimate until the least one is found.
+	 * @return The statement with the least estimated total execution time.
+	 */
+	private Entry pollLeast() {
+		for (;;) {
+			Entry least = this.heap.poll();
+			long estimate = least.getEstimatedTime();
+			Entry next = this.heap.peek();
+			if (next == null || estimate <= next.priority) {
+				return least;
+			}
+			least.priority = estimate;
+			this.heap.offer(least);
+		}
+	}
+
+	/**
+	 * Indicates whether normalized text ends within an identifier, so that a digit that follows
+	 * it is part of the identifier rather than a numeric literal.
+	 * @param normalized The normalized text so far.
+	 * @return True if the text ends with a letter, digit, underscore or dollar sign.
+	 */
+	private static boolean isIdentifierPart(StringBuilder normalized) {
+		if (normalized.length() == 0) {
+			return false;
+		}
+		char c = normalized.charAt(normalized.length() - 1);
+		return (Character.isLetterOrDigit(c) || c == '_' || c == '$');
+	}
+
+	/**
+	 * Collapses a list of placeholders at the end of normalized text into a single placeholder,
+	 * for example <code>in (?, ?, ?</code> into <code>in (?</code>.
+	 * @param normalized The normalized text so far, which is about to be closed by a parenthesis.
+	 */
+	private static void collapse(StringBuilder normalized) {
+		int i = normalized.length() - 1;
+		int placeholders = 0;
+		while (i >= 0) {
+			char c = normalized.charAt(i);
+			if (c == '?') {
+				placeholders++;
+			} else if (c == '(') {
+				break;
+			} else if (c != ',' && c != ' ') {
+				return;
+			}
+			i--;
+		}
+		if (i >= 0 && placeholders > 1) {
+			normalized.setLength(i + 1);
+			normalized.append('?');
+		}
+	}
+
+	/**
+	 * Holds the statistics of a single statement.
+	 */
+	public static final class Entry {
+
+		/**
+		 * Initializes a new instance of the Entry class.
+		 * @param sql The normalized SQL text of the statement.
+		 * @param errorCount The number of executions inherited from the statement that this statement replaced.
+		 * @param errorTime The total execution time in nanoseconds inherited from the statement that this statement replaced.
+		 */
+		private Entry(String sql, long errorCount, long errorTime) {
+			this.sql = sql;
+			this.errorCount = errorCount;
+			this.errorTime = errorTime;
+			this.count = new AtomicLong();
+			this.total = new AtomicLong();
+			this.minimum = new AtomicLong(Long.MAX_VALUE);
+			this.maximum = new AtomicLong();
+			this.rows = new AtomicLong();
+			this.times = new LatencyHistogram();
+		}
+
+		/**
+		 * Gets the normalized SQL text of the statement.
+		 * @return The normalized SQL text.
+		 */
+		public String getSql() {
+			return this.sql;
+		}
+
+		/**
+		 * Gets the number of executions of the statement.
+		 * @return The number of executions.
+		 */
+		public long getCount() {
+			return this.count.get();
+		}
+
+		/**
+		 * Gets the total execution time of the statement.
+		 * @param unit The time unit of the result.
+		 * @return The total execution time.
+		 */
+		public long getTotalTime(TimeUnit unit) {
+			return unit.convert(this.total.get(), TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Gets the number of executions that the statement inherited when it replaced another 
+		 * statement, which is the most by which its number of executions may be underestimated.
+		 * @return The inherited number of executions or zero if the statement replaced no other statement.
+		 */
+		public long getErrorCount() {
+			return this.errorCount;
+		}
+
+		/**
+		 * Gets the total execution time that the statement inherited when it replaced another 
+		 * statement.  Executions of the statement before it was tracked were counted towards the 
+		 * statements it replaced, so this is the most by which its total execution time may be 
+		 * underestimated.
+		 * @param unit The time unit of the result.
+		 * @return The inherited total execution time or zero if the statement replaced no other statement.
+		 */
+		public long getErrorTime(TimeUnit unit) {
+			return unit.convert(this.errorTime, TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Gets the mean execution time of the statement.
+		 * @param unit The time unit of the result.
+		 * @return The mean execution time or zero if the statement has not been executed.
+		 */
+		public long getMeanTime(TimeUnit unit) {
+			long count = this.count.get();
+			return (count == 0 ? 0 : unit.convert(this.total.get() / count, TimeUnit.NANOSECONDS));
+		}
+
+		/**
+		 * Gets the shortest execution time of the statement.
+		 * @param unit The time unit of the result.
+		 * @return The shortest execution time or zero if the statement has not been executed.
+		 */
+		public long getMinimumTime(TimeUnit unit) {
+			long minimum = this.minimum.get();
+			return (minimum == Long.MAX_VALUE ? 0 : unit.convert(minimum, TimeUnit.NANOSECONDS));
+		}
+
+		/**
+		 * Gets the longest execution time of the statement.
+		 * @param unit The time unit of the result.
+		 * @return The longest execution time.
+		 */
+		public long getMaximumTime(TimeUnit unit) {
+			return unit.convert(this.maximum.get(), TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Gets a percentile of the execution times of the statement.
+		 * @param percentile The percentile, for example 99.9.
+		 * @param unit The time unit of the result.
+		 * @return The execution time at the percentile.
+		 * @see LatencyHistogram.Snapshot#getPercentile(double, TimeUnit)
+		 */
+		public long getPercentile(double percentile, TimeUnit unit) {
+			return this.times.snapshot().getPercentile(percentile, unit);
+		}
+
+		/**
+		 * Gets the number of rows updated by the statement or read from its result sets.
+		 * @return The number of rows.
+		 */
+		public long getRows() {
+			return this.rows.get();
+		}
+
+		/**
+		 * Adds rows read from a result set of the statement.
+		 * @param rows The number of rows.
+		 */
+		public void addRows(long rows) {
+			this.rows.addAndGet(rows);
+		}
+
+		private String sql;
+		private long errorCount;
+		private long errorTime;
+		private long priority;
+		private AtomicLong count;
+		private AtomicLong total;
+		private AtomicLong minimum;
+		private AtomicLong maximum;
+		private AtomicLong rows;
+		private LatencyHistogram times;
+
+		/**
+		 * Gets the estimated total execution time of the statement, which is the total execution 
+		 * time plus the inherited error and by which statements are ranked.
+		 * @return The estimated total execution time in nanoseconds.
+		 */
+		private long getEstimatedTime() {
+			return this.errorTime + this.total.get();
+		}
+
+		/**
+		 * Records an execution of the statement.
+		 * @param nanos The execution time in nanoseconds.
+		 * @param rows The number of rows updated.
+		 */
+		private void record(long nanos, long rows) {
+			this.count.incrementAndGet();
+			this.total.addAndGet(nanos);
+			long current;
+			while (nanos < (current = this.minimum.get())) {
+				if (this.minimum.compareAndSet(current, nanos)) {
+					break;
+				}
+			}
+			while (nanos > (current = this.maximum.get())) {
+				if (this.maximum.compareAndSet(current, nanos)) {
+					break;
+				}
+			}
+			if (rows > 0) {
+				this.rows.addAndGet(rows);
+			}
+			this.times.record(nanos);
+		}
+
+	}
+
+}
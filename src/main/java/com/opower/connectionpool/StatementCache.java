@@ -0,0 +1,244 @@
+package com.opower.connectionpool;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the idle statements of a single physical connection so that they can be reused instead
+ * of being prepared again by the driver.
+ * <p>
+ * Statements are keyed by their SQL text and by every other argument that was used to prepare
+ * them. A statement is removed from the cache while it is in use and put back once it has been
+ * closed by the consumer, so a cached statement is never shared between consumers. Once the cache
+ * holds more statements than its maximum size the least recently used statements are closed and
+ * evicted.
+ *
+ * @param <S> The type of the cached statements.
+ * @author Joshua Mark Rutherford
+ */
+public class StatementCache<S extends Statement> {
+
+	/**
+	 * Initializes a new instance of the StatementCache class.
+	 * @param maximumSize The maximum number of statements in the cache. This value must be greater than zero.
+	 */
+	public StatementCache(int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Maximum size cannot be less than one.");
+		}
+		this.maximumSize = maximumSize;
+		this.statements = new LinkedHashMap<Key, S>(16, 0.75f, true);
+	}
+
+	/**
+	 * Removes a statement from the cache so that it can be reused.
+	 * @param key The key of the statement.
+	 * @return The statement or null if the cache does not contain a statement for the key.
+	 */
+	public synchronized S take(Key key) {
+		S statement = this.statements.remove(key);
+		if (statement == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return statement;
+	}
+
+	/**
+	 * Puts a statement that is no longer in use into the cache. If the cache already contains a
+	 * statement for the same key the statement is not cached. If the cache holds more statements
+	 * than its maximum size the least recently used statements are closed.
+	 * @param key The key of the statement.
+	 * @param statement The statement.
+	 * @return True if the statement was cached or false if it should be closed by the caller.
+	 */
+	public boolean put(Key key, S statement) {
+		Statement evicted = null;
+		synchronized (this) {
+			if (this.closed || this.statements.containsKey(key)) {
+				return false;
+			}
+			this.statements.put(key, statement);
+			if (this.statements.size() > this.maximumSize) {
+				Iterator<S> iterator = this.statements.values().iterator();
+				evicted = iterator.next();
+				iterator.remove();
+				this.evictions++;
+			}
+		}
+		if (evicted != null) {
+			StatementCache.close(evicted);
+		}
+		return true;
+	}
+
+	/**
+	 * Closes and removes every statement in the cache. Statements that are put into the cache
+	 * afterwards are rejected.
+	 */
+	public void close() {
+		Object[] statements;
+		synchronized (this) {
+			this.closed = true;
+			statements = this.statements.values().toArray();
+			this.statements.clear();
+		}
+		for (Object statement : statements) {
+			StatementCache.close((Statement)statement);
+		}
+	}
+
+	/**
+	 * Gets the maximum number of statements in the cache.
+	 * @return The maximum number of statements in the cache.
+	 */
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Gets the number of statements in the cache.
+	 * @return The number of statements in the cache.
+	 */
+	public synchronized int size() {
+		return this.statements.size();
+	}
+
+	/**
+	 * Gets the number of times a statement was found in the cache.
+	 * @return The number of cache hits.
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of times a statement was not found in the cache.
+	 * @return The number of cache misses.
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the number of statements that were closed to keep the cache within its maximum size.
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	private int maximumSize;
+	private Map<Key, S> statements;
+	private boolean closed;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Closes a statement that has been evicted from the cache.
+	 * @param statement The statement to close.
+	 */
+	private static void close(Statement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Identifies a cached statement by its SQL text and the arguments that were used to prepare it.
+	 */
+	public static final class Key {
+
+		/**
+		 * Defines the value of an argument that was not specified when the statement was prepared.
+		 */
+		public static final int UNSPECIFIED = -1;
+
+		/**
+		 * Initializes a new instance of the Key class.
+		 * @param sql The SQL text of the statement.
+		 * @param resultSetType The result set type or {@link #UNSPECIFIED}.
+		 * @param resultSetConcurrency The result set concurrency or {@link #UNSPECIFIED}.
+		 * @param resultSetHoldability The result set holdability or {@link #UNSPECIFIED}.
+		 * @param autoGeneratedKeys The auto generated keys flag or {@link #UNSPECIFIED}.
+		 * @param columnIndexes The indexes of the columns that return generated keys or null.
+		 * @param columnNames The names of the columns that return generated keys or null.
+		 */
+		public Key(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, int autoGeneratedKeys, int[] columnIndexes, String[] columnNames) {
+			this.sql = sql;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.resultSetHoldability = resultSetHoldability;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+			this.columnIndexes = (columnIndexes == null ? null : columnIndexes.clone());
+			this.columnNames = (columnNames == null ? null : columnNames.clone());
+			int hashCode = (sql == null ? 0 : sql.hashCode());
+			hashCode = 31 * hashCode + resultSetType;
+			hashCode = 31 * hashCode + resultSetConcurrency;
+			hashCode = 31 * hashCode + resultSetHoldability;
+			hashCode = 31 * hashCode + autoGeneratedKeys;
+			hashCode = 31 * hashCode + Arrays.hashCode(columnIndexes);
+			hashCode = 31 * hashCode + Arrays.hashCode(columnNames);
+			this.hashCode = hashCode;
+		}
+
+		/**
+		 * Gets the SQL text of the statement.
+		 * @return The SQL text of the statement.
+		 */
+		public String getSql() {
+			return this.sql;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object object) {
+			if (object == this) {
+				return true;
+			}
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key key = (Key)object;
+			return (this.hashCode == key.hashCode
+				&& (this.sql == null ? key.sql == null : this.sql.equals(key.sql))
+				&& this.resultSetType == key.resultSetType
+				&& this.resultSetConcurrency == key.resultSetConcurrency
+				&& this.resultSetHoldability == key.resultSetHoldability
+				&& this.autoGeneratedKeys == key.autoGeneratedKeys
+				&& Arrays.equals(this.columnIndexes, key.columnIndexes)
+				&& Arrays.equals(this.columnNames, key.columnNames));
+		}
+
+		private String sql;
+		private int resultSetType;
+		private int resultSetConcurrency;
+		private int resultSetHoldability;
+		private int autoGeneratedKeys;
+		private int[] columnIndexes;
+		private String[] columnNames;
+		private int hashCode;
+
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.opower.connectionpool;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tracks the statements that are open on a connection so that they can be closed when the
+ * connection is released.
+ * <p>
+ * Statements are held in an array of slots.  Registering a statement returns the index of the
+ * slot it was stored in and unregistering a statement simply clears that slot and pushes its
+ * index onto a free list, so the registry only ever holds statements that are still open and its
+ * size is bounded by the largest number of statements that were open at the same time. Closing
+ * all remaining statements visits each slot once and does not copy the array.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class StatementRegistry {
+
+	/**
+	 * Initializes a new instance of the StatementRegistry class.
+	 */
+	public StatementRegistry() {
+		this.slots = new Statement[StatementRegistry.INITIAL_CAPACITY];
+		this.free = new int[StatementRegistry.INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Registers an open statement.
+	 * @param statement The statement to register.
+	 * @return The slot in which the statement was registered.
+	 */
+	public synchronized int register(Statement statement) {
+		int slot;
+		if (this.freeCount > 0) {
+			slot = this.free[--this.freeCount];
+		} else {
+			if (this.used == this.slots.length) {
+				Statement[] slots = new Statement[this.slots.length * 2];
+				System.arraycopy(this.slots, 0, slots, 0, this.used);
+				this.slots = slots;
+				this.free = new int[slots.length];
+			}
+			slot = this.used++;
+		}
+		this.slots[slot] = statement;
+		this.size++;
+		return slot;
+	}
+
+	/**
+	 * Unregisters a statement that has been closed. Nothing happens if the slot no longer holds
+	 * the statement, for example because all statements have already been closed.
+	 * @param slot The slot in which the statement was registered.
+	 * @param statement The statement to unregister.
+	 */
+	public synchronized void unregister(int slot, Statement statement) {
+		if (slot < this.used && this.slots[slot] == statement) {
+			this.slots[slot] = null;
+			this.free[this.freeCount++] = slot;
+			this.size--;
+		}
+	}
+
+	/**
+	 * Gets the number of registered statements.
+	 * @return The number of registered statements.
+	 */
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * Closes and unregisters every registered statement.  Exceptions thrown while closing a
+	 * statement do not prevent the remaining statements from being closed.
+	 */
+	public synchronized void closeAll() {
+		int used = this.used;
+		this.used = 0;
+		this.freeCount = 0;
+		this.size = 0;
+		for (int i = 0; i < used; i++) {
+			Statement statement = this.slots[i];
+			if (statement != null) {
+				this.slots[i] = null;
+				try {
+					statement.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private Statement[] slots;
+	private int[] free;
+	private int freeCount;
+	private int used;
+	private int size;
+
+}
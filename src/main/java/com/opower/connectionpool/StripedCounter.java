@@ -0,0 +1,118 @@
+package com.opower.connectionpool;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events that are recorded by many threads at the same time.
+ * <p>
+ * A single atomic counter becomes a point of contention once many threads increment it, because
+ * every increment has to take ownership of the same cache line.  This counter spreads increments
+ * over a number of cells, chosen by the identifier of the incrementing thread, and each cell is
+ * padded onto its own cache line.  Increments are therefore cheap and rarely contend, while
+ * reading the count has to add up every cell and is only weakly consistent with increments that
+ * happen at the same time.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class StripedCounter {
+
+	/**
+	 * Initializes a new instance of the StripedCounter class with one cell per processor.
+	 */
+	public StripedCounter() {
+		int stripes = 1;
+		int processors = Math.min(Runtime.getRuntime().availableProcessors(), StripedCounter.MAXIMUM_STRIPES);
+		while (stripes < processors) {
+			stripes <<= 1;
+		}
+		this.mask = stripes - 1;
+		this.cells = new AtomicLongArray(stripes * StripedCounter.PADDING);
+	}
+
+	/**
+	 * Adds one to the count.
+	 */
+	public void increment() {
+		this.add(1);
+	}
+
+	/**
+	 * Adds a value to the count.
+	 * @param value The value to add.
+	 */
+	public void add(long value) {
+		this.cells.addAndGet(this.index(), value);
+	}
+
+	/**
+	 * Adds one to the count and gets the count of the cell of the current thread.  The result
+	 * is cheap to get and, unlike the count, never contended, so it suits decisions such as 
+	 * sampling one increment in some number that do not need the exact count.
+	 * @return The count of the cell of the current thread after the increment.
+	 */
+	public long incrementAndGetCell() {
+		return this.cells.incrementAndGet(this.index());
+	}
+
+	/**
+	 * Gets the count.
+	 * @return The sum of every cell.
+	 */
+	public long get() {
+		long sum = 0;
+		for (int i = 0; i < this.cells.length(); i += StripedCounter.PADDING) {
+			sum += this.cells.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the count and resets it to zero.  Increments that happen at the same time are either
+	 * included in the returned count or remain in the counter, so none of them are lost.
+	 * @return The count before it was reset.
+	 */
+	public long getAndReset() {
+		long sum = 0;
+		for (int i = 0; i < this.cells.length(); i += StripedCounter.PADDING) {
+			sum += this.cells.getAndSet(i, 0);
+		}
+		return sum;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return Long.toString(this.get());
+	}
+
+	/**
+	 * Defines the largest number of cells of a counter.
+	 */
+	private static final int MAXIMUM_STRIPES = 64;
+
+	/**
+	 * Defines the distance between two cells in longs, which keeps each cell on a cache line of
+	 * its own and away from the cache line prefetched along with it.
+	 */
+	private static final int PADDING = 16;
+
+	private int mask;
+	private AtomicLongArray cells;
+
+	/**
+	 * Gets the index of the cell of the current thread.
+	 * @return The index of the cell.
+	 */
+	private int index() {
+		long id = Thread.currentThread().getId();
+		int hash = (int)(id ^ (id >>> 32));
+		hash ^= (hash >>> 16);
+		hash *= 0x85ebca6b;
+		hash ^= (hash >>> 13);
+		return (hash & this.mask) * StripedCounter.PADDING;
+	}
+
+}
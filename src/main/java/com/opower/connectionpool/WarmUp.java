@@ -0,0 +1,93 @@
+package com.opower.connectionpool;
+
+/**
+ * Describes how a connection pool opens its initial connections.
+ * <p>
+ * The initial connections are opened by up to {@link #getConcurrency()} threads at the same time.
+ * The constructor of the connection pool blocks until {@link #getRequiredConnections()} of them
+ * are ready and the remaining connections are opened in the background.  As such, requiring zero
+ * connections returns immediately and requiring all of them blocks until the warm-up is complete.
+ * A listener can be registered to follow the progress of the warm-up.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class WarmUp {
+
+	/**
+	 * Defines a warm-up that opens every initial connection one after another on the thread that
+	 * constructs the connection pool.
+	 */
+	public static final WarmUp SEQUENTIAL = new WarmUp(1, Integer.MAX_VALUE);
+
+	/**
+	 * Initializes a new instance of the WarmUp class.
+	 * @param concurrency The maximum number of connections opened at the same time. This value must be greater than zero.
+	 * @param requiredConnections The number of connections that must be ready before the connection pool is constructed. This value must be greater than or equal to zero and is limited to the minimum number of connections of the connection pool.
+	 */
+	public WarmUp(int concurrency, int requiredConnections) {
+		this(concurrency, requiredConnections, null);
+	}
+
+	/**
+	 * Initializes a new instance of the WarmUp class with a listener.
+	 * @param concurrency The maximum number of connections opened at the same time. This value must be greater than zero.
+	 * @param requiredConnections The number of connections that must be ready before the connection pool is constructed. This value must be greater than or equal to zero and is limited to the minimum number of connections of the connection pool.
+	 * @param listener The listener that is notified of the progress of the warm-up or null.
+	 */
+	public WarmUp(int concurrency, int requiredConnections, Listener listener) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency cannot be less than one.");
+		}
+		if (requiredConnections < 0) {
+			throw new IllegalArgumentException("Required number of connections cannot be less than zero.");
+		}
+		this.concurrency = concurrency;
+		this.requiredConnections = requiredConnections;
+		this.listener = listener;
+	}
+
+	/**
+	 * Gets the maximum number of connections opened at the same time.
+	 * @return The maximum number of connections opened at the same time.
+	 */
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Gets the number of connections that must be ready before the connection pool is constructed.
+	 * @return The number of connections that must be ready before the connection pool is constructed.
+	 */
+	public int getRequiredConnections() {
+		return this.requiredConnections;
+	}
+
+	/**
+	 * Gets the listener that is notified of the progress of the warm-up.
+	 * @return The listener or null.
+	 */
+	public Listener getListener() {
+		return this.listener;
+	}
+
+	private int concurrency;
+	private int requiredConnections;
+	private Listener listener;
+
+	/**
+	 * Receives the progress of a warm-up.  Listeners are called from the threads that open the
+	 * connections and should therefore return quickly.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called each time an initial connection has been opened or has failed to open.
+		 * @param opened The number of connections opened so far.
+		 * @param failed The number of connections that failed to open so far.
+		 * @param total The total number of initial connections.
+		 */
+		void progress(int opened, int failed, int total);
+
+	}
+
+}
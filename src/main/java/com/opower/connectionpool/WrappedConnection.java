@@ -49,7 +49,7 @@ public class WrappedConnection implements Connection {
 	 * @see java.sql.Connection#prepareCall(java.lang.String)
 	 */
 	public CallableStatement prepareCall(String sql) throws SQLException {
-		return this.connection.prepareCall(sql);
+		return this.getConnection().prepareCall(sql);
 	}
 
 	/*
@@ -57,7 +57,7 @@ public class WrappedConnection implements Connection {
 	 * @see java.sql.Connection#nativeSQL(java.lang.String)
 	 */
 	public String nativeSQL(String sql) throws SQLException {
-		return this.connection.nativeSQL(sql);
+		return this.getConnection().nativeSQL(sql);
 	}
 
 	/*
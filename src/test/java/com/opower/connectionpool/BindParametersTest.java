@@ -0,0 +1,84 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.BindParameters BindParameters} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class BindParametersTest {
+
+	/**
+	 * Tests the summary of the values of different types.
+	 */
+	@Test
+	public void testSummarize() {
+		BindParameters parameters = new BindParameters();
+		parameters.set(1, "abc");
+		parameters.set(2, Integer.valueOf(42));
+		parameters.set(3, null);
+		parameters.set(4, new byte[16]);
+		parameters.set(5, new ByteArrayInputStream(new byte[0]));
+		parameters.set(7, "0123456789012345678901234567890123456789012345678901234567890123456789");
+		assertEquals("1='abc', 2=42, 3=NULL, 4=<16 bytes>, 5=<stream>, 7='0123456789012345678901234567890123456789012345678901234567890123...'", BindParameters.summarize(parameters.toArray()));
+		parameters.clear();
+		assertEquals(0, parameters.toArray().length);
+		parameters.set(0, "ignored");
+		assertEquals("", BindParameters.summarize(parameters.toArray()));
+	}
+
+	/**
+	 * Tests that primitives are kept unboxed and boxed again by type.
+	 */
+	@Test
+	public void testPrimitives() {
+		BindParameters parameters = new BindParameters();
+		parameters.set(1, true);
+		parameters.set(2, (byte)7);
+		parameters.set(3, (short)-3);
+		parameters.set(4, 42);
+		parameters.set(5, Long.MAX_VALUE);
+		parameters.set(6, 1.5f);
+		parameters.set(7, -0.25d);
+		parameters.set(8, "abc");
+		parameters.set(8, 8);
+		parameters.set(12, 12);
+		Object[] values = parameters.toArray();
+		assertEquals(Boolean.TRUE, values[0]);
+		assertEquals(Byte.valueOf((byte)7), values[1]);
+		assertEquals(Short.valueOf((short)-3), values[2]);
+		assertEquals(Integer.valueOf(42), values[3]);
+		assertEquals(Long.valueOf(Long.MAX_VALUE), values[4]);
+		assertEquals(Float.valueOf(1.5f), values[5]);
+		assertEquals(Double.valueOf(-0.25d), values[6]);
+		assertEquals(Integer.valueOf(8), values[7]);
+		assertNull(values[8]);
+		assertEquals(Integer.valueOf(12), values[11]);
+		parameters.set(4, "forty-two");
+		assertEquals("'forty-two'", BindParameters.summarize(parameters.toArray()).split(", ")[3].substring(2));
+		parameters.clear();
+		parameters.set(2, 2);
+		assertEquals("2=2", BindParameters.summarize(parameters.toArray()));
+	}
+
+	/**
+	 * Tests that statements with many parameters are summarized in part.
+	 */
+	@Test
+	public void testSummarizeMany() {
+		BindParameters parameters = new BindParameters();
+		for (int i = 1; i <= 40; i++) {
+			parameters.set(i, Integer.valueOf(i));
+		}
+		String summary = BindParameters.summarize(parameters.toArray());
+		assertTrue(summary.startsWith("1=1, 2=2"));
+		assertTrue(summary.endsWith("32=32, ... (8 more)"));
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.CircuitBreaker CircuitBreaker} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class CircuitBreakerTest {
+
+	/**
+	 * Tests that the breaker opens once the failure threshold has been reached and rejects 
+	 * attempts until the backoff has elapsed.
+	 */
+	@Test
+	public void testOpen() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(2, 50, 200, TimeUnit.MILLISECONDS);
+		circuitBreaker.acquire();
+		circuitBreaker.failure();
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		circuitBreaker.acquire();
+		circuitBreaker.failure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		try {
+			circuitBreaker.acquire();
+			fail("An open circuit breaker did not reject an attempt.");
+		} catch (CircuitBreakerOpenException e) {
+			assertTrue(e.getRetryDelay() <= 50);
+			assertEquals(CircuitBreakerOpenException.SQL_STATE, e.getSQLState());
+		}
+	}
+
+	/**
+	 * Tests that a half open breaker lets a single trial through, doubles its backoff when the 
+	 * trial fails and closes when a trial succeeds.
+	 */
+	@Test
+	public void testHalfOpen() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50, 1000, TimeUnit.MILLISECONDS);
+		circuitBreaker.acquire();
+		circuitBreaker.failure();
+		Thread.sleep(60);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+		circuitBreaker.acquire();
+		try {
+			circuitBreaker.acquire();
+			fail("A half open circuit breaker let a second trial through.");
+		} catch (CircuitBreakerOpenException e) {
+			
+		}
+		circuitBreaker.failure();
+		Thread.sleep(60);
+		try {
+			circuitBreaker.check();
+			fail("The backoff of the circuit breaker was not increased.");
+		} catch (CircuitBreakerOpenException e) {
+			assertTrue(e.getRetryDelay() > 0);
+		}
+		Thread.sleep(60);
+		circuitBreaker.acquire();
+		circuitBreaker.success();
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertEquals(0, circuitBreaker.getFailures());
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.ConnectionBag ConnectionBag} class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class ConnectionBagTest {
+
+	/**
+	 * Tests that an entry can only be borrowed once until it is returned.
+	 */
+	@Test
+	public void testPoll() {
+		ConnectionBag<TestEntry> bag = new ConnectionBag<TestEntry>();
+		TestEntry entry = new TestEntry();
+		bag.add(entry);
+		assertEquals(1, bag.getIdleCount());
+		assertSame(entry, bag.poll());
+		assertEquals(ConnectionBag.Entry.STATE_IN_USE, entry.getState());
+		assertNull(bag.poll());
+		bag.requite(entry);
+		assertEquals(1, bag.getIdleCount());
+		assertSame(entry, bag.poll());
+	}
+
+	/**
+	 * Tests that a thread is handed back the entry it returned most recently.
+	 */
+	@Test
+	public void testThreadLocal() {
+		ConnectionBag<TestEntry> bag = new ConnectionBag<TestEntry>();
+		TestEntry[] entries = new TestEntry[4];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = new TestEntry();
+			bag.add(entries[i]);
+		}
+		for (int i = 0; i < entries.length; i++) {
+			assertSame(entries[i], bag.poll());
+		}
+		bag.requite(entries[2]);
+		assertSame(entries[2], bag.poll());
+		bag.requite(entries[3]);
+		bag.requite(entries[1]);
+		assertSame(entries[1], bag.poll());
+	}
+
+	/**
+	 * Tests that a removed entry cannot be borrowed.
+	 */
+	@Test
+	public void testRemove() {
+		ConnectionBag<TestEntry> bag = new ConnectionBag<TestEntry>();
+		TestEntry entry = new TestEntry();
+		bag.add(entry);
+		bag.requite(bag.poll());
+		assertTrue(bag.remove(entry));
+		assertEquals(0, bag.size());
+		assertNull(bag.poll());
+	}
+
+	/**
+	 * Tests that an entry that is removed while it is borrowed is not returned to the bag.
+	 */
+	@Test
+	public void testRequiteRemoved() {
+		ConnectionBag<TestEntry> bag = new ConnectionBag<TestEntry>();
+		TestEntry entry = new TestEntry();
+		bag.add(entry);
+		assertSame(entry, bag.poll());
+		assertTrue(bag.remove(entry));
+		bag.requite(entry);
+		assertEquals(ConnectionBag.Entry.STATE_REMOVED, entry.getState());
+		assertEquals(0, bag.getIdleCount());
+		assertNull(bag.poll());
+	}
+
+	/**
+	 * Tests that a returned entry is handed directly to a waiting thread.
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testBorrow() throws InterruptedException {
+		final ConnectionBag<TestEntry> bag = new ConnectionBag<TestEntry>();
+		TestEntry entry = new TestEntry();
+		bag.add(entry);
+		assertSame(entry, bag.poll());
+		assertNull(bag.borrow(50, TimeUnit.MILLISECONDS));
+		final AtomicReference<TestEntry> result = new AtomicReference<TestEntry>();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					result.set(bag.borrow(5, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					
+				}
+			}
+		};
+		waiter.start();
+		while (!bag.hasWaiters()) {
+			Thread.sleep(1);
+		}
+		bag.requite(entry);
+		waiter.join(5000);
+		assertSame(entry, result.get());
+		assertEquals(ConnectionBag.Entry.STATE_IN_USE, entry.getState());
+		assertNull(bag.poll());
+	}
+
+	/**
+	 * Provides an entry for testing.
+	 */
+	private static class TestEntry extends ConnectionBag.Entry {
+
+	}
+
+}
@@ -2,14 +2,34 @@ package com.opower.connectionpool;
 
 import static org.junit.Assert.*;
 
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
+import org.apache.log4j.Logger;
+import org.apache.log4j.SimpleLayout;
+import org.apache.log4j.WriterAppender;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 
 import org.junit.Test;
 
@@ -195,6 +215,843 @@ public class ConnectionPoolImplTest {
 			fail("Did not fail to execute method after timeout expired.");
 		} catch (Exception e) {
 		}
-	}	
+	}
+
+	/**
+	 * Tests that {@link com.opower.connectionpool.ConnectionPoolImpl#getConnection(long, TimeUnit)}
+	 * is handed a released connection while waiting.
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetConnectionWait() throws Exception {
+		Connection connection = EasyMock.createNiceMock(Connection.class);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		final ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		Connection borrowed = connectionPool.getConnection();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					result.set(connectionPool.getConnection(5, TimeUnit.SECONDS));
+				} catch (SQLException e) {
+					result.set(e);
+				}
+			}
+		};
+		waiter.start();
+		Thread.sleep(100);
+		assertNull(result.get());
+		connectionPool.releaseConnection(borrowed);
+		waiter.join(5000);
+		assertTrue(result.get() instanceof Connection);
+		assertFalse(((Connection)result.get()).isClosed());
+		assertEquals(1, connectionPool.getCurrentConnections());
+		EasyMock.verify(dataSource);
+	}
+
+	/**
+	 * Tests that {@link com.opower.connectionpool.ConnectionPoolImpl#getConnection(long, TimeUnit)}
+	 * throws an exception once the wait time elapses.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testGetConnectionWaitTimeout() throws SQLException {
+		Connection connection = EasyMock.createNiceMock(Connection.class);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		connectionPool.getConnection();
+		long start = System.nanoTime();
+		try {
+			connectionPool.getConnection(100, TimeUnit.MILLISECONDS);
+			fail("Waiting for an exhausted connection pool did not result in an exception.");
+		} catch (SQLException e) {
+			
+		}
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		EasyMock.verify(dataSource);
+	}
+
+	/**
+	 * Tests that a connection from an earlier borrow cannot be used or released once the same
+	 * physical connection has been borrowed again.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testStaleConnection() throws SQLException {
+		Connection connection = EasyMock.createNiceMock(Connection.class);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		Connection stale = connectionPool.getConnection();
+		connectionPool.releaseConnection(stale);
+		Connection current = connectionPool.getConnection();
+		assertNotSame(stale, current);
+		assertTrue(stale.isClosed());
+		assertFalse(current.isClosed());
+		try {
+			stale.commit();
+			fail("Using a released connection did not result in an exception.");
+		} catch (IllegalStateException e) {
+			
+		}
+		connectionPool.releaseConnection(stale);
+		assertFalse(current.isClosed());
+		current.commit();
+		assertEquals(1, connectionPool.getCurrentConnections());
+		EasyMock.verify(dataSource);
+	}
+
+	/**
+	 * Tests that statements left open are closed when their connection is released and that 
+	 * statements closed by the consumer are not closed again.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testReleaseClosesStatements() throws SQLException {
+		Statement open = EasyMock.createMock(Statement.class);
+		open.close();
+		EasyMock.replay(open);
+		Statement closed = EasyMock.createMock(Statement.class);
+		closed.close();
+		EasyMock.replay(closed);
+		Connection connection = EasyMock.createNiceMock(Connection.class);
+		EasyMock.expect(connection.createStatement()).andReturn(closed);
+		EasyMock.expect(connection.createStatement()).andReturn(open);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		Connection pooledConnection = connectionPool.getConnection();
+		pooledConnection.createStatement().close();
+		pooledConnection.createStatement();
+		connectionPool.releaseConnection(pooledConnection);
+		EasyMock.verify(open, closed, dataSource);
+	}
+
+	/**
+	 * Tests that a closed prepared statement is reused when the same SQL is prepared again, without
+	 * its batch, and that it is closed instead if its options were changed.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testStatementCache() throws SQLException {
+		final AtomicInteger batch = new AtomicInteger();
+		PreparedStatement preparedStatement = EasyMock.createMock(PreparedStatement.class);
+		preparedStatement.clearParameters();
+		EasyMock.expectLastCall().times(3);
+		preparedStatement.clearBatch();
+		EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+			public Object answer() {
+				batch.set(0);
+				return null;
+			}
+		}).times(3);
+		preparedStatement.clearWarnings();
+		EasyMock.expectLastCall().times(3);
+		preparedStatement.addBatch();
+		EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+			public Object answer() {
+				batch.incrementAndGet();
+				return null;
+			}
+		});
+		EasyMock.expect(preparedStatement.executeBatch()).andAnswer(new IAnswer<int[]>() {
+			public int[] answer() {
+				return new int[batch.get()];
+			}
+		});
+		preparedStatement.setMaxRows(5);
+		preparedStatement.close();
+		EasyMock.replay(preparedStatement);
+		Connection connection = EasyMock.createMock(Connection.class);
+		EasyMock.expect(connection.isClosed()).andReturn(false).anyTimes();
+		EasyMock.expect(connection.prepareStatement("select 1")).andReturn(preparedStatement).times(2);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		connectionPool.setStatementCacheSize(10);
+		Connection pooledConnection = connectionPool.getConnection();
+		pooledConnection.prepareStatement("select 1").close();
+		connectionPool.releaseConnection(pooledConnection);
+		pooledConnection = connectionPool.getConnection();
+		PreparedStatement pooledStatement = pooledConnection.prepareStatement("select 1");
+		pooledStatement.addBatch();
+		pooledStatement.close();
+		pooledStatement = pooledConnection.prepareStatement("select 1");
+		assertEquals(0, pooledStatement.executeBatch().length);
+		pooledStatement.setMaxRows(5);
+		pooledStatement.close();
+		pooledStatement = pooledConnection.prepareStatement("select 1");
+		pooledStatement.close();
+		try {
+			pooledStatement.clearParameters();
+			fail("Using a closed prepared statement did not result in an exception.");
+		} catch (IllegalStateException e) {
+			
+		}
+		assertEquals(2, connectionPool.getStatementCacheHits());
+		assertEquals(2, connectionPool.getStatementCacheMisses());
+		EasyMock.verify(preparedStatement, connection, dataSource);
+	}
+	
+	/**
+	 * Tests that a closed callable statement is reused when the same SQL is prepared again, without
+	 * its batch, and that it is closed instead if its options were changed.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testCallableStatementCache() throws SQLException {
+		final AtomicInteger batch = new AtomicInteger();
+		CallableStatement callableStatement = EasyMock.createMock(CallableStatement.class);
+		callableStatement.clearParameters();
+		EasyMock.expectLastCall().times(3);
+		callableStatement.clearBatch();
+		EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+			public Object answer() {
+				batch.set(0);
+				return null;
+			}
+		}).times(3);
+		callableStatement.clearWarnings();
+		EasyMock.expectLastCall().times(3);
+		callableStatement.addBatch();
+		EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+			public Object answer() {
+				batch.incrementAndGet();
+				return null;
+			}
+		});
+		EasyMock.expect(callableStatement.executeBatch()).andAnswer(new IAnswer<int[]>() {
+			public int[] answer() {
+				return new int[batch.get()];
+			}
+		});
+		callableStatement.setQueryTimeout(5);
+		callableStatement.close();
+		EasyMock.replay(callableStatement);
+		Connection connection = EasyMock.createMock(Connection.class);
+		EasyMock.expect(connection.isClosed()).andReturn(false).anyTimes();
+		EasyMock.expect(connection.getAutoCommit()).andReturn(true).anyTimes();
+		EasyMock.expect(connection.prepareCall("{call p(?)}")).andReturn(callableStatement).times(2);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		connectionPool.setCallableStatementCacheSize(10);
+		Connection pooledConnection = connectionPool.getConnection();
+		pooledConnection.prepareCall("{call p(?)}").close();
+		CallableStatement pooledStatement = pooledConnection.prepareCall("{call p(?)}");
+		pooledStatement.addBatch();
+		pooledStatement.close();
+		pooledStatement = pooledConnection.prepareCall("{call p(?)}");
+		assertEquals(0, pooledStatement.executeBatch().length);
+		pooledStatement.setQueryTimeout(5);
+		pooledStatement.close();
+		pooledStatement = pooledConnection.prepareCall("{call p(?)}");
+		pooledStatement.close();
+		try {
+			pooledStatement.clearParameters();
+			fail("Using a closed callable statement did not result in an exception.");
+		} catch (IllegalStateException e) {
+			
+		}
+		assertEquals(2, connectionPool.getCallableStatementCacheHits());
+		assertEquals(2, connectionPool.getCallableStatementCacheMisses());
+		assertEquals(0, connectionPool.getStatementCacheHits());
+		connectionPool.releaseConnection(pooledConnection);
+		EasyMock.verify(callableStatement, connection, dataSource);
+	}
+	
+	@Test
+	public void testValidation() throws SQLException {
+		Statement statement = EasyMock.createMock(Statement.class);
+		EasyMock.expect(statement.execute("select 1")).andReturn(true);
+		statement.close();
+		EasyMock.expect(statement.execute("select 1")).andThrow(new SQLException());
+		statement.close();
+		EasyMock.replay(statement);
+		Connection invalid = EasyMock.createMock(Connection.class);
+		EasyMock.expect(invalid.isClosed()).andReturn(false).anyTimes();
+		EasyMock.expect(invalid.createStatement()).andReturn(statement).times(2);
+		invalid.close();
+		EasyMock.replay(invalid);
+		Connection valid = EasyMock.createMock(Connection.class);
+		EasyMock.expect(valid.isClosed()).andReturn(false).anyTimes();
+		EasyMock.replay(valid);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(invalid);
+		EasyMock.expect(dataSource.getConnection()).andReturn(valid);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		connectionPool.setValidator(ConnectionValidator.query("select 1"));
+		connectionPool.releaseConnection(connectionPool.getConnection());
+		connectionPool.setValidationInterval(60000);
+		connectionPool.releaseConnection(connectionPool.getConnection());
+		connectionPool.setValidationInterval(0);
+		Connection pooledConnection = connectionPool.getConnection();
+		assertFalse(pooledConnection.isClosed());
+		assertEquals(1, connectionPool.getCurrentConnections());
+		connectionPool.releaseConnection(pooledConnection);
+		EasyMock.verify(statement, invalid, valid, dataSource);
+	}
+	
+	@Test
+	public void testMaintenance() throws Exception {
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andAnswer(new IAnswer<Connection>() {
+			public Connection answer() {
+				return EasyMock.createNiceMock(Connection.class);
+			}
+		}).times(4);
+		EasyMock.replay(dataSource);
+		final AtomicBoolean invalid = new AtomicBoolean(false);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 3);
+		connectionPool.setValidator(new ConnectionValidator() {
+			public boolean isValid(Connection connection, int timeout) {
+				return !invalid.getAndSet(false);
+			}
+		});
+		Connection first = connectionPool.getConnection();
+		Connection second = connectionPool.getConnection();
+		Connection third = connectionPool.getConnection();
+		connectionPool.releaseConnection(first);
+		connectionPool.releaseConnection(second);
+		connectionPool.releaseConnection(third);
+		assertEquals(3, connectionPool.getCurrentConnections());
+		connectionPool.setIdleTimeout(50);
+		connectionPool.setMaintenanceInterval(20);
+		Thread.sleep(250);
+		assertEquals(1, connectionPool.getCurrentConnections());
+		connectionPool.setIdleTimeout(0);
+		invalid.set(true);
+		Thread.sleep(100);
+		assertFalse(invalid.get());
+		connectionPool.setMaintenanceInterval(0);
+		assertEquals(1, connectionPool.getCurrentConnections());
+		EasyMock.verify(dataSource);
+	}
+	
+	@Test
+	public void testMaintenanceDoesNotDelayTimeouts() throws Exception {
+		final AtomicReference<String> maintainer = new AtomicReference<String>();
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(new FakeDataSource(), 2, 2, 50);
+		Connection idle = connectionPool.getConnection();
+		Connection borrowed = connectionPool.getConnection();
+		connectionPool.releaseConnection(idle);
+		connectionPool.setValidator(new ConnectionValidator() {
+			public boolean isValid(Connection connection, int timeout) {
+				if (maintainer.compareAndSet(null, Thread.currentThread().getName())) {
+					try {
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return true;
+			}
+		});
+		connectionPool.setMaintenanceInterval(20);
+		Thread.sleep(200);
+		assertEquals("ConnectionPoolImpl-maintenance", maintainer.get());
+		assertTrue(borrowed.isClosed());
+		connectionPool.setMaintenanceInterval(0);
+	}
+	
+	@Test
+	public void testMaxLifetime() throws Exception {
+		Connection first = EasyMock.createMock(Connection.class);
+		EasyMock.expect(first.isClosed()).andReturn(false).anyTimes();
+		first.close();
+		EasyMock.replay(first);
+		Connection second = EasyMock.createMock(Connection.class);
+		EasyMock.expect(second.isClosed()).andReturn(false).anyTimes();
+		second.close();
+		EasyMock.replay(second);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(first);
+		EasyMock.expect(dataSource.getConnection()).andReturn(second);
+		EasyMock.expect(dataSource.getConnection()).andAnswer(new IAnswer<Connection>() {
+			public Connection answer() {
+				return EasyMock.createNiceMock(Connection.class);
+			}
+		}).anyTimes();
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		connectionPool.setMaxLifetime(50);
+		Connection pooledConnection = connectionPool.getConnection();
+		Thread.sleep(100);
+		connectionPool.releaseConnection(pooledConnection);
+		EasyMock.verify(first);
+		assertEquals(1, connectionPool.getCurrentConnections());
+		connectionPool.setMaintenanceInterval(20);
+		Thread.sleep(150);
+		connectionPool.setMaintenanceInterval(0);
+		assertEquals(1, connectionPool.getCurrentConnections());
+		EasyMock.verify(first, second, dataSource);
+	}
+	
+	@Test
+	public void testWarmUp() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		dataSource.setConnectLatency(FakeLatency.constant(100, TimeUnit.MILLISECONDS));
+		final AtomicInteger progress = new AtomicInteger();
+		WarmUp.Listener listener = new WarmUp.Listener() {
+			public void progress(int opened, int failed, int total) {
+				progress.set(opened);
+			}
+		};
+		long start = System.currentTimeMillis();
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 8, 8, 0, new WarmUp(8, 8, listener));
+		assertTrue(System.currentTimeMillis() - start < 400);
+		assertEquals(8, connectionPool.getCurrentConnections());
+		assertEquals(8, progress.get());
+		progress.set(0);
+		connectionPool = new ConnectionPoolImpl(dataSource, 8, 8, 0, new WarmUp(4, 0, listener));
+		assertEquals(0, progress.get());
+		Thread.sleep(400);
+		assertEquals(8, connectionPool.getCurrentConnections());
+		assertEquals(8, progress.get());
+		assertEquals(16, dataSource.getCreatedConnections());
+	}
+	
+	@Test
+	public void testCreationExecutor() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		dataSource.setConnectLatency(FakeLatency.constant(20, TimeUnit.MILLISECONDS));
+		final ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 0, 10);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		connectionPool.setCreationExecutor(executor);
+		connectionPool.setMaximumPendingConnections(2);
+		final AtomicInteger borrowed = new AtomicInteger();
+		Thread[] threads = new Thread[10];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						connectionPool.getConnection();
+						borrowed.incrementAndGet();
+					} catch (SQLException e) {
+						
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		executor.shutdown();
+		assertEquals(10, borrowed.get());
+		assertEquals(10, connectionPool.getCurrentConnections());
+		assertTrue(dataSource.getPeakConnecting() <= 2);
+	}
+	
+	@Test
+	public void testCreationExecutorMinimumConnections() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		final ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 0, 5);
+		final AtomicInteger executions = new AtomicInteger();
+		final Thread caller = Thread.currentThread();
+		final AtomicBoolean createdOnCaller = new AtomicBoolean();
+		dataSource.setConnectLatency(new FakeLatency() {
+			public long next(Random random) {
+				if (Thread.currentThread() == caller) {
+					createdOnCaller.set(true);
+				}
+				return 0;
+			}
+		});
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		connectionPool.setCreationExecutor(new Executor() {
+			public void execute(Runnable command) {
+				executions.incrementAndGet();
+				executor.execute(command);
+			}
+		});
+		connectionPool.setMinimumConnections(3);
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+		assertEquals(3, connectionPool.getCurrentConnections());
+		assertTrue(executions.get() > 0);
+		assertFalse(createdOnCaller.get());
+	}
+	
+	@Test
+	public void testCircuitBreaker() throws SQLException {
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andThrow(new SQLException()).times(2);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource);
+		connectionPool.setCircuitBreaker(new CircuitBreaker(2, 1, 1, TimeUnit.MINUTES));
+		for (int i = 0; i < 2; i++) {
+			try {
+				connectionPool.getConnection();
+				fail("A failed connection attempt did not result in an exception.");
+			} catch (CircuitBreakerOpenException e) {
+				fail("The circuit breaker opened before reaching its failure threshold.");
+			} catch (SQLException e) {
+				
+			}
+		}
+		try {
+			connectionPool.getConnection();
+			fail("An open circuit breaker did not result in an exception.");
+		} catch (CircuitBreakerOpenException e) {
+			
+		}
+		assertEquals(0, connectionPool.getCurrentConnections());
+		EasyMock.verify(dataSource);
+	}
+	
+	@Test
+	public void testDeadConnection() throws SQLException {
+		FakeDataSource dataSource = new FakeDataSource();
+		dataSource.setRows(3);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		connectionPool.setValidator(ConnectionValidator.query("select 1"));
+		Connection connection = connectionPool.getConnection();
+		ResultSet resultSet = connection.createStatement().executeQuery("select id from test");
+		int rows = 0;
+		while (resultSet.next()) {
+			assertEquals(++rows, resultSet.getInt("id"));
+		}
+		assertEquals(3, rows);
+		dataSource.setDeathRate(1);
+		try {
+			connection.createStatement().execute("update test set name = null");
+			fail("A dead connection did not result in an exception.");
+		} catch (SQLException e) {
+			assertEquals(FakeConnection.SQL_STATE_CONNECTION_FAILURE, e.getSQLState());
+		}
+		connectionPool.releaseConnection(connection);
+		dataSource.setDeathRate(0);
+		connection = connectionPool.getConnection();
+		assertEquals(2, dataSource.getCreatedConnections());
+		assertEquals(1, dataSource.getOpenConnections());
+		connectionPool.releaseConnection(connection);
+	}
+	
+	@Test
+	public void testMXBean() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 2);
+		connectionPool.setValidator(ConnectionValidator.query("select 1"));
+		ObjectName objectName = new ObjectName("com.opower.connectionpool:type=ConnectionPool,name=testMXBean");
+		connectionPool.setObjectName(objectName);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		Connection first = connectionPool.getConnection();
+		Connection second = connectionPool.getConnection();
+		try {
+			connectionPool.getConnection();
+			fail("A connection was created beyond the maximum bounds.");
+		} catch (SQLException e) {
+			
+		}
+		assertEquals(2, server.getAttribute(objectName, "ActiveConnections"));
+		assertEquals(0, server.getAttribute(objectName, "IdleConnections"));
+		assertEquals(2, server.getAttribute(objectName, "CurrentConnections"));
+		assertEquals(0, server.getAttribute(objectName, "WaitingThreads"));
+		assertEquals(2L, server.getAttribute(objectName, "BorrowCount"));
+		assertEquals(1L, server.getAttribute(objectName, "TimeoutCount"));
+		assertEquals(2L, server.getAttribute(objectName, "CreationCount"));
+		dataSource.setDeathRate(1);
+		try {
+			first.createStatement().execute("select 1");
+		} catch (SQLException e) {
+			
+		}
+		dataSource.setDeathRate(0);
+		connectionPool.releaseConnection(first);
+		first = connectionPool.getConnection();
+		assertEquals(1L, server.getAttribute(objectName, "ValidationFailureCount"));
+		assertEquals(1L, server.getAttribute(objectName, "DestructionCount"));
+		assertEquals(3L, server.getAttribute(objectName, "CreationCount"));
+		connectionPool.releaseConnection(first);
+		connectionPool.releaseConnection(second);
+		assertEquals(2, server.getAttribute(objectName, "IdleConnections"));
+		connectionPool.setObjectName(null);
+		assertFalse(server.isRegistered(objectName));
+	}
+	
+	@Test
+	public void testLatencyHistograms() throws Exception {
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(new FakeDataSource(), 1, 1);
+		Connection connection = connectionPool.getConnection();
+		Thread.sleep(20);
+		connectionPool.releaseConnection(connection);
+		connectionPool.releaseConnection(connectionPool.getConnection());
+		LatencyHistogram.Snapshot waitTimes = connectionPool.getWaitTimes().snapshotAndReset();
+		LatencyHistogram.Snapshot holdTimes = connectionPool.getHoldTimes().snapshotAndReset();
+		assertEquals(2, waitTimes.getCount());
+		assertEquals(2, holdTimes.getCount());
+		assertTrue(holdTimes.getMaximum(TimeUnit.MILLISECONDS) >= 20);
+		assertTrue(holdTimes.getPercentile(50, TimeUnit.MILLISECONDS) < 20);
+		assertEquals(0, connectionPool.getWaitTimes().snapshot().getCount());
+	}
+	
+	@Test
+	public void testSqlStatistics() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		dataSource.setRows(3);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		SqlStatistics sqlStatistics = new SqlStatistics();
+		connectionPool.setSqlStatistics(sqlStatistics);
+		Connection connection = connectionPool.getConnection();
+		Statement statement = connection.createStatement();
+		for (int i = 0; i < 2; i++) {
+			ResultSet resultSet = statement.executeQuery("select name from test where id = " + i);
+			while (resultSet.next()) {
+				
+			}
+			resultSet.close();
+		}
+		statement.addBatch("delete from test where id = 1");
+		statement.addBatch("delete from test where id = 2");
+		assertEquals(2, statement.executeBatch().length);
+		statement.close();
+		PreparedStatement preparedStatement = connection.prepareStatement("update test set name = ? where id = ?");
+		preparedStatement.setString(1, "name");
+		preparedStatement.setInt(2, 1);
+		assertEquals(3, preparedStatement.executeUpdate());
+		preparedStatement.close();
+		connectionPool.releaseConnection(connection);
+		assertEquals(3, sqlStatistics.getStatements().size());
+		SqlStatistics.Entry select = null;
+		SqlStatistics.Entry batch = null;
+		SqlStatistics.Entry update = null;
+		for (SqlStatistics.Entry entry : sqlStatistics.getStatements()) {
+			if (entry.getSql().startsWith("select")) {
+				select = entry;
+			} else if (entry.getSql().equals("<batch>")) {
+				batch = entry;
+			} else {
+				update = entry;
+			}
+		}
+		assertEquals("select name from test where id = ?", select.getSql());
+		assertEquals(2, select.getCount());
+		assertEquals(6, select.getRows());
+		assertEquals(1, batch.getCount());
+		assertEquals(6, batch.getRows());
+		assertEquals("update test set name = ? where id = ?", update.getSql());
+		assertEquals(1, update.getCount());
+		assertEquals(3, update.getRows());
+		connectionPool.setSqlStatistics(null);
+		connection = connectionPool.getConnection();
+		connection.createStatement().execute("select 1");
+		connectionPool.releaseConnection(connection);
+		assertEquals(2, select.getCount());
+	}
+	
+	@Test
+	public void testSlowQueryLog() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		dataSource.setQueryLatency(FakeLatency.constant(20, TimeUnit.MILLISECONDS));
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		SlowQueryLog slowQueryLog = new SlowQueryLog(10, TimeUnit.MILLISECONDS);
+		connectionPool.setSlowQueryLog(slowQueryLog);
+		StringWriter writer = new StringWriter();
+		WriterAppender appender = new WriterAppender(new SimpleLayout(), writer);
+		Logger.getLogger(SlowQueryLog.class).addAppender(appender);
+		try {
+			Connection connection = connectionPool.getConnection();
+			PreparedStatement preparedStatement = connection.prepareStatement("update test set name = ? where id = ?");
+			preparedStatement.setString(1, "slow");
+			preparedStatement.setLong(2, 7);
+			preparedStatement.executeUpdate();
+			preparedStatement.close();
+			connection.createStatement().executeQuery("select 1").close();
+			connectionPool.releaseConnection(connection);
+			slowQueryLog.close();
+			assertEquals(2, slowQueryLog.getLogged());
+			String log = writer.toString();
+			assertTrue(log.contains("on thread " + Thread.currentThread().getName() + ": update test set name = ? where id = ? [1='slow', 2=7]"));
+			assertTrue(log.contains(": select 1"));
+		} finally {
+			Logger.getLogger(SlowQueryLog.class).removeAppender(appender);
+		}
+	}
+	
+	@Test
+	public void testLeakDetector() throws Exception {
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(new FakeDataSource(), 0, 2);
+		LeakDetector leakDetector = new LeakDetector(50, TimeUnit.MILLISECONDS, 1);
+		connectionPool.setLeakDetector(leakDetector);
+		StringWriter writer = new StringWriter();
+		WriterAppender appender = new WriterAppender(new SimpleLayout(), writer);
+		Logger.getLogger(LeakDetector.class).addAppender(appender);
+		try {
+			Connection released = connectionPool.getConnection();
+			connectionPool.releaseConnection(released);
+			Connection leaked = connectionPool.getConnection();
+			Thread.sleep(300);
+			assertEquals(1, leakDetector.getSuspected());
+			assertEquals(2, leakDetector.getCaptured());
+			assertTrue(writer.toString().contains("borrowed at " + ConnectionPoolImplTest.class.getName() + ".testLeakDetector("));
+			connectionPool.releaseConnection(leaked);
+			assertTrue(writer.toString().contains("was released after"));
+		} finally {
+			Logger.getLogger(LeakDetector.class).removeAppender(appender);
+		}
+	}
+	
+	@Test
+	public void testSessionState() throws Exception {
+		Connection connection = EasyMock.createStrictMock(Connection.class);
+		EasyMock.expect(connection.isClosed()).andStubReturn(false);
+		EasyMock.expect(connection.getAutoCommit()).andReturn(true);
+		connection.setAutoCommit(false);
+		EasyMock.expect(connection.getTransactionIsolation()).andReturn(Connection.TRANSACTION_READ_COMMITTED);
+		EasyMock.expect(connection.isReadOnly()).andReturn(false);
+		connection.setReadOnly(true);
+		connection.setAutoCommit(true);
+		connection.setReadOnly(false);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		Connection pooledConnection = connectionPool.getConnection();
+		pooledConnection.setAutoCommit(false);
+		pooledConnection.setAutoCommit(false);
+		assertFalse(pooledConnection.getAutoCommit());
+		pooledConnection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		pooledConnection.setReadOnly(true);
+		assertTrue(pooledConnection.isReadOnly());
+		connectionPool.releaseConnection(pooledConnection);
+		pooledConnection = connectionPool.getConnection();
+		assertTrue(pooledConnection.getAutoCommit());
+		pooledConnection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		pooledConnection.setReadOnly(false);
+		connectionPool.releaseConnection(pooledConnection);
+		EasyMock.verify(connection, dataSource);
+	}
+	
+	@Test
+	public void testDirtyRollback() throws Exception {
+		Statement statement = EasyMock.createNiceMock(Statement.class);
+		EasyMock.replay(statement);
+		Connection connection = EasyMock.createStrictMock(Connection.class);
+		EasyMock.expect(connection.isClosed()).andStubReturn(false);
+		EasyMock.expect(connection.getAutoCommit()).andReturn(true);
+		connection.setAutoCommit(false);
+		EasyMock.expect(connection.createStatement()).andReturn(statement);
+		connection.rollback();
+		connection.setAutoCommit(true);
+		connection.setAutoCommit(false);
+		EasyMock.expect(connection.createStatement()).andReturn(statement);
+		connection.commit();
+		connection.setAutoCommit(true);
+		EasyMock.expect(connection.createStatement()).andReturn(statement);
+		EasyMock.replay(connection);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(connection);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 1, 1);
+		Connection pooledConnection = connectionPool.getConnection();
+		pooledConnection.setAutoCommit(false);
+		pooledConnection.createStatement().executeUpdate("update test set name = 'dirty'");
+		connectionPool.releaseConnection(pooledConnection);
+		pooledConnection = connectionPool.getConnection();
+		pooledConnection.setAutoCommit(false);
+		pooledConnection.createStatement().executeUpdate("update test set name = 'committed'");
+		pooledConnection.commit();
+		connectionPool.releaseConnection(pooledConnection);
+		pooledConnection = connectionPool.getConnection();
+		pooledConnection.createStatement().executeQuery("select 1");
+		connectionPool.releaseConnection(pooledConnection);
+		EasyMock.verify(connection, dataSource);
+	}
+	
+	@Test
+	public void testResize() throws Exception {
+		FakeDataSource dataSource = new FakeDataSource();
+		final ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, 0, 2);
+		Connection first = connectionPool.getConnection();
+		Connection second = connectionPool.getConnection();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					result.set(connectionPool.getConnection(5, TimeUnit.SECONDS));
+				} catch (SQLException e) {
+					result.set(e);
+				}
+			}
+		};
+		waiter.start();
+		Thread.sleep(100);
+		assertNull(result.get());
+		connectionPool.setMaximumConnections(3);
+		waiter.join(5000);
+		assertTrue(result.get() instanceof Connection);
+		assertEquals(3, connectionPool.getCurrentConnections());
+		connectionPool.setMaximumConnections(1);
+		assertEquals(3, connectionPool.getCurrentConnections());
+		connectionPool.releaseConnection(first);
+		assertEquals(2, connectionPool.getCurrentConnections());
+		connectionPool.releaseConnection(second);
+		assertEquals(1, connectionPool.getCurrentConnections());
+		connectionPool.releaseConnection((Connection)result.get());
+		assertEquals(1, connectionPool.getCurrentConnections());
+		assertEquals(1, connectionPool.getIdleConnections());
+		assertEquals(2, connectionPool.getDestructionCount());
+		try {
+			connectionPool.setMinimumConnections(2);
+			fail("Expected an exception.");
+		} catch (IllegalArgumentException e) {
+			
+		}
+		connectionPool.setMaximumConnections(4);
+		connectionPool.setMinimumConnections(3);
+		assertEquals(3, connectionPool.getCurrentConnections());
+		connectionPool.setMaximumConnections(3);
+		connectionPool.setMinimumConnections(0);
+		connectionPool.setMaximumConnections(2);
+		assertEquals(2, connectionPool.getCurrentConnections());
+		assertEquals(2, dataSource.getOpenConnections());
+	}
+	
+	@Test
+	public void testSizeController() throws Exception {
+		final ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(new FakeDataSource(), 0, 1);
+		PoolSizeController sizeController = new PoolSizeController(1, 3);
+		sizeController.setInterval(50);
+		connectionPool.setSizeController(sizeController);
+		assertSame(sizeController, connectionPool.getSizeController());
+		Connection borrowed = connectionPool.getConnection();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					result.set(connectionPool.getConnection(5, TimeUnit.SECONDS));
+				} catch (SQLException e) {
+					result.set(e);
+				}
+			}
+		};
+		waiter.start();
+		waiter.join(5000);
+		assertTrue(result.get() instanceof Connection);
+		assertEquals(2, connectionPool.getMaximumConnections());
+		connectionPool.releaseConnection(borrowed);
+		connectionPool.releaseConnection((Connection)result.get());
+		Thread.sleep(300);
+		assertEquals(1, connectionPool.getMaximumConnections());
+		assertEquals(1, connectionPool.getCurrentConnections());
+		connectionPool.setSizeController(null);
+	}
 	
 }
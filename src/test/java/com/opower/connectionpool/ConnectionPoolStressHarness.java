@@ -0,0 +1,99 @@
+package com.opower.connectionpool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link ConnectionPoolImpl} backed by a {@link FakeDataSource} under load without a
+ * database.
+ * <p>
+ * Every consumer thread repeatedly borrows a connection, executes a query and releases the
+ * connection again until the duration has elapsed.  The fake driver adds exponentially distributed
+ * connect and query latencies and kills connections at random, so the pool has to validate and
+ * replace connections while it is under load.  The harness reports the number of borrows per
+ * second, the number of failed borrows and queries and the connections left open at the end.
+ * <p>
+ * The arguments are, in order and all optional: the number of consumer threads, the duration in
+ * seconds, the maximum number of connections, the mean query latency in microseconds, the mean
+ * connect latency in milliseconds and the chance of a connection dying on each round trip.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class ConnectionPoolStressHarness {
+
+	/**
+	 * Runs the stress harness.
+	 * @param args The optional arguments of the harness.
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = (args.length > 0 ? Integer.parseInt(args[0]) : 64);
+		long duration = (args.length > 1 ? Long.parseLong(args[1]) : 10);
+		int maximumConnections = (args.length > 2 ? Integer.parseInt(args[2]) : 16);
+		long queryLatency = (args.length > 3 ? Long.parseLong(args[3]) : 500);
+		long connectLatency = (args.length > 4 ? Long.parseLong(args[4]) : 20);
+		double deathRate = (args.length > 5 ? Double.parseDouble(args[5]) : 0.0001);
+		final FakeDataSource dataSource = new FakeDataSource();
+		dataSource.setQueryLatency(FakeLatency.exponential(queryLatency, TimeUnit.MICROSECONDS));
+		dataSource.setConnectLatency(FakeLatency.exponential(connectLatency, TimeUnit.MILLISECONDS));
+		dataSource.setDeathRate(deathRate);
+		final ConnectionPoolImpl connectionPool = new ConnectionPoolImpl(dataSource, maximumConnections / 2, maximumConnections);
+		connectionPool.setValidator(ConnectionValidator.query("select 1"));
+		final AtomicLong borrows = new AtomicLong();
+		final AtomicLong borrowFailures = new AtomicLong();
+		final AtomicLong queryFailures = new AtomicLong();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(duration);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while (System.nanoTime() < deadline) {
+							Connection connection;
+							try {
+								connection = connectionPool.getConnection(ConnectionPoolStressHarness.WAIT, TimeUnit.SECONDS);
+								borrows.incrementAndGet();
+							} catch (SQLException e) {
+								borrowFailures.incrementAndGet();
+								continue;
+							}
+							try {
+								Statement statement = connection.createStatement();
+								statement.executeQuery("select id, name from test").close();
+								statement.close();
+							} catch (SQLException e) {
+								queryFailures.incrementAndGet();
+							} finally {
+								try {
+									connectionPool.releaseConnection(connection);
+								} catch (SQLException e) {
+									queryFailures.incrementAndGet();
+								}
+							}
+						}
+					} finally {
+						done.countDown();
+					}
+				}
+			}, "stress-" + i);
+			thread.start();
+		}
+		done.await();
+		System.out.println("Threads:             " + threads);
+		System.out.println("Borrows per second:  " + borrows.get() / duration);
+		System.out.println("Failed borrows:      " + borrowFailures.get());
+		System.out.println("Failed queries:      " + queryFailures.get());
+		System.out.println("Round trips:         " + dataSource.getExecutions());
+		System.out.println("Created connections: " + dataSource.getCreatedConnections());
+		System.out.println("Open connections:    " + dataSource.getOpenConnections());
+		System.out.println("Pooled connections:  " + connectionPool.getCurrentConnections());
+		System.exit(0);
+	}
+
+	private static final long WAIT = 5;
+
+}
@@ -0,0 +1,432 @@
+package com.opower.connectionpool;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Provides a connection of the fake JDBC driver.
+ * <p>
+ * Connection properties are kept locally.  Executing a statement, committing and rolling back 
+ * wait for the query latency of the data source and kill the connection at the death rate of the
+ * data source.  A dead connection behaves like a connection whose socket has been dropped: it 
+ * still reports that it is open, but every subsequent round trip fails.  Callable statements, 
+ * savepoints and database metadata are not supported.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class FakeConnection implements Connection {
+	
+	/**
+	 * Defines the SQL state reported when a round trip fails because the connection is dead.
+	 */
+	public static final String SQL_STATE_CONNECTION_FAILURE = "08006";
+	
+	/**
+	 * Initializes a new instance of the FakeConnection class.
+	 * @param dataSource The data source that created the connection.
+	 * @param random The source of randomness of the connection.
+	 */
+	public FakeConnection(FakeDataSource dataSource, Random random) {
+		this.dataSource = dataSource;
+		this.random = random;
+		this.autoCommit = true;
+		this.transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+		this.holdability = ResultSet.HOLD_CURSORS_OVER_COMMIT;
+		this.typeMap = new HashMap<String, Class<?>>();
+	}
+	
+	/**
+	 * Gets the data source that created the connection.
+	 * @return The data source that created the connection.
+	 */
+	public FakeDataSource getDataSource() {
+		return this.dataSource;
+	}
+	
+	/**
+	 * Simulates a round trip to the database.
+	 * @param sql The SQL text that is executed or null if the round trip does not execute a statement.
+	 * @throws SQLException Thrown if the connection has been closed, is dead or dies during the round trip.
+	 */
+	public void execute(String sql) throws SQLException {
+		this.checkOpen();
+		if (this.dead) {
+			throw new SQLException("The connection has been reset.", FakeConnection.SQL_STATE_CONNECTION_FAILURE);
+		}
+		this.dataSource.getQueryLatency().await(this.random);
+		this.dataSource.executed();
+		if (this.random.nextDouble() < this.dataSource.getDeathRate()) {
+			this.kill();
+			throw new SQLException("The connection has been reset.", FakeConnection.SQL_STATE_CONNECTION_FAILURE);
+		}
+	}
+	
+	/**
+	 * Kills the connection so that every subsequent round trip fails.
+	 */
+	public void kill() {
+		this.dead = true;
+	}
+	
+	/**
+	 * Indicates whether the connection is dead.
+	 * @return True if the connection is dead; otherwise, false.
+	 */
+	public boolean isDead() {
+		return this.dead;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#createStatement()
+	 */
+	public Statement createStatement() throws SQLException {
+		this.checkOpen();
+		return new FakeStatement(this, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, this.holdability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareStatement(java.lang.String)
+	 */
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		this.checkOpen();
+		return new FakePreparedStatement(this, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, this.holdability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareCall(java.lang.String)
+	 */
+	public CallableStatement prepareCall(String sql) throws SQLException {
+		this.checkOpen();
+		throw new SQLException("Callable statements are not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#nativeSQL(java.lang.String)
+	 */
+	public String nativeSQL(String sql) throws SQLException {
+		this.checkOpen();
+		return sql;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setAutoCommit(boolean)
+	 */
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		this.checkOpen();
+		this.autoCommit = autoCommit;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getAutoCommit()
+	 */
+	public boolean getAutoCommit() throws SQLException {
+		this.checkOpen();
+		return this.autoCommit;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#commit()
+	 */
+	public void commit() throws SQLException {
+		this.execute(null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#rollback()
+	 */
+	public void rollback() throws SQLException {
+		this.execute(null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#close()
+	 */
+	public synchronized void close() throws SQLException {
+		if (!this.closed) {
+			this.closed = true;
+			this.dataSource.closed(this);
+		}
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#isClosed()
+	 */
+	public boolean isClosed() throws SQLException {
+		return this.closed;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getMetaData()
+	 */
+	public DatabaseMetaData getMetaData() throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setReadOnly(boolean)
+	 */
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		this.checkOpen();
+		this.readOnly = readOnly;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#isReadOnly()
+	 */
+	public boolean isReadOnly() throws SQLException {
+		this.checkOpen();
+		return this.readOnly;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setCatalog(java.lang.String)
+	 */
+	public void setCatalog(String catalog) throws SQLException {
+		this.checkOpen();
+		this.catalog = catalog;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getCatalog()
+	 */
+	public String getCatalog() throws SQLException {
+		this.checkOpen();
+		return this.catalog;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setTransactionIsolation(int)
+	 */
+	public void setTransactionIsolation(int level) throws SQLException {
+		this.checkOpen();
+		this.transactionIsolation = level;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getTransactionIsolation()
+	 */
+	public int getTransactionIsolation() throws SQLException {
+		this.checkOpen();
+		return this.transactionIsolation;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getWarnings()
+	 */
+	public SQLWarning getWarnings() throws SQLException {
+		this.checkOpen();
+		return null;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#clearWarnings()
+	 */
+	public void clearWarnings() throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#createStatement(int, int)
+	 */
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+		this.checkOpen();
+		return new FakeStatement(this, resultSetType, resultSetConcurrency, this.holdability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int)
+	 */
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		this.checkOpen();
+		return new FakePreparedStatement(this, sql, resultSetType, resultSetConcurrency, this.holdability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareCall(java.lang.String, int, int)
+	 */
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		this.checkOpen();
+		throw new SQLException("Callable statements are not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getTypeMap()
+	 */
+	public Map<String, Class<?>> getTypeMap() throws SQLException {
+		this.checkOpen();
+		return this.typeMap;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setTypeMap(java.util.Map)
+	 */
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+		this.checkOpen();
+		this.typeMap = map;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setHoldability(int)
+	 */
+	public void setHoldability(int holdability) throws SQLException {
+		this.checkOpen();
+		this.holdability = holdability;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#getHoldability()
+	 */
+	public int getHoldability() throws SQLException {
+		this.checkOpen();
+		return this.holdability;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setSavepoint()
+	 */
+	public Savepoint setSavepoint() throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#setSavepoint(java.lang.String)
+	 */
+	public Savepoint setSavepoint(String name) throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#rollback(java.sql.Savepoint)
+	 */
+	public void rollback(Savepoint savepoint) throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#releaseSavepoint(java.sql.Savepoint)
+	 */
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#createStatement(int, int, int)
+	 */
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		this.checkOpen();
+		return new FakeStatement(this, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int, int)
+	 */
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		this.checkOpen();
+		return new FakePreparedStatement(this, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareCall(java.lang.String, int, int, int)
+	 */
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		this.checkOpen();
+		throw new SQLException("Callable statements are not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareStatement(java.lang.String, int)
+	 */
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		this.checkOpen();
+		return new FakePreparedStatement(this, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, this.holdability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareStatement(java.lang.String, int[])
+	 */
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+		this.checkOpen();
+		return new FakePreparedStatement(this, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, this.holdability);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Connection#prepareStatement(java.lang.String, java.lang.String[])
+	 */
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+		this.checkOpen();
+		return new FakePreparedStatement(this, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, this.holdability);
+	}
+	
+	private FakeDataSource dataSource;
+	private Random random;
+	private volatile boolean closed;
+	private volatile boolean dead;
+	private boolean autoCommit;
+	private boolean readOnly;
+	private String catalog;
+	private int transactionIsolation;
+	private int holdability;
+	private Map<String, Class<?>> typeMap;
+	
+	/**
+	 * Throws an exception if the connection has been closed.
+	 * @throws SQLException Thrown if the connection has been closed.
+	 */
+	private void checkOpen() throws SQLException {
+		if (this.closed) {
+			throw new SQLException("The connection has been closed.");
+		}
+	}
+	
+}
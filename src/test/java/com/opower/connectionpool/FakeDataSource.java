@@ -0,0 +1,258 @@
+package com.opower.connectionpool;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+/**
+ * Provides the data source of a fake JDBC driver that simulates a database in memory, so that the
+ * connection pool can be tested, soaked and benchmarked without a database or a network.
+ * <p>
+ * The data source simulates the following, all of which can be changed at any time:
+ * 
+ * <ul>
+ * <li>The latency of opening a connection (see {@link #setConnectLatency(FakeLatency)}).
+ * <li>The latency of every round trip to the database (see {@link #setQueryLatency(FakeLatency)}).
+ * <li>The probability that a connection dies during a round trip (see {@link #setDeathRate(double)}).
+ * <li>The number of rows returned by queries and updated by other statements (see {@link #setRows(int)}).
+ * <li>The probability that opening a connection fails (see {@link #setFailureRate(double)}).
+ * </ul>
+ * 
+ * The data source also counts the connections it has opened, the connections that are still open
+ * the largest number of connections that were being opened at the same time and the round trips
+ * that have been made, so that tests can make assertions about them.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class FakeDataSource implements DataSource {
+	
+	/**
+	 * Initializes a new instance of the FakeDataSource class with no latency, no failures and no rows.
+	 */
+	public FakeDataSource() {
+		this.connectLatency = FakeLatency.NONE;
+		this.queryLatency = FakeLatency.NONE;
+		this.random = new Random();
+		this.createdConnections = new AtomicInteger();
+		this.openConnections = new AtomicInteger();
+		this.connecting = new AtomicInteger();
+		this.peakConnecting = new AtomicInteger();
+		this.executions = new AtomicLong();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see javax.sql.DataSource#getConnection()
+	 */
+	public Connection getConnection() throws SQLException {
+		Random random;
+		synchronized (this.random) {
+			random = new Random(this.random.nextLong());
+		}
+		int connecting = this.connecting.incrementAndGet();
+		int peakConnecting;
+		while (connecting > (peakConnecting = this.peakConnecting.get())) {
+			if (this.peakConnecting.compareAndSet(peakConnecting, connecting)) {
+				break;
+			}
+		}
+		try {
+			this.connectLatency.await(random);
+			if (random.nextDouble() < this.failureRate) {
+				throw new SQLException("The connection was refused.", FakeConnection.SQL_STATE_CONNECTION_FAILURE);
+			}
+		} finally {
+			this.connecting.decrementAndGet();
+		}
+		this.createdConnections.incrementAndGet();
+		this.openConnections.incrementAndGet();
+		return new FakeConnection(this, random);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see javax.sql.DataSource#getConnection(java.lang.String, java.lang.String)
+	 */
+	public Connection getConnection(String username, String password) throws SQLException {
+		return this.getConnection();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see javax.sql.DataSource#getLogWriter()
+	 */
+	public PrintWriter getLogWriter() throws SQLException {
+		return this.logWriter;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see javax.sql.DataSource#setLogWriter(java.io.PrintWriter)
+	 */
+	public void setLogWriter(PrintWriter logWriter) throws SQLException {
+		this.logWriter = logWriter;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see javax.sql.DataSource#getLoginTimeout()
+	 */
+	public int getLoginTimeout() throws SQLException {
+		return this.loginTimeout;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see javax.sql.DataSource#setLoginTimeout(int)
+	 */
+	public void setLoginTimeout(int loginTimeout) throws SQLException {
+		this.loginTimeout = loginTimeout;
+	}
+	
+	/**
+	 * Gets the latency of opening a connection.
+	 * @return The connect latency.
+	 */
+	public FakeLatency getConnectLatency() {
+		return this.connectLatency;
+	}
+	
+	/**
+	 * Sets the latency of opening a connection.
+	 * @param connectLatency The connect latency.
+	 */
+	public void setConnectLatency(FakeLatency connectLatency) {
+		this.connectLatency = connectLatency;
+	}
+	
+	/**
+	 * Gets the latency of a round trip to the database.
+	 * @return The query latency.
+	 */
+	public FakeLatency getQueryLatency() {
+		return this.queryLatency;
+	}
+	
+	/**
+	 * Sets the latency of a round trip to the database.
+	 * @param queryLatency The query latency.
+	 */
+	public void setQueryLatency(FakeLatency queryLatency) {
+		this.queryLatency = queryLatency;
+	}
+	
+	/**
+	 * Gets the probability that a connection dies during a round trip.
+	 * @return The death rate between zero and one.
+	 */
+	public double getDeathRate() {
+		return this.deathRate;
+	}
+	
+	/**
+	 * Sets the probability that a connection dies during a round trip.
+	 * @param deathRate The death rate between zero and one.
+	 */
+	public void setDeathRate(double deathRate) {
+		this.deathRate = deathRate;
+	}
+	
+	/**
+	 * Gets the probability that opening a connection fails.
+	 * @return The failure rate between zero and one.
+	 */
+	public double getFailureRate() {
+		return this.failureRate;
+	}
+	
+	/**
+	 * Sets the probability that opening a connection fails.
+	 * @param failureRate The failure rate between zero and one.
+	 */
+	public void setFailureRate(double failureRate) {
+		this.failureRate = failureRate;
+	}
+	
+	/**
+	 * Gets the number of rows returned by queries and updated by other statements.
+	 * @return The number of rows.
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+	
+	/**
+	 * Sets the number of rows returned by queries and updated by other statements.
+	 * @param rows The number of rows.
+	 */
+	public void setRows(int rows) {
+		this.rows = rows;
+	}
+	
+	/**
+	 * Gets the number of connections that have been opened.
+	 * @return The number of connections that have been opened.
+	 */
+	public int getCreatedConnections() {
+		return this.createdConnections.get();
+	}
+	
+	/**
+	 * Gets the number of connections that have been opened and not yet closed.
+	 * @return The number of open connections.
+	 */
+	public int getOpenConnections() {
+		return this.openConnections.get();
+	}
+	
+	/**
+	 * Gets the largest number of connections that were being opened at the same time.
+	 * @return The peak number of concurrent connects.
+	 */
+	public int getPeakConnecting() {
+		return this.peakConnecting.get();
+	}
+	
+	/**
+	 * Gets the number of round trips that have been made to the database.
+	 * @return The number of round trips.
+	 */
+	public long getExecutions() {
+		return this.executions.get();
+	}
+	
+	/**
+	 * Records that a connection has been closed.
+	 * @param connection The connection.
+	 */
+	void closed(FakeConnection connection) {
+		this.openConnections.decrementAndGet();
+	}
+	
+	/**
+	 * Records that a round trip has been made to the database.
+	 */
+	void executed() {
+		this.executions.incrementAndGet();
+	}
+	
+	private volatile FakeLatency connectLatency;
+	private volatile FakeLatency queryLatency;
+	private volatile double deathRate;
+	private volatile double failureRate;
+	private volatile int rows;
+	private Random random;
+	private AtomicInteger createdConnections;
+	private AtomicInteger openConnections;
+	private AtomicInteger connecting;
+	private AtomicInteger peakConnecting;
+	private AtomicLong executions;
+	private PrintWriter logWriter;
+	private int loginTimeout;
+	
+}
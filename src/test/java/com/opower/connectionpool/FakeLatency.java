@@ -0,0 +1,90 @@
+package com.opower.connectionpool;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Describes the distribution of a latency simulated by the fake JDBC driver.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public abstract class FakeLatency {
+	
+	/**
+	 * Defines a latency of zero, which returns without waiting.
+	 */
+	public static final FakeLatency NONE = FakeLatency.constant(0, TimeUnit.NANOSECONDS);
+	
+	/**
+	 * Creates a latency that is always the same.
+	 * @param latency The latency.
+	 * @param unit The time unit of the latency.
+	 * @return The latency.
+	 */
+	public static FakeLatency constant(long latency, TimeUnit unit) {
+		final long nanos = unit.toNanos(latency);
+		return new FakeLatency() {
+			public long next(Random random) {
+				return nanos;
+			}
+		};
+	}
+	
+	/**
+	 * Creates a latency that is uniformly distributed between two bounds.
+	 * @param minimum The smallest latency.
+	 * @param maximum The largest latency.
+	 * @param unit The time unit of the bounds.
+	 * @return The latency.
+	 */
+	public static FakeLatency uniform(long minimum, long maximum, TimeUnit unit) {
+		final long minimumNanos = unit.toNanos(minimum);
+		final long rangeNanos = unit.toNanos(maximum) - minimumNanos;
+		return new FakeLatency() {
+			public long next(Random random) {
+				return minimumNanos + (long)(random.nextDouble() * rangeNanos);
+			}
+		};
+	}
+	
+	/**
+	 * Creates a latency that is exponentially distributed around a mean, which produces the long
+	 * tail that is typical of query latencies.
+	 * @param mean The mean latency.
+	 * @param unit The time unit of the mean.
+	 * @return The latency.
+	 */
+	public static FakeLatency exponential(long mean, TimeUnit unit) {
+		final long meanNanos = unit.toNanos(mean);
+		return new FakeLatency() {
+			public long next(Random random) {
+				return (long)(-Math.log(1 - random.nextDouble()) * meanNanos);
+			}
+		};
+	}
+	
+	/**
+	 * Draws the next latency from the distribution.
+	 * @param random The source of randomness.
+	 * @return The latency in nanoseconds.
+	 */
+	public abstract long next(Random random);
+	
+	/**
+	 * Draws the next latency from the distribution and waits for it to elapse.
+	 * @param random The source of randomness.
+	 */
+	public void await(Random random) {
+		long nanos = this.next(random);
+		if (nanos <= 0) {
+			return;
+		}
+		long deadline = System.nanoTime() + nanos;
+		while (nanos > 0) {
+			LockSupport.parkNanos(nanos);
+			nanos = deadline - System.nanoTime();
+		}
+	}
+	
+}
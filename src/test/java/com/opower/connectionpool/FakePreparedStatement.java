@@ -0,0 +1,395 @@
+package com.opower.connectionpool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides a prepared statement of the fake JDBC driver.  Parameters are recorded so that they 
+ * can be inspected, but are otherwise ignored.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class FakePreparedStatement extends FakeStatement implements PreparedStatement {
+	
+	/**
+	 * Initializes a new instance of the FakePreparedStatement class.
+	 * @param connection The connection that created the statement.
+	 * @param sql The SQL text of the statement.
+	 * @param resultSetType The result set type.
+	 * @param resultSetConcurrency The result set concurrency.
+	 * @param resultSetHoldability The result set holdability.
+	 */
+	public FakePreparedStatement(FakeConnection connection, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+		super(connection, resultSetType, resultSetConcurrency, resultSetHoldability);
+		this.sql = sql;
+		this.parameters = new HashMap<Integer, Object>();
+	}
+	
+	/**
+	 * Gets the SQL text of the statement.
+	 * @return The SQL text of the statement.
+	 */
+	public String getSql() {
+		return this.sql;
+	}
+	
+	/**
+	 * Gets the value of a parameter that has been set.
+	 * @param parameterIndex The index of the parameter, starting at one.
+	 * @return The value of the parameter or null if it has not been set.
+	 */
+	public Object getParameter(int parameterIndex) {
+		return this.parameters.get(Integer.valueOf(parameterIndex));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#executeQuery()
+	 */
+	public ResultSet executeQuery() throws SQLException {
+		return this.executeQuery(this.sql);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#executeUpdate()
+	 */
+	public int executeUpdate() throws SQLException {
+		return this.executeUpdate(this.sql);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setNull(int, int)
+	 */
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setBoolean(int, boolean)
+	 */
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Boolean.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setByte(int, byte)
+	 */
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Byte.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setShort(int, short)
+	 */
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Short.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setInt(int, int)
+	 */
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Integer.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setLong(int, long)
+	 */
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Long.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setFloat(int, float)
+	 */
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Float.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setDouble(int, double)
+	 */
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), Double.valueOf(x));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setBigDecimal(int, java.math.BigDecimal)
+	 */
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setString(int, java.lang.String)
+	 */
+	public void setString(int parameterIndex, String x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setBytes(int, byte[])
+	 */
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date)
+	 */
+	public void setDate(int parameterIndex, Date x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time)
+	 */
+	public void setTime(int parameterIndex, Time x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp)
+	 */
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream, int)
+	 */
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setUnicodeStream(int, java.io.InputStream, int)
+	 */
+	@Deprecated
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, int)
+	 */
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#clearParameters()
+	 */
+	public void clearParameters() throws SQLException {
+		this.checkOpen();
+		this.parameters.clear();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int, int)
+	 */
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scale) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int)
+	 */
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object)
+	 */
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#execute()
+	 */
+	public boolean execute() throws SQLException {
+		return this.execute(this.sql);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#addBatch()
+	 */
+	public void addBatch() throws SQLException {
+		this.addBatch(this.sql);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, int)
+	 */
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), reader);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setRef(int, java.sql.Ref)
+	 */
+	public void setRef(int i, Ref x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(i), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setBlob(int, java.sql.Blob)
+	 */
+	public void setBlob(int i, Blob x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(i), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setClob(int, java.sql.Clob)
+	 */
+	public void setClob(int i, Clob x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(i), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setArray(int, java.sql.Array)
+	 */
+	public void setArray(int i, Array x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(i), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#getMetaData()
+	 */
+	public ResultSetMetaData getMetaData() throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date, java.util.Calendar)
+	 */
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time, java.util.Calendar)
+	 */
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp, java.util.Calendar)
+	 */
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setNull(int, int, java.lang.String)
+	 */
+	public void setNull(int paramIndex, int sqlType, String typeName) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(paramIndex), null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#setURL(int, java.net.URL)
+	 */
+	public void setURL(int parameterIndex, URL x) throws SQLException {
+		this.checkOpen();
+		this.parameters.put(Integer.valueOf(parameterIndex), x);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.PreparedStatement#getParameterMetaData()
+	 */
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	private String sql;
+	private Map<Integer, Object> parameters;
+	
+}
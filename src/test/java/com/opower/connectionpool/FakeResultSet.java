@@ -0,0 +1,1269 @@
+package com.opower.connectionpool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Provides a forward only, read only result set of the fake JDBC driver.
+ * <p>
+ * The result set holds a configurable number of rows, each with an <code>ID</code> column that 
+ * holds the number of the row and a <code>NAME</code> column that holds the text 
+ * <code>name</code> followed by the number of the row.  No row data is actually stored.  Methods
+ * that move the cursor backwards, update rows or convert a column to a type other than a number 
+ * or text throw an exception.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class FakeResultSet implements ResultSet {
+
+	/**
+	 * Initializes a new instance of the FakeResultSet class.
+	 * @param statement The statement that produced the result set.
+	 * @param rows The number of rows in the result set.
+	 */
+	public FakeResultSet(Statement statement, int rows) {
+		this.statement = statement;
+		this.rows = rows;
+	}
+	
+	/**
+	 * Indicates whether the result set has been closed.
+	 * @return True if the result set has been closed; otherwise, false.
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#next()
+	 */
+	public boolean next() throws SQLException {
+		this.checkOpen();
+		if (this.row <= this.rows) {
+			this.row++;
+		}
+		return (this.row <= this.rows);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#close()
+	 */
+	public void close() {
+		this.closed = true;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#wasNull()
+	 */
+	public boolean wasNull() throws SQLException {
+		this.checkOpen();
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getString(int)
+	 */
+	public String getString(int columnIndex) throws SQLException {
+		return this.getValue(columnIndex).toString();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBoolean(int)
+	 */
+	public boolean getBoolean(int columnIndex) throws SQLException {
+		return (this.getNumber(columnIndex).longValue() != 0);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getByte(int)
+	 */
+	public byte getByte(int columnIndex) throws SQLException {
+		return this.getNumber(columnIndex).byteValue();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getShort(int)
+	 */
+	public short getShort(int columnIndex) throws SQLException {
+		return this.getNumber(columnIndex).shortValue();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getInt(int)
+	 */
+	public int getInt(int columnIndex) throws SQLException {
+		return this.getNumber(columnIndex).intValue();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getLong(int)
+	 */
+	public long getLong(int columnIndex) throws SQLException {
+		return this.getNumber(columnIndex).longValue();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getFloat(int)
+	 */
+	public float getFloat(int columnIndex) throws SQLException {
+		return this.getNumber(columnIndex).floatValue();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getDouble(int)
+	 */
+	public double getDouble(int columnIndex) throws SQLException {
+		return this.getNumber(columnIndex).doubleValue();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBigDecimal(int, int)
+	 */
+	@Deprecated
+	public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+		return BigDecimal.valueOf(this.getNumber(columnIndex).longValue(), scale);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBytes(int)
+	 */
+	public byte[] getBytes(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getDate(int)
+	 */
+	public Date getDate(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTime(int)
+	 */
+	public Time getTime(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTimestamp(int)
+	 */
+	public Timestamp getTimestamp(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getAsciiStream(int)
+	 */
+	public InputStream getAsciiStream(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getUnicodeStream(int)
+	 */
+	@Deprecated
+	public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBinaryStream(int)
+	 */
+	public InputStream getBinaryStream(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getString(java.lang.String)
+	 */
+	public String getString(String columnName) throws SQLException {
+		return this.getString(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBoolean(java.lang.String)
+	 */
+	public boolean getBoolean(String columnName) throws SQLException {
+		return this.getBoolean(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getByte(java.lang.String)
+	 */
+	public byte getByte(String columnName) throws SQLException {
+		return this.getByte(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getShort(java.lang.String)
+	 */
+	public short getShort(String columnName) throws SQLException {
+		return this.getShort(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getInt(java.lang.String)
+	 */
+	public int getInt(String columnName) throws SQLException {
+		return this.getInt(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getLong(java.lang.String)
+	 */
+	public long getLong(String columnName) throws SQLException {
+		return this.getLong(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getFloat(java.lang.String)
+	 */
+	public float getFloat(String columnName) throws SQLException {
+		return this.getFloat(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getDouble(java.lang.String)
+	 */
+	public double getDouble(String columnName) throws SQLException {
+		return this.getDouble(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBigDecimal(java.lang.String, int)
+	 */
+	@Deprecated
+	public BigDecimal getBigDecimal(String columnName, int scale) throws SQLException {
+		return this.getBigDecimal(this.findColumn(columnName), scale);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBytes(java.lang.String)
+	 */
+	public byte[] getBytes(String columnName) throws SQLException {
+		return this.getBytes(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getDate(java.lang.String)
+	 */
+	public Date getDate(String columnName) throws SQLException {
+		return this.getDate(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTime(java.lang.String)
+	 */
+	public Time getTime(String columnName) throws SQLException {
+		return this.getTime(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTimestamp(java.lang.String)
+	 */
+	public Timestamp getTimestamp(String columnName) throws SQLException {
+		return this.getTimestamp(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getAsciiStream(java.lang.String)
+	 */
+	public InputStream getAsciiStream(String columnName) throws SQLException {
+		return this.getAsciiStream(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getUnicodeStream(java.lang.String)
+	 */
+	@Deprecated
+	public InputStream getUnicodeStream(String columnName) throws SQLException {
+		return this.getUnicodeStream(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBinaryStream(java.lang.String)
+	 */
+	public InputStream getBinaryStream(String columnName) throws SQLException {
+		return this.getBinaryStream(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getWarnings()
+	 */
+	public SQLWarning getWarnings() throws SQLException {
+		this.checkOpen();
+		return null;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#clearWarnings()
+	 */
+	public void clearWarnings() throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getCursorName()
+	 */
+	public String getCursorName() throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getMetaData()
+	 */
+	public ResultSetMetaData getMetaData() throws SQLException {
+		this.checkOpen();
+		throw new SQLException("The operation is not supported by the fake driver.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getObject(int)
+	 */
+	public Object getObject(int columnIndex) throws SQLException {
+		return this.getValue(columnIndex);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getObject(java.lang.String)
+	 */
+	public Object getObject(String columnName) throws SQLException {
+		return this.getObject(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#findColumn(java.lang.String)
+	 */
+	public int findColumn(String columnName) throws SQLException {
+		this.checkOpen();
+		for (int i = 0; i < FakeResultSet.COLUMNS.length; i++) {
+			if (FakeResultSet.COLUMNS[i].equalsIgnoreCase(columnName)) {
+				return i + 1;
+			}
+		}
+		throw new SQLException("Column " + columnName + " does not exist.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getCharacterStream(int)
+	 */
+	public Reader getCharacterStream(int columnIndex) throws SQLException {
+		return new StringReader(this.getString(columnIndex));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getCharacterStream(java.lang.String)
+	 */
+	public Reader getCharacterStream(String columnName) throws SQLException {
+		return this.getCharacterStream(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBigDecimal(int)
+	 */
+	public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+		return BigDecimal.valueOf(this.getNumber(columnIndex).longValue());
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBigDecimal(java.lang.String)
+	 */
+	public BigDecimal getBigDecimal(String columnName) throws SQLException {
+		return this.getBigDecimal(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#isBeforeFirst()
+	 */
+	public boolean isBeforeFirst() throws SQLException {
+		this.checkOpen();
+		return (this.rows > 0 && this.row == 0);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#isAfterLast()
+	 */
+	public boolean isAfterLast() throws SQLException {
+		this.checkOpen();
+		return (this.rows > 0 && this.row > this.rows);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#isFirst()
+	 */
+	public boolean isFirst() throws SQLException {
+		this.checkOpen();
+		return (this.rows > 0 && this.row == 1);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#isLast()
+	 */
+	public boolean isLast() throws SQLException {
+		this.checkOpen();
+		return (this.rows > 0 && this.row == this.rows);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#beforeFirst()
+	 */
+	public void beforeFirst() throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#afterLast()
+	 */
+	public void afterLast() throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#first()
+	 */
+	public boolean first() throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#last()
+	 */
+	public boolean last() throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getRow()
+	 */
+	public int getRow() throws SQLException {
+		this.checkOpen();
+		return (this.row <= this.rows ? this.row : 0);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#absolute(int)
+	 */
+	public boolean absolute(int row) throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#relative(int)
+	 */
+	public boolean relative(int rows) throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#previous()
+	 */
+	public boolean previous() throws SQLException {
+		throw new SQLException("The result set is forward only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#setFetchDirection(int)
+	 */
+	public void setFetchDirection(int direction) throws SQLException {
+		this.checkOpen();
+		if (direction != ResultSet.FETCH_FORWARD) {
+			throw new SQLException("The result set is forward only.");
+		}
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getFetchDirection()
+	 */
+	public int getFetchDirection() throws SQLException {
+		this.checkOpen();
+		return ResultSet.FETCH_FORWARD;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#setFetchSize(int)
+	 */
+	public void setFetchSize(int rows) throws SQLException {
+		this.checkOpen();
+		this.fetchSize = rows;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getFetchSize()
+	 */
+	public int getFetchSize() throws SQLException {
+		this.checkOpen();
+		return this.fetchSize;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getType()
+	 */
+	public int getType() throws SQLException {
+		this.checkOpen();
+		return ResultSet.TYPE_FORWARD_ONLY;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getConcurrency()
+	 */
+	public int getConcurrency() throws SQLException {
+		this.checkOpen();
+		return ResultSet.CONCUR_READ_ONLY;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#rowUpdated()
+	 */
+	public boolean rowUpdated() throws SQLException {
+		this.checkOpen();
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#rowInserted()
+	 */
+	public boolean rowInserted() throws SQLException {
+		this.checkOpen();
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#rowDeleted()
+	 */
+	public boolean rowDeleted() throws SQLException {
+		this.checkOpen();
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateNull(int)
+	 */
+	public void updateNull(int columnIndex) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBoolean(int, boolean)
+	 */
+	public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateByte(int, byte)
+	 */
+	public void updateByte(int columnIndex, byte x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateShort(int, short)
+	 */
+	public void updateShort(int columnIndex, short x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateInt(int, int)
+	 */
+	public void updateInt(int columnIndex, int x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateLong(int, long)
+	 */
+	public void updateLong(int columnIndex, long x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateFloat(int, float)
+	 */
+	public void updateFloat(int columnIndex, float x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateDouble(int, double)
+	 */
+	public void updateDouble(int columnIndex, double x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBigDecimal(int, java.math.BigDecimal)
+	 */
+	public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateString(int, java.lang.String)
+	 */
+	public void updateString(int columnIndex, String x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBytes(int, byte[])
+	 */
+	public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateDate(int, java.sql.Date)
+	 */
+	public void updateDate(int columnIndex, Date x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateTime(int, java.sql.Time)
+	 */
+	public void updateTime(int columnIndex, Time x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateTimestamp(int, java.sql.Timestamp)
+	 */
+	public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateAsciiStream(int, java.io.InputStream, int)
+	 */
+	public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBinaryStream(int, java.io.InputStream, int)
+	 */
+	public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateCharacterStream(int, java.io.Reader, int)
+	 */
+	public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateObject(int, java.lang.Object, int)
+	 */
+	public void updateObject(int columnIndex, Object x, int scale) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateObject(int, java.lang.Object)
+	 */
+	public void updateObject(int columnIndex, Object x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateNull(java.lang.String)
+	 */
+	public void updateNull(String columnName) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBoolean(java.lang.String, boolean)
+	 */
+	public void updateBoolean(String columnName, boolean x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateByte(java.lang.String, byte)
+	 */
+	public void updateByte(String columnName, byte x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateShort(java.lang.String, short)
+	 */
+	public void updateShort(String columnName, short x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateInt(java.lang.String, int)
+	 */
+	public void updateInt(String columnName, int x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateLong(java.lang.String, long)
+	 */
+	public void updateLong(String columnName, long x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateFloat(java.lang.String, float)
+	 */
+	public void updateFloat(String columnName, float x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateDouble(java.lang.String, double)
+	 */
+	public void updateDouble(String columnName, double x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBigDecimal(java.lang.String, java.math.BigDecimal)
+	 */
+	public void updateBigDecimal(String columnName, BigDecimal x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateString(java.lang.String, java.lang.String)
+	 */
+	public void updateString(String columnName, String x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBytes(java.lang.String, byte[])
+	 */
+	public void updateBytes(String columnName, byte[] x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateDate(java.lang.String, java.sql.Date)
+	 */
+	public void updateDate(String columnName, Date x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateTime(java.lang.String, java.sql.Time)
+	 */
+	public void updateTime(String columnName, Time x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateTimestamp(java.lang.String, java.sql.Timestamp)
+	 */
+	public void updateTimestamp(String columnName, Timestamp x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateAsciiStream(java.lang.String, java.io.InputStream, int)
+	 */
+	public void updateAsciiStream(String columnName, InputStream x, int length) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBinaryStream(java.lang.String, java.io.InputStream, int)
+	 */
+	public void updateBinaryStream(String columnName, InputStream x, int length) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateCharacterStream(java.lang.String, java.io.Reader, int)
+	 */
+	public void updateCharacterStream(String columnName, Reader reader, int length) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateObject(java.lang.String, java.lang.Object, int)
+	 */
+	public void updateObject(String columnName, Object x, int scale) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateObject(java.lang.String, java.lang.Object)
+	 */
+	public void updateObject(String columnName, Object x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#insertRow()
+	 */
+	public void insertRow() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateRow()
+	 */
+	public void updateRow() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#deleteRow()
+	 */
+	public void deleteRow() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#refreshRow()
+	 */
+	public void refreshRow() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#cancelRowUpdates()
+	 */
+	public void cancelRowUpdates() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#moveToInsertRow()
+	 */
+	public void moveToInsertRow() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#moveToCurrentRow()
+	 */
+	public void moveToCurrentRow() throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getStatement()
+	 */
+	public Statement getStatement() throws SQLException {
+		this.checkOpen();
+		return this.statement;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getObject(int, java.util.Map)
+	 */
+	public Object getObject(int i, Map<String, Class<?>> map) throws SQLException {
+		return this.getValue(i);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getRef(int)
+	 */
+	public Ref getRef(int i) throws SQLException {
+		this.getValue(i);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBlob(int)
+	 */
+	public Blob getBlob(int i) throws SQLException {
+		this.getValue(i);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getClob(int)
+	 */
+	public Clob getClob(int i) throws SQLException {
+		this.getValue(i);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getArray(int)
+	 */
+	public Array getArray(int i) throws SQLException {
+		this.getValue(i);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getObject(java.lang.String, java.util.Map)
+	 */
+	public Object getObject(String colName, Map<String, Class<?>> map) throws SQLException {
+		return this.getObject(this.findColumn(colName), map);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getRef(java.lang.String)
+	 */
+	public Ref getRef(String colName) throws SQLException {
+		return this.getRef(this.findColumn(colName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getBlob(java.lang.String)
+	 */
+	public Blob getBlob(String colName) throws SQLException {
+		return this.getBlob(this.findColumn(colName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getClob(java.lang.String)
+	 */
+	public Clob getClob(String colName) throws SQLException {
+		return this.getClob(this.findColumn(colName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getArray(java.lang.String)
+	 */
+	public Array getArray(String colName) throws SQLException {
+		return this.getArray(this.findColumn(colName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getDate(int, java.util.Calendar)
+	 */
+	public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getDate(java.lang.String, java.util.Calendar)
+	 */
+	public Date getDate(String columnName, Calendar cal) throws SQLException {
+		return this.getDate(this.findColumn(columnName), cal);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTime(int, java.util.Calendar)
+	 */
+	public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTime(java.lang.String, java.util.Calendar)
+	 */
+	public Time getTime(String columnName, Calendar cal) throws SQLException {
+		return this.getTime(this.findColumn(columnName), cal);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTimestamp(int, java.util.Calendar)
+	 */
+	public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getTimestamp(java.lang.String, java.util.Calendar)
+	 */
+	public Timestamp getTimestamp(String columnName, Calendar cal) throws SQLException {
+		return this.getTimestamp(this.findColumn(columnName), cal);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getURL(int)
+	 */
+	public URL getURL(int columnIndex) throws SQLException {
+		this.getValue(columnIndex);
+		throw new SQLException("The column cannot be converted to the requested type.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#getURL(java.lang.String)
+	 */
+	public URL getURL(String columnName) throws SQLException {
+		return this.getURL(this.findColumn(columnName));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateRef(int, java.sql.Ref)
+	 */
+	public void updateRef(int columnIndex, Ref x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateRef(java.lang.String, java.sql.Ref)
+	 */
+	public void updateRef(String columnName, Ref x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBlob(int, java.sql.Blob)
+	 */
+	public void updateBlob(int columnIndex, Blob x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateBlob(java.lang.String, java.sql.Blob)
+	 */
+	public void updateBlob(String columnName, Blob x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateClob(int, java.sql.Clob)
+	 */
+	public void updateClob(int columnIndex, Clob x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateClob(java.lang.String, java.sql.Clob)
+	 */
+	public void updateClob(String columnName, Clob x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateArray(int, java.sql.Array)
+	 */
+	public void updateArray(int columnIndex, Array x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.ResultSet#updateArray(java.lang.String, java.sql.Array)
+	 */
+	public void updateArray(String columnName, Array x) throws SQLException {
+		throw new SQLException("The result set is read only.");
+	}
+	
+	private static final String[] COLUMNS = { "ID", "NAME" };
+	
+	private Statement statement;
+	private int rows;
+	private int row;
+	private int fetchSize;
+	private boolean closed;
+	
+	/**
+	 * Throws an exception if the result set has been closed.
+	 * @throws SQLException Thrown if the result set has been closed.
+	 */
+	private void checkOpen() throws SQLException {
+		if (this.closed) {
+			throw new SQLException("The result set has been closed.");
+		}
+	}
+	
+	/**
+	 * Gets the value of a column of the current row.
+	 * @param columnIndex The index of the column, starting at one.
+	 * @return The value of the column.
+	 * @throws SQLException Thrown if the result set has been closed, the cursor is not on a row or the column does not exist.
+	 */
+	private Object getValue(int columnIndex) throws SQLException {
+		this.checkOpen();
+		if (this.row < 1 || this.row > this.rows) {
+			throw new SQLException("The cursor is not on a row.");
+		}
+		switch (columnIndex) {
+		case 1:
+			return Long.valueOf(this.row);
+		case 2:
+			return "name" + this.row;
+		default:
+			throw new SQLException("Column " + columnIndex + " does not exist.");
+		}
+	}
+	
+	/**
+	 * Gets the value of a numeric column of the current row.
+	 * @param columnIndex The index of the column, starting at one.
+	 * @return The value of the column.
+	 * @throws SQLException Thrown if the column is not numeric.
+	 */
+	private Number getNumber(int columnIndex) throws SQLException {
+		Object value = this.getValue(columnIndex);
+		if (!(value instanceof Number)) {
+			throw new SQLException("The column cannot be converted to a number.");
+		}
+		return (Number)value;
+	}
+	
+}
@@ -0,0 +1,455 @@
+package com.opower.connectionpool;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Provides a statement of the fake JDBC driver.
+ * <p>
+ * Executing a statement waits for the query latency of the data source and may kill the 
+ * connection at random (see {@link FakeConnection}).  Statements whose SQL text starts with 
+ * <code>select</code> return a {@link FakeResultSet} with the number of rows configured on the
+ * data source, and every other statement reports that number of rows as updated.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class FakeStatement implements Statement {
+	
+	/**
+	 * Initializes a new instance of the FakeStatement class.
+	 * @param connection The connection that created the statement.
+	 * @param resultSetType The result set type.
+	 * @param resultSetConcurrency The result set concurrency.
+	 * @param resultSetHoldability The result set holdability.
+	 */
+	public FakeStatement(FakeConnection connection, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+		this.connection = connection;
+		this.resultSetType = resultSetType;
+		this.resultSetConcurrency = resultSetConcurrency;
+		this.resultSetHoldability = resultSetHoldability;
+		this.updateCount = -1;
+	}
+	
+	/**
+	 * Indicates whether the statement has been closed.
+	 * @return True if the statement has been closed; otherwise, false.
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#executeQuery(java.lang.String)
+	 */
+	public ResultSet executeQuery(String sql) throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		this.connection.execute(sql);
+		this.resultSet = new FakeResultSet(this, this.connection.getDataSource().getRows());
+		return this.resultSet;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#executeUpdate(java.lang.String)
+	 */
+	public int executeUpdate(String sql) throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		this.connection.execute(sql);
+		this.updateCount = this.connection.getDataSource().getRows();
+		return this.updateCount;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#close()
+	 */
+	public void close() throws SQLException {
+		this.closeResultSet();
+		this.closed = true;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getMaxFieldSize()
+	 */
+	public int getMaxFieldSize() throws SQLException {
+		this.checkOpen();
+		return this.maxFieldSize;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setMaxFieldSize(int)
+	 */
+	public void setMaxFieldSize(int max) throws SQLException {
+		this.checkOpen();
+		this.maxFieldSize = max;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getMaxRows()
+	 */
+	public int getMaxRows() throws SQLException {
+		this.checkOpen();
+		return this.maxRows;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setMaxRows(int)
+	 */
+	public void setMaxRows(int max) throws SQLException {
+		this.checkOpen();
+		this.maxRows = max;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setEscapeProcessing(boolean)
+	 */
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getQueryTimeout()
+	 */
+	public int getQueryTimeout() throws SQLException {
+		this.checkOpen();
+		return this.queryTimeout;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setQueryTimeout(int)
+	 */
+	public void setQueryTimeout(int seconds) throws SQLException {
+		this.checkOpen();
+		this.queryTimeout = seconds;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#cancel()
+	 */
+	public void cancel() throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getWarnings()
+	 */
+	public SQLWarning getWarnings() throws SQLException {
+		this.checkOpen();
+		return null;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#clearWarnings()
+	 */
+	public void clearWarnings() throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setCursorName(java.lang.String)
+	 */
+	public void setCursorName(String name) throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#execute(java.lang.String)
+	 */
+	public boolean execute(String sql) throws SQLException {
+		if (FakeStatement.isQuery(sql)) {
+			this.executeQuery(sql);
+			return true;
+		}
+		this.executeUpdate(sql);
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getResultSet()
+	 */
+	public ResultSet getResultSet() throws SQLException {
+		this.checkOpen();
+		return this.resultSet;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getUpdateCount()
+	 */
+	public int getUpdateCount() throws SQLException {
+		this.checkOpen();
+		return this.updateCount;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getMoreResults()
+	 */
+	public boolean getMoreResults() throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setFetchDirection(int)
+	 */
+	public void setFetchDirection(int direction) throws SQLException {
+		this.checkOpen();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getFetchDirection()
+	 */
+	public int getFetchDirection() throws SQLException {
+		this.checkOpen();
+		return ResultSet.FETCH_FORWARD;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#setFetchSize(int)
+	 */
+	public void setFetchSize(int rows) throws SQLException {
+		this.checkOpen();
+		this.fetchSize = rows;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getFetchSize()
+	 */
+	public int getFetchSize() throws SQLException {
+		this.checkOpen();
+		return this.fetchSize;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getResultSetConcurrency()
+	 */
+	public int getResultSetConcurrency() throws SQLException {
+		this.checkOpen();
+		return this.resultSetConcurrency;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getResultSetType()
+	 */
+	public int getResultSetType() throws SQLException {
+		this.checkOpen();
+		return this.resultSetType;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#addBatch(java.lang.String)
+	 */
+	public void addBatch(String sql) throws SQLException {
+		this.checkOpen();
+		this.batch++;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#clearBatch()
+	 */
+	public void clearBatch() throws SQLException {
+		this.checkOpen();
+		this.batch = 0;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#executeBatch()
+	 */
+	public int[] executeBatch() throws SQLException {
+		this.checkOpen();
+		int[] updateCounts = new int[this.batch];
+		if (this.batch > 0) {
+			this.connection.execute(null);
+			Arrays.fill(updateCounts, this.connection.getDataSource().getRows());
+			this.batch = 0;
+		}
+		return updateCounts;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getConnection()
+	 */
+	public Connection getConnection() throws SQLException {
+		this.checkOpen();
+		return this.connection;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getMoreResults(int)
+	 */
+	public boolean getMoreResults(int current) throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getGeneratedKeys()
+	 */
+	public ResultSet getGeneratedKeys() throws SQLException {
+		this.checkOpen();
+		return new FakeResultSet(this, 0);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#executeUpdate(java.lang.String, int)
+	 */
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		this.connection.execute(sql);
+		this.updateCount = this.connection.getDataSource().getRows();
+		return this.updateCount;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#executeUpdate(java.lang.String, int[])
+	 */
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		this.connection.execute(sql);
+		this.updateCount = this.connection.getDataSource().getRows();
+		return this.updateCount;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#executeUpdate(java.lang.String, java.lang.String[])
+	 */
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		this.checkOpen();
+		this.closeResultSet();
+		this.connection.execute(sql);
+		this.updateCount = this.connection.getDataSource().getRows();
+		return this.updateCount;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#execute(java.lang.String, int)
+	 */
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		if (FakeStatement.isQuery(sql)) {
+			this.executeQuery(sql);
+			return true;
+		}
+		this.executeUpdate(sql);
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#execute(java.lang.String, int[])
+	 */
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		if (FakeStatement.isQuery(sql)) {
+			this.executeQuery(sql);
+			return true;
+		}
+		this.executeUpdate(sql);
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#execute(java.lang.String, java.lang.String[])
+	 */
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		if (FakeStatement.isQuery(sql)) {
+			this.executeQuery(sql);
+			return true;
+		}
+		this.executeUpdate(sql);
+		return false;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.sql.Statement#getResultSetHoldability()
+	 */
+	public int getResultSetHoldability() throws SQLException {
+		this.checkOpen();
+		return this.resultSetHoldability;
+	}
+	
+	/**
+	 * Throws an exception if the statement has been closed.
+	 * @throws SQLException Thrown if the statement has been closed.
+	 */
+	protected void checkOpen() throws SQLException {
+		if (this.closed) {
+			throw new SQLException("The statement has been closed.");
+		}
+	}
+	
+	/**
+	 * Indicates whether a statement returns a result set.
+	 * @param sql The SQL text of the statement.
+	 * @return True if the statement is a query; otherwise, false.
+	 */
+	private static boolean isQuery(String sql) {
+		return sql.trim().toLowerCase().startsWith("select");
+	}
+	
+	private FakeConnection connection;
+	private int resultSetType;
+	private int resultSetConcurrency;
+	private int resultSetHoldability;
+	private int maxFieldSize;
+	private int maxRows;
+	private int queryTimeout;
+	private int fetchSize;
+	private int batch;
+	private int updateCount;
+	private FakeResultSet resultSet;
+	private boolean closed;
+	
+	/**
+	 * Closes the current result set of the statement, if any.
+	 */
+	private void closeResultSet() {
+		if (this.resultSet != null) {
+			this.resultSet.close();
+			this.resultSet = null;
+		}
+		this.updateCount = -1;
+	}
+	
+}
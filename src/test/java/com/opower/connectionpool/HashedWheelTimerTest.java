@@ -0,0 +1,84 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.HashedWheelTimer HashedWheelTimer} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class HashedWheelTimerTest {
+
+	/**
+	 * Tests that a scheduled task is executed no earlier than its delay.
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testNewTimeout() throws InterruptedException {
+		HashedWheelTimer timer = new HashedWheelTimer("test", 10, TimeUnit.MILLISECONDS, 8);
+		final CountDownLatch latch = new CountDownLatch(1);
+		long start = System.nanoTime();
+		HashedWheelTimer.Timeout timeout = timer.newTimeout(new Runnable() {
+			public void run() {
+				latch.countDown();
+			}
+		}, 200, TimeUnit.MILLISECONDS);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+		assertTrue(timeout.isExpired());
+		assertFalse(timeout.cancel());
+		timer.stop();
+	}
+
+	/**
+	 * Tests that a cancelled task is never executed.
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testCancel() throws InterruptedException {
+		HashedWheelTimer timer = new HashedWheelTimer("test", 10, TimeUnit.MILLISECONDS, 8);
+		final AtomicInteger count = new AtomicInteger();
+		Runnable task = new Runnable() {
+			public void run() {
+				count.incrementAndGet();
+			}
+		};
+		HashedWheelTimer.Timeout[] timeouts = new HashedWheelTimer.Timeout[100];
+		for (int i = 0; i < timeouts.length; i++) {
+			timeouts[i] = timer.newTimeout(task, 50 + i, TimeUnit.MILLISECONDS);
+		}
+		for (int i = 0; i < timeouts.length; i += 2) {
+			assertTrue(timeouts[i].cancel());
+			assertTrue(timeouts[i].isCancelled());
+		}
+		Thread.sleep(400);
+		assertEquals(timeouts.length / 2, count.get());
+		timer.stop();
+	}
+
+	/**
+	 * Tests that a timeout whose delay spans multiple rotations of the wheel is not executed early.
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testMultipleRotations() throws InterruptedException {
+		HashedWheelTimer timer = new HashedWheelTimer("test", 10, TimeUnit.MILLISECONDS, 4);
+		final CountDownLatch latch = new CountDownLatch(1);
+		timer.newTimeout(new Runnable() {
+			public void run() {
+				latch.countDown();
+			}
+		}, 250, TimeUnit.MILLISECONDS);
+		assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		timer.stop();
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.LatencyHistogram LatencyHistogram} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * Tests that every duration falls into a bucket whose largest duration is no smaller than the
+	 * duration and no more than 12.5% larger.
+	 */
+	@Test
+	public void testBuckets() {
+		for (long nanos = 0; nanos < 100000; nanos++) {
+			long highest = LatencyHistogram.highest(LatencyHistogram.index(nanos));
+			assertTrue(highest >= nanos);
+			assertTrue(highest - nanos <= nanos / 8);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highest(LatencyHistogram.index(Long.MAX_VALUE)));
+	}
+
+	/**
+	 * Tests the percentiles, mean and maximum of a uniform distribution.
+	 */
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 1; micros <= 1000; micros++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+		}
+		histogram.record(-1);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1001, snapshot.getCount());
+		assertEquals(0, snapshot.getPercentile(0, TimeUnit.MICROSECONDS));
+		assertEquals(500, snapshot.getPercentile(50, TimeUnit.MICROSECONDS), 500 / 8);
+		assertEquals(990, snapshot.getPercentile(99, TimeUnit.MICROSECONDS), 990 / 8);
+		assertEquals(1000, snapshot.getPercentile(100, TimeUnit.MICROSECONDS));
+		assertEquals(1000, snapshot.getMaximum(TimeUnit.MICROSECONDS));
+		assertEquals(500, snapshot.getMean(TimeUnit.MICROSECONDS), 500 / 8);
+	}
+
+	/**
+	 * Tests that a reset snapshot contains the durations recorded since the previous reset.
+	 */
+	@Test
+	public void testSnapshotAndReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(100);
+		histogram.record(200);
+		assertEquals(2, histogram.snapshotAndReset().getCount());
+		histogram.record(50);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+		assertEquals(1, snapshot.getCount());
+		assertEquals(50, snapshot.getMaximum(TimeUnit.NANOSECONDS));
+		snapshot = histogram.snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getPercentile(99, TimeUnit.NANOSECONDS));
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.apache.log4j.SimpleLayout;
+import org.apache.log4j.WriterAppender;
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.LeakDetector LeakDetector} class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class LeakDetectorTest {
+
+	/**
+	 * Tests that borrows are traced once per sample interval.
+	 */
+	@Test
+	public void testCapture() {
+		LeakDetector leakDetector = new LeakDetector(1, TimeUnit.SECONDS, 3);
+		int traced = 0;
+		for (int i = 0; i < 9; i++) {
+			if (leakDetector.capture() != null) {
+				traced++;
+			}
+		}
+		assertEquals(3, traced);
+		assertEquals(3, leakDetector.getCaptured());
+		leakDetector = new LeakDetector(1, TimeUnit.SECONDS, 0);
+		assertNull(leakDetector.capture());
+		assertEquals(0, leakDetector.getCaptured());
+	}
+
+	/**
+	 * Tests that a bounded number of borrows are traced after an untraced leak, whether or not a
+	 * traced leak is reported in between, and that the stack trace of a call site is only written
+	 * once.
+	 */
+	@Test
+	public void testSuspect() {
+		StringWriter writer = new StringWriter();
+		WriterAppender appender = new WriterAppender(new SimpleLayout(), writer);
+		Logger.getLogger(LeakDetector.class).addAppender(appender);
+		try {
+			LeakDetector leakDetector = new LeakDetector(1, TimeUnit.SECONDS, 0, 3);
+			assertEquals(3, leakDetector.getEscalationBorrows());
+			leakDetector.suspect(Thread.currentThread(), TimeUnit.MILLISECONDS.toNanos(1500), null);
+			assertTrue(writer.toString().contains("WARN - Connection leak suspected: held for 1500 ms by thread " + Thread.currentThread().getName() + "; tracing the next 3 borrows"));
+			Throwable trace = leakDetector.capture();
+			assertNotNull(trace);
+			assertNotNull(leakDetector.capture());
+			leakDetector.suspect(Thread.currentThread(), TimeUnit.SECONDS.toNanos(2), trace);
+			assertNotNull(leakDetector.capture());
+			assertNull(leakDetector.capture());
+			leakDetector.suspect(Thread.currentThread(), TimeUnit.SECONDS.toNanos(3), trace);
+			leakDetector.released(Thread.currentThread(), TimeUnit.SECONDS.toNanos(4));
+			assertEquals(3, leakDetector.getSuspected());
+			String log = writer.toString();
+			String site = "borrowed at " + LeakDetectorTest.class.getName() + ".testSuspect(";
+			assertTrue(log.contains(site));
+			assertTrue(log.contains("java.lang.Throwable: Connection borrowed here"));
+			assertEquals(log.indexOf("Connection borrowed here"), log.lastIndexOf("Connection borrowed here"));
+			assertTrue(log.contains("(2 leaks from this call site)"));
+			assertTrue(log.contains("INFO - Connection suspected to have leaked was released after 4000 ms"));
+		} finally {
+			Logger.getLogger(LeakDetector.class).removeAppender(appender);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.PoolSizeController PoolSizeController} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class PoolSizeControllerTest {
+
+	/**
+	 * Tests that the maximum is kept within the bounds.
+	 */
+	@Test
+	public void testBounds() {
+		PoolSizeController sizeController = new PoolSizeController(2, 10);
+		assertEquals(10, sizeController.adjust(100, 10, 0));
+		assertEquals(2, sizeController.adjust(1, 0, 0));
+		assertEquals(2, sizeController.adjust(2, 0, 0));
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(5));
+		assertEquals(10, sizeController.adjust(10, 10, 5));
+	}
+
+	/**
+	 * Tests that the maximum is raised while consumers queue and an increase cuts the wait time,
+	 * and lowered slowly once the connections are mostly unused.
+	 */
+	@Test
+	public void testAdditiveIncrease() {
+		PoolSizeController sizeController = new PoolSizeController(1, 10);
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(8));
+		assertEquals(5, sizeController.adjust(4, 4, 2));
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(4));
+		assertEquals(6, sizeController.adjust(5, 5, 1));
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(6));
+		assertEquals(6, sizeController.adjust(6, 6, 1));
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(6));
+		assertEquals(7, sizeController.adjust(6, 6, 1));
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(8));
+		assertEquals(7, sizeController.adjust(7, 3, 0));
+		assertEquals(7, sizeController.adjust(7, 4, 0));
+		assertEquals(6, sizeController.adjust(7, 2, 0));
+	}
+
+	/**
+	 * Tests that the maximum is cut when the execution time grows beyond the tolerance.
+	 */
+	@Test
+	public void testMultiplicativeDecrease() {
+		PoolSizeController sizeController = new PoolSizeController(2, 20);
+		sizeController.recordExecution(TimeUnit.MILLISECONDS.toNanos(1));
+		assertEquals(8, sizeController.adjust(8, 8, 0));
+		assertEquals(1, sizeController.getBaseline(TimeUnit.MILLISECONDS));
+		sizeController.recordExecution(TimeUnit.MILLISECONDS.toNanos(5));
+		sizeController.recordWait(TimeUnit.MILLISECONDS.toNanos(50));
+		assertEquals(6, sizeController.adjust(8, 8, 4));
+		sizeController.recordExecution(TimeUnit.MILLISECONDS.toNanos(5));
+		assertEquals(4, sizeController.adjust(6, 6, 4));
+		sizeController.recordExecution(TimeUnit.MILLISECONDS.toNanos(5));
+		assertEquals(3, sizeController.adjust(4, 4, 4));
+		sizeController.recordExecution(TimeUnit.MILLISECONDS.toNanos(5));
+		assertEquals(2, sizeController.adjust(3, 3, 4));
+	}
+
+}
@@ -0,0 +1,246 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.RoutingConnectionPool RoutingConnectionPool}
+ * class.
+ *
+ * @author Joshua Mark Rutherford
+ */
+public class RoutingConnectionPoolTest {
+
+	/**
+	 * Tests that writes are routed to the primary and read-only borrows to a replica.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testRouting() throws SQLException {
+		RoutingConnectionPool routingPool = this.createRoutingPool(1, 1, RoutingConnectionPool.Balancing.LEAST_ACTIVE);
+		ConnectionPoolImpl primary = routingPool.getPrimary();
+		ConnectionPoolImpl replica = routingPool.getReplicas().get(0);
+		Connection connection = routingPool.getConnection();
+		assertEquals(1, primary.getActiveConnections());
+		assertEquals(0, replica.getActiveConnections());
+		assertFalse(connection.isReadOnly());
+		connection.close();
+		assertTrue(connection.isClosed());
+		assertEquals(0, primary.getActiveConnections());
+		connection = routingPool.getConnection(true);
+		assertEquals(0, primary.getActiveConnections());
+		assertEquals(1, replica.getActiveConnections());
+		assertTrue(connection.isReadOnly());
+		routingPool.releaseConnection(connection);
+		assertEquals(0, replica.getActiveConnections());
+		connection.close();
+	}
+
+	/**
+	 * Tests that an unused connection moves to a replica when it is made read only, carrying over
+	 * its session, and that a used connection stays where it is.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testSetReadOnly() throws SQLException {
+		RoutingConnectionPool routingPool = this.createRoutingPool(1, 1, RoutingConnectionPool.Balancing.LEAST_ACTIVE);
+		ConnectionPoolImpl primary = routingPool.getPrimary();
+		ConnectionPoolImpl replica = routingPool.getReplicas().get(0);
+		Connection connection = routingPool.getConnection();
+		connection.setAutoCommit(false);
+		connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		connection.setReadOnly(true);
+		assertEquals(0, primary.getActiveConnections());
+		assertEquals(1, replica.getActiveConnections());
+		assertTrue(connection.isReadOnly());
+		assertFalse(connection.getAutoCommit());
+		assertEquals(Connection.TRANSACTION_SERIALIZABLE, connection.getTransactionIsolation());
+		connection.setReadOnly(false);
+		assertEquals(1, primary.getActiveConnections());
+		assertEquals(0, replica.getActiveConnections());
+		assertFalse(connection.getAutoCommit());
+		connection.createStatement().close();
+		connection.setReadOnly(true);
+		assertEquals(1, primary.getActiveConnections());
+		assertEquals(0, replica.getActiveConnections());
+		assertTrue(connection.isReadOnly());
+		connection.close();
+		assertEquals(0, primary.getActiveConnections());
+	}
+
+	/**
+	 * Tests that read-only borrows are spread over the replicas with the fewest active connections.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testLeastActive() throws SQLException {
+		RoutingConnectionPool routingPool = this.createRoutingPool(2, 2, RoutingConnectionPool.Balancing.LEAST_ACTIVE);
+		List<ConnectionPoolImpl> replicas = routingPool.getReplicas();
+		Connection first = routingPool.getConnection(true);
+		Connection second = routingPool.getConnection(true);
+		assertEquals(1, replicas.get(0).getActiveConnections());
+		assertEquals(1, replicas.get(1).getActiveConnections());
+		Connection third = routingPool.getConnection(true);
+		Connection fourth = routingPool.getConnection(true);
+		assertEquals(2, replicas.get(0).getActiveConnections());
+		assertEquals(2, replicas.get(1).getActiveConnections());
+		first.close();
+		ConnectionPoolImpl released = (replicas.get(0).getActiveConnections() == 1 ? replicas.get(0) : replicas.get(1));
+		Connection fifth = routingPool.getConnection(true);
+		assertEquals(2, released.getActiveConnections());
+		assertEquals(0, routingPool.getPrimary().getActiveConnections());
+		second.close();
+		third.close();
+		fourth.close();
+		fifth.close();
+	}
+
+	/**
+	 * Tests that read-only borrows prefer the replica whose statements execute the fastest, 
+	 * however long the connections are held.
+	 * @throws Exception
+	 */
+	@Test
+	public void testLowestLatency() throws Exception {
+		FakeDataSource slowDataSource = new FakeDataSource();
+		slowDataSource.setQueryLatency(FakeLatency.constant(20, TimeUnit.MILLISECONDS));
+		List<DataSource> dataSources = new ArrayList<DataSource>();
+		dataSources.add(slowDataSource);
+		dataSources.add(new FakeDataSource());
+		RoutingConnectionPool routingPool = new RoutingConnectionPool(new FakeDataSource(), dataSources, 0, 2, RoutingConnectionPool.Balancing.LOWEST_LATENCY);
+		ConnectionPoolImpl slow = routingPool.getReplicas().get(0);
+		ConnectionPoolImpl fast = routingPool.getReplicas().get(1);
+		assertTrue(slow.isExecutionLatencyTracked());
+		assertFalse(routingPool.getPrimary().isExecutionLatencyTracked());
+		for (ConnectionPoolImpl replica : routingPool.getReplicas()) {
+			Connection connection = replica.getConnection();
+			connection.createStatement().execute("select 1");
+			replica.releaseConnection(connection);
+		}
+		assertTrue(slow.getExecutionLatency(TimeUnit.MILLISECONDS) >= 20);
+		assertTrue(fast.getExecutionLatency(TimeUnit.NANOSECONDS) > 0);
+		for (int i = 0; i < 10; i++) {
+			Connection connection = routingPool.getConnection(true);
+			connection.createStatement().execute("select 1");
+			Thread.sleep(5);
+			connection.close();
+		}
+		assertEquals(1, slow.getBorrowCount());
+		assertEquals(11, fast.getBorrowCount());
+	}
+
+	/**
+	 * Tests that read-only borrows fall back to the primary when no replica can serve them.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testFallback() throws SQLException {
+		RoutingConnectionPool routingPool = this.createRoutingPool(0, 1, RoutingConnectionPool.Balancing.LEAST_ACTIVE);
+		Connection connection = routingPool.getConnection(true);
+		assertEquals(1, routingPool.getPrimary().getActiveConnections());
+		connection.setReadOnly(true);
+		assertEquals(1, routingPool.getPrimary().getActiveConnections());
+		connection.close();
+		routingPool = this.createRoutingPool(1, 1, RoutingConnectionPool.Balancing.LEAST_ACTIVE);
+		Connection held = routingPool.getConnection(true);
+		connection = routingPool.getConnection(true);
+		assertEquals(1, routingPool.getReplicas().get(0).getActiveConnections());
+		assertEquals(1, routingPool.getPrimary().getActiveConnections());
+		connection.close();
+		held.close();
+	}
+
+	/**
+	 * Tests that connections that did not originate from the routing pool are rejected.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testReleaseConnection() throws SQLException {
+		RoutingConnectionPool routingPool = this.createRoutingPool(1, 2, RoutingConnectionPool.Balancing.LEAST_ACTIVE);
+		Connection connection = routingPool.getPrimary().getConnection();
+		Connection routed = routingPool.getConnection();
+		try {
+			routingPool.releaseConnection(connection);
+			fail("Expected an exception.");
+		} catch (SQLException e) {
+
+		}
+		try {
+			routingPool.releaseConnection(null);
+			fail("Expected an exception.");
+		} catch (SQLException e) {
+
+		}
+		try {
+			this.createRoutingPool(1, 1, RoutingConnectionPool.Balancing.LEAST_ACTIVE).releaseConnection(routed);
+			fail("Expected an exception.");
+		} catch (SQLException e) {
+
+		}
+		routingPool.releaseConnection(routed);
+		routingPool.getPrimary().releaseConnection(connection);
+		assertEquals(0, routingPool.getPrimary().getActiveConnections());
+	}
+
+	/**
+	 * Tests that a replica connection that cannot be made read only is released to its replica 
+	 * and that falling back to the primary does not wait longer than the time that was asked for.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testFallbackFailure() throws SQLException {
+		Connection physical = EasyMock.createNiceMock(Connection.class);
+		physical.setReadOnly(true);
+		EasyMock.expectLastCall().andThrow(new SQLException("Read-only mode is not supported."));
+		EasyMock.replay(physical);
+		DataSource dataSource = EasyMock.createMock(DataSource.class);
+		EasyMock.expect(dataSource.getConnection()).andReturn(physical);
+		EasyMock.replay(dataSource);
+		ConnectionPoolImpl replica = new ConnectionPoolImpl(dataSource, 0, 1);
+		RoutingConnectionPool routingPool = new RoutingConnectionPool(new ConnectionPoolImpl(new FakeDataSource(), 0, 1), Collections.singletonList(replica));
+		Connection connection = routingPool.getConnection(true);
+		assertEquals(1, routingPool.getPrimary().getActiveConnections());
+		assertEquals(0, replica.getActiveConnections());
+		assertEquals(1, replica.getCurrentConnections());
+		long start = System.nanoTime();
+		Connection held = replica.getConnection();
+		try {
+			routingPool.getConnection(true, 200, TimeUnit.MILLISECONDS);
+			fail("Expected an exception.");
+		} catch (SQLException e) {
+
+		}
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 350);
+		replica.releaseConnection(held);
+		connection.close();
+		EasyMock.verify(dataSource);
+	}
+
+	/**
+	 * Creates a routing pool over fake data sources.
+	 * @param replicas The number of replicas.
+	 * @param maximumConnections The maximum number of connections of the primary and each replica.
+	 * @param balancing The balancing.
+	 * @return The routing pool.
+	 * @throws SQLException
+	 */
+	private RoutingConnectionPool createRoutingPool(int replicas, int maximumConnections, RoutingConnectionPool.Balancing balancing) throws SQLException {
+		List<DataSource> dataSources = new ArrayList<DataSource>();
+		for (int i = 0; i < replicas; i++) {
+			dataSources.add(new FakeDataSource());
+		}
+		return new RoutingConnectionPool(new FakeDataSource(), dataSources, 0, maximumConnections, balancing);
+	}
+
+}
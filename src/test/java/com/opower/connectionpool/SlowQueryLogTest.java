@@ -0,0 +1,90 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Logger;
+import org.apache.log4j.SimpleLayout;
+import org.apache.log4j.WriterAppender;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.SlowQueryLog SlowQueryLog} class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class SlowQueryLogTest {
+
+	/**
+	 * Tests that only statements above the threshold are written, with their parameters and 
+	 * thread.
+	 */
+	@Test
+	public void testLog() throws Exception {
+		StringWriter writer = new StringWriter();
+		WriterAppender appender = new WriterAppender(new SimpleLayout(), writer);
+		Logger.getLogger(SlowQueryLog.class).addAppender(appender);
+		try {
+			SlowQueryLog slowQueryLog = new SlowQueryLog(10, TimeUnit.MILLISECONDS);
+			BindParameters parameters = new BindParameters();
+			parameters.set(1, "abc");
+			assertFalse(slowQueryLog.log("select fast", parameters, TimeUnit.MILLISECONDS.toNanos(10)));
+			assertTrue(slowQueryLog.log("select slow where a = ?", parameters, TimeUnit.MICROSECONDS.toNanos(12345)));
+			slowQueryLog.close();
+			assertFalse(slowQueryLog.log("select late", null, TimeUnit.SECONDS.toNanos(1)));
+			assertEquals(1, slowQueryLog.getLogged());
+			String log = writer.toString();
+			assertTrue(log.contains("WARN - Slow statement took 12.345 ms on thread " + Thread.currentThread().getName() + ": select slow where a = ? [1='abc']"));
+			assertFalse(log.contains("select fast"));
+			assertFalse(log.contains("select late"));
+		} finally {
+			Logger.getLogger(SlowQueryLog.class).removeAppender(appender);
+		}
+	}
+
+	/**
+	 * Tests that slow statements are dropped rather than waited for once the buffer is full.
+	 */
+	@Test
+	public void testDrop() throws Exception {
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		AppenderSkeleton appender = new AppenderSkeleton() {
+			protected void append(LoggingEvent event) {
+				writing.countDown();
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					
+				}
+			}
+			public boolean requiresLayout() {
+				return false;
+			}
+			public void close() {
+				
+			}
+		};
+		Logger.getLogger(SlowQueryLog.class).addAppender(appender);
+		try {
+			SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 2);
+			assertTrue(slowQueryLog.log("select 1", null, 1));
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+			assertTrue(slowQueryLog.log("select 2", null, 1));
+			assertTrue(slowQueryLog.log("select 3", null, 1));
+			assertFalse(slowQueryLog.log("select 4", null, 1));
+			assertEquals(1, slowQueryLog.getDropped());
+			blocked.countDown();
+			slowQueryLog.close();
+			assertEquals(3, slowQueryLog.getLogged());
+		} finally {
+			Logger.getLogger(SlowQueryLog.class).removeAppender(appender);
+		}
+	}
+
+}
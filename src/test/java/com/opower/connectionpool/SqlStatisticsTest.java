@@ -0,0 +1,104 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.SqlStatistics SqlStatistics} class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class SqlStatisticsTest {
+
+	/**
+	 * Tests that literals, comments, case and whitespace are normalized away.
+	 */
+	@Test
+	public void testNormalize() {
+		assertEquals("select * from t where id = ? and name = ?", SqlStatistics.normalize("SELECT *\n  FROM t WHERE id = 42 AND name = 'O''Brien'"));
+		assertEquals("select * from t where id in (?)", SqlStatistics.normalize("select * from t where id in (1, 2, 3)"));
+		assertEquals("select * from t where id in (?)", SqlStatistics.normalize("select * from t where id in (?,?)"));
+		assertEquals("select max(a) from t", SqlStatistics.normalize("select max(a) from t -- trailing comment"));
+		assertEquals("select col1 from \"Table1\" where x = ?", SqlStatistics.normalize("/* hint */ select col1 from \"Table1\" where x = 1.5e3"));
+		assertEquals("update t set a = -?", SqlStatistics.normalize("update t set a = -7"));
+		assertNull(SqlStatistics.normalize(null));
+	}
+
+	/**
+	 * Tests that executions of the same shape of SQL are counted together.
+	 */
+	@Test
+	public void testRecord() {
+		SqlStatistics statistics = new SqlStatistics();
+		statistics.record("select * from t where id = 1", TimeUnit.MICROSECONDS.toNanos(100), 0).addRows(1);
+		statistics.record("select * from t where id = 2", TimeUnit.MICROSECONDS.toNanos(300), 0).addRows(1);
+		statistics.record("update t set a = 1", TimeUnit.MICROSECONDS.toNanos(50), 5);
+		List<SqlStatistics.Entry> statements = statistics.getStatements();
+		assertEquals(2, statements.size());
+		SqlStatistics.Entry entry = statements.get(0);
+		assertEquals("select * from t where id = ?", entry.getSql());
+		assertEquals(2, entry.getCount());
+		assertEquals(400, entry.getTotalTime(TimeUnit.MICROSECONDS));
+		assertEquals(200, entry.getMeanTime(TimeUnit.MICROSECONDS));
+		assertEquals(100, entry.getMinimumTime(TimeUnit.MICROSECONDS));
+		assertEquals(300, entry.getMaximumTime(TimeUnit.MICROSECONDS));
+		assertEquals(300, entry.getPercentile(99, TimeUnit.MICROSECONDS));
+		assertEquals(2, entry.getRows());
+		assertEquals(5, statements.get(1).getRows());
+		String report = statistics.report(1);
+		assertTrue(report.contains("select * from t where id = ?"));
+		assertFalse(report.contains("update"));
+		statistics.reset();
+		assertTrue(statistics.getStatements().isEmpty());
+	}
+
+	/**
+	 * Tests that the statement with the least estimated total execution time is replaced once the
+	 * maximum number of statements has been reached and that the new statement inherits its count
+	 * and total execution time as its error.
+	 */
+	@Test
+	public void testEviction() {
+		SqlStatistics statistics = new SqlStatistics(2);
+		statistics.record("select a from t", 500, 0);
+		statistics.record("select b from t", 100, 0);
+		statistics.record("select c from t", 200, 0);
+		List<SqlStatistics.Entry> statements = statistics.getStatements();
+		assertEquals(2, statements.size());
+		assertEquals("select a from t", statements.get(0).getSql());
+		assertEquals(0, statements.get(0).getErrorTime(TimeUnit.NANOSECONDS));
+		SqlStatistics.Entry entry = statements.get(1);
+		assertEquals("select c from t", entry.getSql());
+		assertEquals(1, entry.getCount());
+		assertEquals(200, entry.getTotalTime(TimeUnit.NANOSECONDS));
+		assertEquals(1, entry.getErrorCount());
+		assertEquals(100, entry.getErrorTime(TimeUnit.NANOSECONDS));
+		assertEquals(1, statistics.getEvictions());
+	}
+
+	/**
+	 * Tests that a statement that keeps arriving among distinct statements that are executed only
+	 * once is not replaced by each of them in turn.
+	 */
+	@Test
+	public void testEvictionChurn() {
+		SqlStatistics statistics = new SqlStatistics(2);
+		statistics.record("select a from t", 500, 0);
+		for (int i = 0; i < 1000; i++) {
+			statistics.record("select d" + i + " from t", 1, 0);
+			statistics.record("select h from t", 10, 0);
+		}
+		List<SqlStatistics.Entry> statements = statistics.getStatements();
+		assertEquals(2, statements.size());
+		SqlStatistics.Entry entry = statements.get(0);
+		assertEquals("select h from t", entry.getSql());
+		assertTrue(entry.getCount() > 900);
+		assertTrue(entry.getTotalTime(TimeUnit.NANOSECONDS) + entry.getErrorTime(TimeUnit.NANOSECONDS) >= 10000);
+		assertTrue(entry.getCount() + entry.getErrorCount() >= 1000);
+	}
+
+}
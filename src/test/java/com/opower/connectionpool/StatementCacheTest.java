@@ -0,0 +1,90 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.StatementCache StatementCache} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class StatementCacheTest {
+
+	/**
+	 * Tests that a statement is only reused for an identical key.
+	 */
+	@Test
+	public void testTake() {
+		StatementCache<PreparedStatement> cache = new StatementCache<PreparedStatement>(10);
+		PreparedStatement statement = EasyMock.createMock(PreparedStatement.class);
+		EasyMock.replay(statement);
+		assertTrue(cache.put(StatementCacheTest.key("select 1", null), statement));
+		assertNull(cache.take(StatementCacheTest.key("select 2", null)));
+		assertNull(cache.take(StatementCacheTest.key("select 1", new int[] { 1 })));
+		assertSame(statement, cache.take(StatementCacheTest.key("select 1", null)));
+		assertNull(cache.take(StatementCacheTest.key("select 1", null)));
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		EasyMock.verify(statement);
+	}
+
+	/**
+	 * Tests that the least recently used statement is closed once the cache is full.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testEviction() throws SQLException {
+		StatementCache<PreparedStatement> cache = new StatementCache<PreparedStatement>(2);
+		PreparedStatement first = EasyMock.createMock(PreparedStatement.class);
+		first.close();
+		EasyMock.replay(first);
+		PreparedStatement second = EasyMock.createMock(PreparedStatement.class);
+		EasyMock.replay(second);
+		PreparedStatement third = EasyMock.createMock(PreparedStatement.class);
+		EasyMock.replay(third);
+		cache.put(StatementCacheTest.key("first", null), first);
+		cache.put(StatementCacheTest.key("second", null), second);
+		assertSame(second, cache.take(StatementCacheTest.key("second", null)));
+		cache.put(StatementCacheTest.key("second", null), second);
+		cache.put(StatementCacheTest.key("third", null), third);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertFalse(cache.put(StatementCacheTest.key("third", null), EasyMock.createMock(PreparedStatement.class)));
+		EasyMock.verify(first, second, third);
+	}
+
+	/**
+	 * Tests that closing the cache closes every cached statement and rejects further statements.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testClose() throws SQLException {
+		StatementCache<PreparedStatement> cache = new StatementCache<PreparedStatement>(2);
+		PreparedStatement statement = EasyMock.createMock(PreparedStatement.class);
+		statement.close();
+		EasyMock.replay(statement);
+		cache.put(StatementCacheTest.key("select 1", null), statement);
+		cache.close();
+		assertEquals(0, cache.size());
+		assertFalse(cache.put(StatementCacheTest.key("select 1", null), statement));
+		EasyMock.verify(statement);
+	}
+
+	/**
+	 * Creates a key for a statement.
+	 * @param sql The SQL text of the statement.
+	 * @param columnIndexes The indexes of the columns that return generated keys or null.
+	 * @return The key for the statement.
+	 */
+	private static StatementCache.Key key(String sql, int[] columnIndexes) {
+		int unspecified = StatementCache.Key.UNSPECIFIED;
+		return new StatementCache.Key(sql, unspecified, unspecified, unspecified, unspecified, columnIndexes, null);
+	}
+
+}
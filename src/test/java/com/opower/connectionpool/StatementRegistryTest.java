@@ -0,0 +1,69 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.StatementRegistry StatementRegistry} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class StatementRegistryTest {
+
+	/**
+	 * Tests that closed statements leave the registry and that their slots are reused.
+	 */
+	@Test
+	public void testUnregister() {
+		StatementRegistry registry = new StatementRegistry();
+		Statement first = EasyMock.createMock(Statement.class);
+		Statement second = EasyMock.createMock(Statement.class);
+		for (int i = 0; i < 1000; i++) {
+			int slot = registry.register(first);
+			assertEquals(1, registry.size());
+			registry.unregister(slot, first);
+			assertEquals(0, registry.size());
+			assertEquals(slot, registry.register(second));
+			registry.unregister(slot, first);
+			assertEquals(1, registry.size());
+			registry.unregister(slot, second);
+		}
+		assertEquals(0, registry.size());
+	}
+
+	/**
+	 * Tests that every registered statement is closed exactly once.
+	 * @throws SQLException
+	 */
+	@Test
+	public void testCloseAll() throws SQLException {
+		StatementRegistry registry = new StatementRegistry();
+		Statement[] statements = new Statement[20];
+		int[] slots = new int[statements.length];
+		for (int i = 0; i < statements.length; i++) {
+			statements[i] = EasyMock.createMock(Statement.class);
+			slots[i] = registry.register(statements[i]);
+		}
+		for (int i = 0; i < statements.length; i++) {
+			if (i % 2 == 0) {
+				registry.unregister(slots[i], statements[i]);
+			} else {
+				statements[i].close();
+			}
+			EasyMock.replay(statements[i]);
+		}
+		registry.closeAll();
+		assertEquals(0, registry.size());
+		registry.closeAll();
+		for (Statement statement : statements) {
+			EasyMock.verify(statement);
+		}
+	}
+
+}
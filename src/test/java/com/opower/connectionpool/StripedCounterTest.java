@@ -0,0 +1,66 @@
+package com.opower.connectionpool;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Provides unit tests for the {@link com.opower.connectionpool.StripedCounter StripedCounter} 
+ * class.
+ * 
+ * @author Joshua Mark Rutherford
+ */
+public class StripedCounterTest {
+
+	/**
+	 * Tests that no increments are lost when many threads increment the counter at the same time.
+	 */
+	@Test
+	public void testIncrement() throws Exception {
+		final StripedCounter counter = new StripedCounter();
+		final CountDownLatch done = new CountDownLatch(8);
+		for (int i = 0; i < 8; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						counter.increment();
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+		done.await();
+		assertEquals(80000, counter.get());
+		counter.add(5);
+		assertEquals("80005", counter.toString());
+	}
+
+	/**
+	 * Tests that resetting the counter returns the count and starts again from zero.
+	 */
+	@Test
+	public void testGetAndReset() {
+		StripedCounter counter = new StripedCounter();
+		counter.add(3);
+		counter.increment();
+		assertEquals(4, counter.getAndReset());
+		assertEquals(0, counter.get());
+		counter.increment();
+		assertEquals(1, counter.get());
+	}
+
+	/**
+	 * Tests that the count of the cell of the current thread counts the increments of the current
+	 * thread.
+	 */
+	@Test
+	public void testIncrementAndGetCell() {
+		StripedCounter counter = new StripedCounter();
+		assertEquals(1, counter.incrementAndGetCell());
+		assertEquals(2, counter.incrementAndGetCell());
+		assertEquals(2, counter.get());
+	}
+
+}